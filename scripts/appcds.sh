@@ -0,0 +1,67 @@
+#!/bin/sh
+# Архив классов приложения (AppCDS) для быстрого запуска интерфейса.
+#
+#   scripts/appcds.sh build     — тренировочный запуск: окно открывается, рисует первый кадр
+#                                 и закрывается, JVM сохраняет загруженные классы в архив
+#   scripts/appcds.sh run [...] — запуск с архивом (аргументы передаются App)
+#   scripts/appcds.sh measure   — по три запуска без архива и с архивом, время до первого кадра;
+#                                 код выхода 1, если архив не подходит или время не выведено
+#
+# Переменные окружения:
+#   JAVAFX_LIB      — каталог lib из JavaFX SDK (обязательно)
+#   CAFE_CLASSPATH  — скомпилированные классы и драйвер PostgreSQL (по умолчанию out:lib/*)
+#   CAFE_CDS_ARCHIVE — файл архива (по умолчанию cafe-app.jsa)
+#   JAVA_HOME       — JDK, тем же JDK архив строится и используется
+#
+# Архив привязан к версии JDK и к classpath: после пересборки приложения или смены JDK
+# его нужно построить заново (при несовпадении JVM молча запускается без архива, поэтому
+# measure запускает с -Xshare:on — неподходящий архив там ошибка, а не медленный запуск).
+set -e
+
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+CP="${CAFE_CLASSPATH:-out:lib/*}"
+ARCHIVE="${CAFE_CDS_ARCHIVE:-cafe-app.jsa}"
+: "${JAVAFX_LIB:?укажите JAVAFX_LIB — каталог lib из JavaFX SDK}"
+FX="--module-path $JAVAFX_LIB --add-modules javafx.controls"
+
+first_frame() {
+    # Строка «Запуск до первого кадра: ...» из лога MainView
+    if ! "$JAVA" "$@" -Dcafe.startup.exitAfterFirstFrame=true $FX -cp "$CP" App 2>&1 \
+            | grep "Запуск до первого кадра"; then
+        echo "Строка со временем запуска не найдена${*:+ (параметры JVM: $*)}" >&2
+        exit 1
+    fi
+}
+
+require_archive() {
+    if [ ! -s "$ARCHIVE" ]; then
+        echo "Архив $ARCHIVE не найден, сначала: $0 build" >&2
+        exit 1
+    fi
+}
+
+case "$1" in
+    build)
+        rm -f "$ARCHIVE"
+        "$JAVA" -XX:ArchiveClassesAtExit="$ARCHIVE" -Dcafe.startup.exitAfterFirstFrame=true \
+            $FX -cp "$CP" App
+        require_archive
+        echo "Архив классов: $ARCHIVE"
+        ;;
+    run)
+        shift
+        require_archive
+        exec "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" $FX -cp "$CP" App "$@"
+        ;;
+    measure)
+        require_archive
+        echo "Без архива приложения (только архив JDK по умолчанию):"
+        for i in 1 2 3; do first_frame; done
+        echo "С архивом $ARCHIVE:"
+        for i in 1 2 3; do first_frame -Xshare:on -XX:SharedArchiveFile="$ARCHIVE"; done
+        ;;
+    *)
+        echo "Использование: $0 build | run [аргументы] | measure" >&2
+        exit 1
+        ;;
+esac
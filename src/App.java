@@ -1,7 +1,18 @@
+import server.ApiServer;
+import service.BookingAudit;
 import view.MainView;
 
+import java.util.Arrays;
+
 public class App {
-    public static void main(String[] args) {
-        MainView.main(args);
+    public static void main(String[] args) throws Exception {
+        // --headless запускает HTTP API без интерфейса, --audit — проверку бронирований
+        if (Arrays.asList(args).contains("--headless")) {
+            ApiServer.main(args);
+        } else if (Arrays.asList(args).contains("--audit")) {
+            BookingAudit.main(args);
+        } else {
+            MainView.main(args);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,10 @@
-import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
-import javafx.stage.Stage;
+import view.MainView;
 
-public class Main extends Application {
-
-    @Override
-    public void start(Stage primaryStage) throws Exception {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/MainView.fxml"));
-        Parent root = loader.load();
-
-        Scene scene = new Scene(root, 1000, 700);
-        scene.getStylesheets().add(getClass().getResource("/view/styles.css").toExternalForm());
-
-        primaryStage.setTitle("Менеджер бронирования");
-        primaryStage.setScene(scene);
-        primaryStage.setMinWidth(800);
-        primaryStage.setMinHeight(600);
-        primaryStage.show();
-    }
+// Прежняя точка входа. Интерфейс строится кодом в MainView (FXML не используется),
+// поэтому Main просто запускает его — см. также App с режимом --headless
+public class Main {
 
     public static void main(String[] args) {
-        launch(args);
+        MainView.main(args);
     }
-}
\ No newline at end of file
+}
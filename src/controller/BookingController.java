@@ -1,13 +1,21 @@
 package controller;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import model.Booking;
 import model.Table;
+import service.Alternative;
+import service.SlotTakenException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class BookingController {
     @FXML private TextField customerNameField;
@@ -22,6 +30,10 @@ public class BookingController {
     private MainController mainController;
     private Booking editingBooking;
     private Stage stage;
+    // Поиск свободных столов: через 150 мс после последнего изменения полей, вне потока JavaFX
+    private final PauseTransition availabilityDelay = new PauseTransition(Duration.millis(150));
+    private CompletableFuture<List<Table>> pendingAvailability;
+    private int availabilityRequest;
 
     public void setMainController(MainController mainController) {
         this.mainController = mainController;
@@ -52,20 +64,30 @@ public class BookingController {
         hourSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(8, 23, 18));
 
         // Слушатель для обновления доступных столов
-        datePicker.valueProperty().addListener((obs, oldDate, newDate) -> updateAvailableTables());
-        hourSpinner.valueProperty().addListener((obs, oldHour, newHour) -> updateAvailableTables());
-        guestsSpinner.valueProperty().addListener((obs, oldGuests, newGuests) -> updateAvailableTables());
+        availabilityDelay.setOnFinished(e -> updateAvailableTables());
+        datePicker.valueProperty().addListener((obs, oldDate, newDate) -> availabilityDelay.playFromStart());
+        hourSpinner.valueProperty().addListener((obs, oldHour, newHour) -> availabilityDelay.playFromStart());
+        guestsSpinner.valueProperty().addListener((obs, oldGuests, newGuests) -> availabilityDelay.playFromStart());
     }
 
     private void updateAvailableTables() {
+        availabilityDelay.stop();
         if (datePicker.getValue() != null) {
             LocalDateTime selectedDateTime = LocalDateTime.of(
                     datePicker.getValue(),
                     LocalTime.of(hourSpinner.getValue(), 0)
             );
-            tableComboBox.setItems(mainController.getAvailableTables(
-                    guestsSpinner.getValue(), selectedDateTime
-            ));
+            int request = ++availabilityRequest;
+            if (pendingAvailability != null) {
+                pendingAvailability.cancel(false);
+            }
+            pendingAvailability = mainController.findAvailableTablesAsync(guestsSpinner.getValue(), selectedDateTime);
+            // Устаревший ответ (поля успели измениться) не применяется
+            pendingAvailability.whenComplete((available, error) -> Platform.runLater(() -> {
+                if (request == availabilityRequest && error == null) {
+                    tableComboBox.setItems(FXCollections.observableArrayList(available));
+                }
+            }));
         }
     }
 
@@ -98,6 +120,8 @@ public class BookingController {
             }
 
             stage.close();
+        } catch (SlotTakenException e) {
+            showSlotTaken(e);
         } catch (Exception e) {
             showAlert("Ошибка", "Произошла ошибка при сохранении: " + e.getMessage());
         }
@@ -132,6 +156,21 @@ public class BookingController {
         return true;
     }
 
+    // Стол успел занять другой терминал: показываем свободные варианты
+    private void showSlotTaken(SlotTakenException e) {
+        StringBuilder message = new StringBuilder(e.getMessage());
+        if (e.getAlternatives().isEmpty()) {
+            message.append("\n\nСвободных вариантов на этот день нет");
+        } else {
+            message.append("\n\nСвободные варианты:");
+            for (Alternative alternative : e.getAlternatives()) {
+                message.append("\n• ").append(alternative);
+            }
+        }
+        showAlert("Стол занят", message.toString());
+        updateAvailableTables();
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -1,15 +1,82 @@
 package controller;
 
+import database.BookingJournal;
+import database.BookingRepository;
+import database.BookingStore;
 import database.DatabaseConnection;
+import database.JournalingBookingStore;
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 import model.Booking;
+import model.RecurrenceRule;
 import model.Table;
 import model.BookingStatus;
-
+import model.Reservation;
+import model.StatusChange;
+import model.TableInfo;
+import model.Venue;
+import model.WaitlistEntry;
+import service.Alternative;
+import service.Availability;
+import service.AvailabilityMemo;
+import service.BookingArchiver;
+import service.BookingLifecycle;
+import service.OccupancyAnalytics;
+import service.OccupancyHeatmap;
+import service.OutboxFileSink;
+import service.RecurrenceConflictException;
+import service.RecurringSchedule;
+import service.ReminderScheduler;
+import service.ReservationEngine;
+import service.SlotTakenException;
+import service.TableCombinationIndex;
+import service.Waitlist;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,157 +84,834 @@ public class MainController {
     private ObservableList<Booking> bookings;
     private ObservableList<Table> tables;
     private FilteredList<Booking> filteredBookings;
-    private int nextBookingId = 1;
+    // Результат фильтра по дате раньше горизонта архива: архивные строки читаются из БД
+    // только по запросу и в рабочий список не попадают
+    private final ObservableList<Booking> archivedBookings = FXCollections.observableArrayList();
+    // Поколение фильтра и чтение архива для него; меняются только в потоке интерфейса
+    private int archiveGeneration;
+    private volatile CompletableFuture<Void> archiveLoad = CompletableFuture.completedFuture(null);
+    private final Map<Integer, Table> tablesById = new HashMap<>();
+    // Индекс списка bookings по id; меняется вместе со списком в потоке интерфейса
+    private final Map<Integer, Booking> bookingsById = new HashMap<>();
+    // Статусы, уже записанные в БД этим контроллером, но еще не примененные к Booking в потоке
+    // интерфейса. Следующая смена статуса берет прежний статус отсюда, а не из устаревшего Booking
+    private final Map<Integer, BookingStatus> committedStatuses = new ConcurrentHashMap<>();
+    // Заведение, чьи столы и бронирования ведет контроллер
+    private final Venue venue;
+    private final BookingStore repository;
+    private final ReservationEngine engine = new ReservationEngine();
+    private final AtomicInteger nextBookingId = new AtomicInteger(1);
+    private final ReminderScheduler reminders;
+    private final BookingLifecycle lifecycle;
+    private final BookingArchiver archiver;
+    private final OccupancyAnalytics occupancy;
+    // Увеличивается после каждой пачки изменений статусов, чтобы интерфейс
+    // обновил статистику и столы один раз на пачку
+    private final IntegerProperty statusRevision = new SimpleIntegerProperty();
+    // Через него изменения попадают в списки JavaFX
+    private final Executor uiExecutor;
+    // Офлайн-режим (null, если хранилище без журнала, например в нагрузочных прогонах)
+    private final JournalingBookingStore offlineStore;
+    // Контроллер HTTP API: без офлайн-режима и фоновых задач рабочих мест
+    private final boolean headless;
+    private volatile CompletableFuture<Void> initialLoad = CompletableFuture.completedFuture(null);
+    private final StringProperty syncStatus = new SimpleStringProperty("");
+    private final ObservableList<JournalingBookingStore.Conflict> replayConflicts = FXCollections.observableArrayList();
+    private boolean wasOnline;
+    // Лист ожидания: индекс для подбора (потокобезопасный) и список для интерфейса
+    private final Waitlist waitlist = new Waitlist();
+    private final ObservableList<WaitlistEntry> waitlistEntries = FXCollections.observableArrayList();
+    private final StringProperty waitlistStatus = new SimpleStringProperty("");
+    // Освободившиеся слоты разбирает один поток. При серии отмен все накопившиеся слоты
+    // обрабатываются за один проход, а предложенные записи удаляются из БД одним запросом
+    private final Queue<ReservationEngine.Slot> freedSlots = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean matching = new AtomicBoolean();
+    private final ExecutorService waitlistMatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "waitlist-matcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Регулярные брони: правила для проверок занятости (потокобезопасно) и список для интерфейса
+    private final RecurringSchedule recurring = new RecurringSchedule();
+    private final ObservableList<RecurrenceRule> recurrenceRules = FXCollections.observableArrayList();
+    private final AtomicInteger pendingRuleIds = new AtomicInteger();
+    // На сколько недель вперед повторения нового правила проверяются на пересечения
+    private static final int RECURRENCE_CHECK_WEEKS = Integer.getInteger("cafe.recurring.checkWeeks", 26);
+    // Сочетания соседних столов для компаний больше одного стола; перестраивается при загрузке столов
+    private volatile TableCombinationIndex combinations = TableCombinationIndex.build(List.of(), null, 0);
+    private static final int MAX_COMBINED_TABLES = Integer.getInteger("cafe.tables.maxCombined", 3);
+    // Свободные столы по (дата, час, гости). Бронирования сбрасывают только свой день
+    // (версия дня в движке), изменения столов и регулярных броней — все дни (поколение)
+    private final AvailabilityMemo<List<Table>> availabilityMemo = new AvailabilityMemo<>();
+    private final AtomicLong tablesGeneration = new AtomicLong();
+    // Копия списка столов для расчета вне потока JavaFX
+    private volatile List<Table> tableSnapshot = List.of();
+    // Поиск свободных столов для форм; один поток на все заведения, устаревшие запросы отменяются
+    private static final ExecutorService AVAILABILITY = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "availability");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final String WAITLIST_NOTE = "Из листа ожидания: подтвердить по телефону";
     private static final Logger logger = Logger.getLogger(MainController.class.getName());
 
-    public MainController() {
+    // Идет начальная загрузка (или перезагрузка после офлайна) и ее доля готовности
+    private final BooleanProperty loading = new SimpleBooleanProperty();
+    private final DoubleProperty loadProgress = new SimpleDoubleProperty();
+    // Потоки параллельной загрузки, общие для всех заведений
+    private static final ExecutorService INITIAL_LOAD = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "initial-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Результаты параллельных запросов до соединения в памяти
+    private record TablesSnapshot(List<Table> tables, Map<Integer, Table> byId) {
+    }
+
+    private record GridRow(Reservation reservation, int tableId) {
+    }
+
+    // databaseTime — время БД перед чтением окна
+    private record BookingWindow(List<GridRow> rows, Timestamp databaseTime) {
+    }
+
+    // Столбцы booking_grid, из которых собирается Booking
+    private static final String GRID_COLUMNS = "SELECT id, customer_name, phone, guests, booking_date_time, " +
+            "table_id, table_number, status, special_requests";
+    private static final long REFRESH_OVERLAP_MS = 10_000;
+    private volatile Timestamp gridWatermark;
+    private ScheduledExecutorService gridRefresher;
+
+    // Сколько строк драйвер читает курсором за раз
+    private static final int FETCH_SIZE = 500;
+    // Границы окон параллельной начальной загрузки бронирований, в днях от сегодня
+    private static final int[] LOAD_WINDOW_BOUNDS_DAYS = {-90, -30, 0, 14};
+    // Окна с сегодняшнего дня: публикуются первыми, вместе со столами
+    private static final int NEAR_TERM_WINDOWS = 2;
+    // Сколько бронирований передается в интерфейс одним addAll
+    private static final int PUBLISH_CHUNK_SIZE = 1000;
+    private static final int MAX_ALTERNATIVES = 5;
+
+    // Метрики (JMX-домен cafe.booking и периодическая сводка в лог)
+    private static final LatencyHistogram SAVE_LATENCY = Metrics.histogram("db.saveBooking");
+    private static final LatencyHistogram UPDATE_LATENCY = Metrics.histogram("db.updateBooking");
+    private static final LatencyHistogram STATUS_LATENCY = Metrics.histogram("db.updateStatus");
+    private static final LatencyHistogram DELETE_LATENCY = Metrics.histogram("db.deleteBooking");
+    private static final LatencyHistogram BULK_STATUS_LATENCY = Metrics.histogram("db.bulkUpdateStatus");
+    private static final LatencyHistogram BULK_DELETE_LATENCY = Metrics.histogram("db.bulkDelete");
+    private static final LatencyHistogram LOAD_TABLES_LATENCY = Metrics.histogram("db.loadTables");
+    private static final LatencyHistogram LOAD_BOOKINGS_LATENCY = Metrics.histogram("db.loadBookings");
+    private static final LatencyHistogram INITIAL_LOAD_LATENCY = Metrics.histogram("startup.initialLoad");
+    private static final LatencyHistogram REFRESH_LATENCY = Metrics.histogram("db.refreshBookings");
+    private static final LatencyHistogram AVAILABILITY_LATENCY = Metrics.histogram("availability.getAvailableTables");
+    private static final Counter MEMO_HITS = Metrics.counter("availability.memoHits");
+    private static final Counter MEMO_MISSES = Metrics.counter("availability.memoMisses");
+    private static final LatencyHistogram COMBINATIONS_LATENCY = Metrics.histogram("availability.getAvailableCombinations");
+    private static final Counter DB_ERRORS = Metrics.counter("db.errors");
+    private static final Counter SLOT_CONFLICTS = Metrics.counter("bookings.slotTaken");
+    private static final Counter WAITLIST_OFFERS = Metrics.counter("waitlist.offers");
+
+    // В потоке JavaFX изменения применяются сразу, из других потоков — через runLater
+    private static final Executor FX_EXECUTOR = action -> {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    };
+
+    // Контроллеры создаются фабриками: конструктор только заполняет поля, а слушатели,
+    // фоновые задачи и загрузка подключаются в start(), когда объект уже построен
+    public static MainController open() {
+        return open(DatabaseConnection.getDefaultVenue());
+    }
+
+    // Контроллер одного заведения: своя база, журнал, напоминания и фоновые задачи
+    public static MainController open(Venue venue) {
+        MainController controller = new MainController(venue, createJournalingStore(venue), FX_EXECUTOR, false);
+        controller.start(true);
+        return controller;
+    }
+
+    // Контроллер HTTP API (headless): те же правила бронирования и то же обновление из booking_grid,
+    // что у рабочих мест. Без журнала — бронь с сайта подтверждается только после записи в БД.
+    // Напоминания, автоматические статусы и архивацию выполняют рабочие места, здесь они не запускаются.
+    // uiExecutor должен выполнять действия по одному, как поток JavaFX
+    public static MainController openHeadless(Venue venue, Executor uiExecutor) {
+        MainController controller = new MainController(venue, new BookingRepository(venue), uiExecutor, true);
+        controller.start(true);
+        return controller;
+    }
+
+    // PostgreSQL с локальным журналом на время, когда БД недоступна
+    private static BookingStore createJournalingStore(Venue venue) {
+        String path = venue.scopedPath(System.getProperty("cafe.journal.path", "booking-journal.log"));
+        try {
+            return new JournalingBookingStore(new BookingRepository(venue), new BookingJournal(Paths.get(path)),
+                    Integer.getInteger("cafe.journal.replayBatch", 200));
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось открыть журнал " + path, e);
+        }
+    }
+
+    // Контроллер поверх произвольного хранилища и исполнителя вместо потока JavaFX
+    // (нагрузочные прогоны). Столы и активные бронирования берутся из store
+    public static MainController open(BookingStore store, Executor uiExecutor) {
+        MainController controller = new MainController(DatabaseConnection.getDefaultVenue(), store, uiExecutor, false);
+        controller.start(false);
+        return controller;
+    }
+
+    private MainController(Venue venue, BookingStore store, Executor uiExecutor, boolean headless) {
+        this.venue = venue;
+        this.headless = headless;
+        this.repository = store;
+        this.reminders = new ReminderScheduler(
+                new OutboxFileSink(Paths.get(venue.scopedPath(
+                        System.getProperty("cafe.reminders.outbox", "reminders-outbox.jsonl")))),
+                ReminderScheduler.parseOffsets(System.getProperty("cafe.reminders.offsetsMinutes", "1440,60")),
+                Long.getLong("cafe.reminders.tickMs", 60_000L));
+        this.uiExecutor = uiExecutor;
+        this.offlineStore = store instanceof JournalingBookingStore journaling ? journaling : null;
+        this.occupancy = new OccupancyAnalytics(store);
+        this.lifecycle = new BookingLifecycle(store,
+                Duration.ofMinutes(Long.getLong("cafe.lifecycle.pendingDeadlineMinutes", 30L)));
+        this.archiver = new BookingArchiver(store,
+                Integer.getInteger("cafe.archive.retentionDays", 365),
+                Integer.getInteger("cafe.archive.batchSize", 1000));
         this.bookings = FXCollections.observableArrayList();
         this.tables = FXCollections.observableArrayList();
         this.filteredBookings = new FilteredList<>(bookings);
+    }
+
+    // Слушатели списков, фоновые задачи, метрики и начальная загрузка
+    private void start(boolean fromDatabase) {
+        tables.addListener((ListChangeListener<Table>) change -> {
+            tableSnapshot = List.copyOf(tables);
+            tablesGeneration.incrementAndGet();
+            rebuildCombinations();
+        });
 
-        initializeDatabase();
+        // Напоминания и автоматические статусы следуют за списком бронирований:
+        // добавление ставит таймеры, удаление и замена при редактировании — снимают и переставляют
+        // Он же поддерживает индекс по id и признак занятости затронутых столов
+        bookings.addListener((ListChangeListener<Booking>) change -> {
+            Set<Table> affectedTables = new HashSet<>();
+            while (change.next()) {
+                for (Booking removed : change.getRemoved()) {
+                    bookingsById.remove(removed.getId(), removed);
+                    affectedTables.add(removed.getTable());
+                    reminders.cancel(removed.getId());
+                    lifecycle.untrack(removed.getId());
+                }
+                for (Booking added : change.getAddedSubList()) {
+                    bookingsById.put(added.getId(), added);
+                    affectedTables.add(added.getTable());
+                    Reservation reservation = added.toReservation();
+                    reminders.schedule(reservation);
+                    lifecycle.track(reservation);
+                }
+            }
+            affectedTables.forEach(this::updateTableAvailability);
+        });
+        if (!headless) {
+            reminders.start();
+            lifecycle.start(this::applyStatusChanges);
+            archiver.start(Duration.ofMinutes(Long.getLong("cafe.archive.intervalMinutes", 60L)), this::removeArchived);
+        }
+
+        Metrics.gauge(venue.scopedName("bookings.loaded"), bookings::size);
+        Metrics.gauge(venue.scopedName("engine.occupiedSlots"), engine::size);
+        Metrics.gauge(venue.scopedName("reminders.pending"), reminders::getPendingCount);
+        Metrics.gauge(venue.scopedName("lifecycle.tracked"), lifecycle::getTrackedCount);
+        Metrics.gauge(venue.scopedName("waitlist.size"), waitlist::size);
+        Metrics.gauge(venue.scopedName("recurring.rules"), recurring::size);
+        Metrics.startReporter(Duration.ofSeconds(Long.getLong("cafe.metrics.logIntervalSeconds", 60L)));
+
+        if (fromDatabase) {
+            initializeDatabase();
+        } else {
+            loadFromStore();
+        }
+
+        if (offlineStore != null) {
+            wasOnline = offlineStore.isOnline();
+            updateSyncStatus(wasOnline, offlineStore.getPendingCount());
+            offlineStore.start(new JournalingBookingStore.Listener() {
+                @Override
+                public void onStateChanged(boolean online, int pendingCount) {
+                    uiExecutor.execute(() -> updateSyncStatus(online, pendingCount));
+                }
+
+                @Override
+                public void onConflicts(List<JournalingBookingStore.Conflict> conflicts) {
+                    for (JournalingBookingStore.Conflict conflict : conflicts) {
+                        logger.warning("Конфликт при отправке журнала: " + conflict);
+                    }
+                    uiExecutor.execute(() -> replayConflicts.addAll(conflicts));
+                }
+            }, Duration.ofSeconds(Long.getLong("cafe.journal.replayIntervalSeconds", 10L)));
+        }
     }
 
+    // Недоступность БД обнаруживается первой же неудачной загрузкой, отдельная проверка соединения не нужна
     private void initializeDatabase() {
+        initialLoad = loadInitialData(false);
+        initialLoad.whenComplete((ignored, error) -> {
+            if (error == null) {
+                logger.info("База данных инициализирована успешно");
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            logger.log(Level.SEVERE, "Ошибка инициализации БД", cause);
+            // HTTP API без БД не работает: ошибку получит ожидающий initialLoad()
+            if (!headless) {
+                runOnUi(() -> startOffline(cause));
+            }
+        });
+    }
+
+    // Завершается, когда начальная загрузка из БД передана в uiExecutor (или с ее ошибкой)
+    public CompletableFuture<Void> initialLoad() {
+        return initialLoad;
+    }
+
+    // БД недоступна при запуске: столы по умолчанию плюс изменения из журнала,
+    // еще не отправленные в БД. Все новые изменения пишутся в журнал
+    private void startOffline(Throwable cause) {
+        initializeSampleData();
+        if (offlineStore != null) {
+            offlineStore.goOffline(String.valueOf(cause.getMessage()));
+            restoreFromJournal(offlineStore.getPendingEntries());
+        }
+    }
+
+    private void restoreFromJournal(List<BookingJournal.Entry> entries) {
+        for (BookingJournal.Entry entry : entries) {
+            Booking existing = bookingsById.get(entry.bookingId());
+            switch (entry.operation()) {
+                case ADD, UPDATE -> {
+                    Booking booking = toBooking(entry.booking());
+                    syncSlot(booking);
+                    if (existing == null) {
+                        bookings.add(booking);
+                    } else {
+                        patchBooking(existing, booking);
+                    }
+                }
+                case STATUS -> {
+                    if (existing != null) {
+                        existing.setStatus(entry.to());
+                        syncSlot(existing);
+                    }
+                }
+                case DELETE -> {
+                    if (existing != null) {
+                        engine.release(existing.getId());
+                        bookings.remove(existing);
+                    }
+                }
+            }
+        }
+        if (!entries.isEmpty()) {
+            logger.info("Восстановлено изменений из журнала: " + entries.size());
+        }
+    }
+
+    private void updateSyncStatus(boolean online, int pendingCount) {
+        syncStatus.set(online ? "" : "Нет связи с БД. Изменений в локальном журнале: " + pendingCount);
+        if (online && !wasOnline) {
+            reloadFromDatabase();
+        }
+        wasOnline = online;
+    }
+
+    // Журнал отправлен: локальное состояние заменяется данными из БД, так
+    // временные id, отвергнутые изменения и правки других терминалов приходят разом
+    private void reloadFromDatabase() {
+        loadInitialData(true).exceptionally(error -> {
+            logger.log(Level.SEVERE, "Не удалось перезагрузить данные из БД", error);
+            return null;
+        });
+    }
+
+    public ReadOnlyBooleanProperty loadingProperty() {
+        return loading;
+    }
+
+    public ReadOnlyDoubleProperty loadProgressProperty() {
+        return loadProgress;
+    }
+
+    public ReadOnlyStringProperty syncStatusProperty() {
+        return syncStatus;
+    }
+
+    public ObservableList<JournalingBookingStore.Conflict> getReplayConflicts() {
+        return replayConflicts;
+    }
+
+    private void loadFromStore() {
+        try {
+            List<Table> loadedTables = new ArrayList<>();
+            for (TableInfo info : repository.loadTables()) {
+                loadedTables.add(new Table(info.tableNumber(), info.capacity(), info.location()));
+            }
+            tables.setAll(loadedTables);
+
+            List<Booking> loadedBookings = new ArrayList<>();
+            for (Reservation reservation : repository.loadActiveReservations()) {
+                Booking booking = toBooking(reservation);
+                engine.add(reservation.id(), reservation.tableNumber(), reservation.bookingDateTime());
+                nextBookingId.accumulateAndGet(reservation.id() + 1, Math::max);
+                loadedBookings.add(booking);
+            }
+            uiExecutor.execute(() -> bookings.setAll(loadedBookings));
+        } catch (SQLException e) {
+            throw new RuntimeException("Не удалось загрузить данные из хранилища", e);
+        }
+        loadWaitlist();
+        List<RecurrenceRule> rules = readRecurrenceRules();
+        if (rules != null) {
+            uiExecutor.execute(() -> recurrenceRules.setAll(rules));
+        }
+    }
+
+    // Без листа ожидания приложение работает, поэтому ошибка только записывается в лог
+    private void loadWaitlist() {
+        List<WaitlistEntry> loaded = readWaitlist();
+        if (loaded != null) {
+            uiExecutor.execute(() -> waitlistEntries.setAll(loaded));
+        }
+    }
+
+    // Заполняет индекс листа ожидания; null — лист загрузить не удалось
+    private List<WaitlistEntry> readWaitlist() {
         try {
-            DatabaseConnection.testConnection();
-            loadTablesFromDatabase();
-            loadBookingsFromDatabase();
-            logger.info("База данных инициализирована успешно");
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Ошибка инициализации БД", e);
-            initializeSampleData();
+            List<WaitlistEntry> loaded = repository.loadWaitlist(LocalDate.now());
+            waitlist.clear();
+            loaded.forEach(waitlist::add);
+            logger.info("Загружено записей листа ожидания: " + loaded.size());
+            return loaded;
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.WARNING, "Не удалось загрузить лист ожидания", e);
+            return null;
         }
     }
 
-    private void loadTablesFromDatabase() {
+    // Заполняет правила регулярных броней; null — загрузить не удалось (проверки идут без них)
+    private List<RecurrenceRule> readRecurrenceRules() {
+        try {
+            List<RecurrenceRule> loaded = repository.loadRecurrenceRules(LocalDate.now());
+            recurring.setAll(loaded);
+            logger.info("Загружено правил регулярных броней: " + loaded.size());
+            return loaded;
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.WARNING, "Не удалось загрузить регулярные брони", e);
+            return null;
+        }
+    }
+
+    // Начальная загрузка: столы, окна бронирований по времени, лист ожидания и регулярные брони читаются
+    // параллельно на соединениях из пула и соединяются в памяти. В интерфейс сначала попадают столы
+    // и ближайшие бронирования, прошлые окна — следом, порциями. Время загрузки — примерно время
+    // самого долгого запроса, а не их сумма.
+    // Миграции схемы выполняются до запросов, тоже в фоне.
+    // Столы и бронирования читаются с реплики, если она отстает не больше половины перекрытия
+    // инкрементального обновления (пропущенное им заберет refreshBookings); после отправки журнала
+    // (ownWrites) — только с основной БД, иначе свои изменения могли бы не попасть в загрузку
+    private CompletableFuture<Void> loadInitialData(boolean ownWrites) {
+        runOnUi(() -> {
+            loading.set(true);
+            loadProgress.set(0);
+        });
+        return CompletableFuture
+                .runAsync(() -> DatabaseConnection.ensureSchema(venue), INITIAL_LOAD)
+                .thenCompose(ignored -> loadDatasets(ownWrites))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        runOnUi(() -> loading.set(false));
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> loadDatasets(boolean ownWrites) {
+        long started = System.nanoTime();
+        int taskCount = LOAD_WINDOW_BOUNDS_DAYS.length + 4;
+        AtomicInteger finished = new AtomicInteger();
+        Runnable taskFinished = () -> {
+            double progress = (double) finished.incrementAndGet() / taskCount;
+            runOnUi(() -> loadProgress.set(progress));
+        };
+
+        CompletableFuture<TablesSnapshot> tablesFuture = CompletableFuture
+                .supplyAsync(() -> readTables(ownWrites), INITIAL_LOAD)
+                .whenComplete((result, error) -> taskFinished.run());
+
+        // Окна [from, to) от прошлого к будущему; крайние без границы
+        List<CompletableFuture<BookingWindow>> windowFutures = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        LocalDateTime from = null;
+        for (int i = 0; i <= LOAD_WINDOW_BOUNDS_DAYS.length; i++) {
+            LocalDateTime windowFrom = from;
+            LocalDateTime windowTo = i < LOAD_WINDOW_BOUNDS_DAYS.length
+                    ? today.plusDays(LOAD_WINDOW_BOUNDS_DAYS[i]).atStartOfDay()
+                    : null;
+            windowFutures.add(CompletableFuture
+                    .supplyAsync(() -> readBookingWindow(windowFrom, windowTo, ownWrites), INITIAL_LOAD)
+                    .whenComplete((result, error) -> taskFinished.run()));
+            from = windowTo;
+        }
+
+        CompletableFuture<List<WaitlistEntry>> waitlistFuture = CompletableFuture
+                .supplyAsync(this::readWaitlist, INITIAL_LOAD)
+                .whenComplete((result, error) -> taskFinished.run());
+        CompletableFuture<List<RecurrenceRule>> rulesFuture = CompletableFuture
+                .supplyAsync(this::readRecurrenceRules, INITIAL_LOAD)
+                .whenComplete((result, error) -> taskFinished.run());
+
+        // Публикация порциями, как и при потоковой загрузке: сначала столы и ближайшие окна —
+        // с ними уже можно работать, — затем прошлые окна от свежих к старым по мере готовности,
+        // каждое отдельными addAll. Чтения при этом по-прежнему идут параллельно
+        int nearTermFrom = windowFutures.size() - NEAR_TERM_WINDOWS;
+        AtomicInteger loadedCount = new AtomicInteger();
+        AtomicInteger maxId = new AtomicInteger();
+        List<CompletableFuture<?>> nearTerm = new ArrayList<>(windowFutures.subList(nearTermFrom, windowFutures.size()));
+        nearTerm.add(tablesFuture);
+        CompletableFuture<Void> published = CompletableFuture.allOf(nearTerm.toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    TablesSnapshot loadedTables = tablesFuture.join();
+                    engine.clear();
+                    uiExecutor.execute(() -> {
+                        tablesById.clear();
+                        tablesById.putAll(loadedTables.byId());
+                        tables.setAll(loadedTables.tables());
+                        bookings.clear();
+                    });
+                    for (int i = windowFutures.size() - 1; i >= nearTermFrom; i--) {
+                        publishWindow(windowFutures.get(i).join(), loadedTables.byId(), loadedCount, maxId);
+                    }
+                    // Индикатор закрывает вкладки только до появления ближайших бронирований
+                    uiExecutor.execute(() -> loading.set(false));
+                });
+        for (int i = nearTermFrom - 1; i >= 0; i--) {
+            CompletableFuture<BookingWindow> windowFuture = windowFutures.get(i);
+            published = published.thenCombine(windowFuture, (ignored, window) -> window)
+                    .thenAccept(window -> publishWindow(window, tablesFuture.join().byId(), loadedCount, maxId));
+        }
+
+        return CompletableFuture.allOf(published, waitlistFuture, rulesFuture).thenRun(() -> {
+            // Изменения после самого раннего снимка заберет инкрементальное обновление
+            Timestamp watermark = null;
+            for (CompletableFuture<BookingWindow> windowFuture : windowFutures) {
+                Timestamp databaseTime = windowFuture.join().databaseTime();
+                if (watermark == null || databaseTime.before(watermark)) {
+                    watermark = databaseTime;
+                }
+            }
+            gridWatermark = watermark;
+            nextBookingId.accumulateAndGet(maxId.get() + 1, Math::max);
+            List<WaitlistEntry> loadedWaitlist = waitlistFuture.join();
+            List<RecurrenceRule> loadedRules = rulesFuture.join();
+
+            uiExecutor.execute(() -> {
+                if (loadedWaitlist != null) {
+                    waitlistEntries.setAll(loadedWaitlist);
+                }
+                if (loadedRules != null) {
+                    recurrenceRules.setAll(loadedRules);
+                }
+            });
+            logger.info("Загружено столов: " + tablesFuture.join().tables().size() + ", бронирований: " +
+                    loadedCount.get() + " за " + (System.nanoTime() - started) / 1_000_000 + " мс");
+            startGridRefresh();
+        }).whenComplete((ignored, error) -> INITIAL_LOAD_LATENCY.recordSince(started));
+    }
+
+    // Бронирования окна: в движок сразу, в интерфейс — порциями по PUBLISH_CHUNK_SIZE,
+    // чтобы таблица и слушатели получали одно событие на порцию
+    private void publishWindow(BookingWindow window, Map<Integer, Table> loadedTablesById,
+                               AtomicInteger loadedCount, AtomicInteger maxId) {
+        List<Booking> chunk = new ArrayList<>(Math.min(window.rows().size(), PUBLISH_CHUNK_SIZE));
+        for (GridRow row : window.rows()) {
+            Booking booking = toBooking(row, loadedTablesById);
+            if (booking.getStatus() != BookingStatus.CANCELLED) {
+                engine.add(booking.getId(), booking.getTable().getTableNumber(), booking.getBookingDateTime());
+            }
+            maxId.accumulateAndGet(booking.getId(), Math::max);
+            chunk.add(booking);
+            if (chunk.size() == PUBLISH_CHUNK_SIZE) {
+                List<Booking> full = chunk;
+                uiExecutor.execute(() -> addLoaded(full));
+                chunk = new ArrayList<>(PUBLISH_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            List<Booking> rest = chunk;
+            uiExecutor.execute(() -> addLoaded(rest));
+        }
+        loadedCount.addAndGet(window.rows().size());
+    }
+
+    // При перезагрузке инкрементальное обновление может успеть раньше порции — его версия новее
+    private void addLoaded(List<Booking> loaded) {
+        loaded.removeIf(booking -> bookingsById.containsKey(booking.getId()));
+        bookings.addAll(loaded);
+    }
+
+    private TablesSnapshot readTables(boolean ownWrites) {
+        long start = System.nanoTime();
         String sql = "SELECT id, table_number, capacity, location FROM tables WHERE is_active = true ORDER BY table_number";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = readConnection(ownWrites);
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
-            tables.clear();
+            List<Table> loaded = new ArrayList<>();
+            Map<Integer, Table> byId = new HashMap<>();
             while (rs.next()) {
                 Table table = new Table(
                         rs.getInt("table_number"),
                         rs.getInt("capacity"),
                         rs.getString("location")
                 );
-                tables.add(table);
+                loaded.add(table);
+                byId.put(rs.getInt("id"), table);
             }
-            logger.info("Загружено столов: " + tables.size());
+            return new TablesSnapshot(loaded, byId);
         } catch (SQLException e) {
+            DB_ERRORS.increment();
             logger.log(Level.SEVERE, "Ошибка загрузки столов из БД", e);
             throw new RuntimeException("Не удалось загрузить столы из БД", e);
+        } finally {
+            LOAD_TABLES_LATENCY.recordSince(start);
         }
     }
 
-    private void loadBookingsFromDatabase() {
-        String sql = "SELECT b.id, c.name, c.phone, b.guests, b.booking_date_time, " +
-                "t.id as table_id, t.table_number, t.capacity, t.location, " +
-                "bs.name as status, b.special_requests " +
-                "FROM bookings b " +
-                "JOIN customers c ON b.customer_id = c.id " +
-                "JOIN tables t ON b.table_id = t.id " +
-                "JOIN booking_status bs ON b.status_id = bs.id " +
-                "ORDER BY b.booking_date_time DESC";
+    // Бронирования с началом в [from, to) (null — без границы). Окна идут по индексу
+    // booking_grid_time_idx и читаются курсором, чтобы драйвер не буферизовал все строки
+    private BookingWindow readBookingWindow(LocalDateTime from, LocalDateTime to, boolean ownWrites) {
+        long start = System.nanoTime();
+        StringBuilder sql = new StringBuilder(GRID_COLUMNS).append(" FROM booking_grid WHERE NOT deleted");
+        if (from != null) {
+            sql.append(" AND booking_date_time >= ?");
+        }
+        if (to != null) {
+            sql.append(" AND booking_date_time < ?");
+        }
+        sql.append(" ORDER BY booking_date_time DESC");
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+        // PostgreSQL использует курсор только вне автокоммита и с заданным fetchSize.
+        // Пул сам вернет соединению автокоммит
+        try (Connection conn = readConnection(ownWrites)) {
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            Timestamp databaseTime = currentDatabaseTime(conn);
+
+            List<GridRow> rows = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                int index = 1;
+                if (from != null) {
+                    stmt.setTimestamp(index++, Timestamp.valueOf(from));
+                }
+                if (to != null) {
+                    stmt.setTimestamp(index, Timestamp.valueOf(to));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(readGridRow(rs));
+                    }
+                }
+            }
+            conn.commit();
+            return new BookingWindow(rows, databaseTime);
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка загрузки бронирований из БД (" + from + " — " + to + ")", e);
+            throw new RuntimeException("Не удалось загрузить бронирования из БД", e);
+        } finally {
+            LOAD_BOOKINGS_LATENCY.recordSince(start);
+        }
+    }
 
-            bookings.clear();
-            int maxId = 0;
+    private Connection readConnection(boolean ownWrites) throws SQLException {
+        return ownWrites
+                ? DatabaseConnection.getConnection(venue)
+                : DatabaseConnection.getReadConnection(venue, REFRESH_OVERLAP_MS / 2);
+    }
 
-            while (rs.next()) {
-                // Создаем объект стола
-                Table table = findTableById(rs.getInt("table_id"));
-                if (table == null) {
-                    table = new Table(
-                            rs.getInt("table_number"),
-                            rs.getInt("capacity"),
-                            rs.getString("location")
-                    );
-                }
+    private static GridRow readGridRow(ResultSet rs) throws SQLException {
+        Reservation reservation = new Reservation(
+                rs.getInt("id"),
+                rs.getString("customer_name"),
+                rs.getString("phone"),
+                rs.getInt("guests"),
+                rs.getTimestamp("booking_date_time").toLocalDateTime(),
+                rs.getInt("table_number"),
+                BookingRepository.toBookingStatus(rs.getString("status")),
+                rs.getString("special_requests"));
+        return new GridRow(reservation, rs.getInt("table_id"));
+    }
 
-                // Создаем бронирование
-                Booking booking = new Booking(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("phone"),
-                        rs.getInt("guests"),
-                        rs.getTimestamp("booking_date_time").toLocalDateTime(),
-                        table,
-                        rs.getString("special_requests")
-                );
+    // Стол берем из загруженных; неактивного стола в памяти нет
+    private static Booking toBooking(GridRow row, Map<Integer, Table> tablesById) {
+        Reservation reservation = row.reservation();
+        Table table = tablesById.get(row.tableId());
+        if (table == null) {
+            table = new Table(reservation.tableNumber(), reservation.guests(), "");
+        }
+        Booking booking = new Booking(reservation.id(), reservation.customerName(), reservation.phone(),
+                reservation.guests(), reservation.bookingDateTime(), table, reservation.specialRequests());
+        booking.setStatus(reservation.status());
+        return booking;
+    }
 
-                // Установка статуса
-                String status = rs.getString("status");
-                booking.setStatus(convertToBookingStatus(status));
+    private Booking readBooking(ResultSet rs) throws SQLException {
+        return toBooking(readGridRow(rs), tablesById);
+    }
 
-                bookings.add(booking);
-                maxId = Math.max(maxId, rs.getInt("id"));
-            }
+    private static Timestamp currentDatabaseTime(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT now()")) {
+            rs.next();
+            return rs.getTimestamp(1);
+        }
+    }
 
-            nextBookingId = maxId + 1;
-            logger.info("Загружено бронирований: " + bookings.size());
+    private void startGridRefresh() {
+        long seconds = Long.getLong("cafe.grid.refreshSeconds", 15L);
+        if (seconds <= 0 || gridRefresher != null) {
+            return;
+        }
+        gridRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bookings-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        gridRefresher.scheduleWithFixedDelay(this::refreshBookings, seconds, seconds, TimeUnit.SECONDS);
+    }
 
+    // Инкрементальное обновление: строки booking_grid, измененные после прошлого чтения
+    // (с запасом на транзакции, зафиксированные позже своего updated_at).
+    // Повторно прочитанные неизмененные строки отсеиваются при применении.
+    // Только с основной БД: отставшая реплика вернула бы прежние версии только что измененных строк
+    private void refreshBookings() {
+        if (offlineStore != null && !offlineStore.isOnline()) {
+            return;
+        }
+        String sql = GRID_COLUMNS + ", deleted FROM booking_grid WHERE updated_at > ?";
+        long start = System.nanoTime();
+
+        try (Connection conn = DatabaseConnection.getConnection(venue)) {
+            Timestamp now = currentDatabaseTime(conn);
+            List<Booking> changed = new ArrayList<>();
+            Set<Integer> deleted = new HashSet<>();
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setTimestamp(1, new Timestamp(gridWatermark.getTime() - REFRESH_OVERLAP_MS));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (rs.getBoolean("deleted")) {
+                            deleted.add(rs.getInt("id"));
+                        } else {
+                            changed.add(readBooking(rs));
+                        }
+                    }
+                }
+            }
+            gridWatermark = now;
+
+            if (!changed.isEmpty() || !deleted.isEmpty()) {
+                uiExecutor.execute(() -> applyGridChanges(changed, deleted));
+            }
         } catch (SQLException e) {
-            logger.log(Level.SEVERE, "Ошибка загрузки бронирований из БД", e);
-            throw new RuntimeException("Не удалось загрузить бронирования из БД", e);
+            DB_ERRORS.increment();
+            logger.log(Level.WARNING, "Ошибка инкрементального обновления бронирований", e);
+        } finally {
+            REFRESH_LATENCY.recordSince(start);
         }
+        refreshRecurrenceRules();
     }
 
-    private Table findTableById(int tableId) {
-        String sql = "SELECT table_number, capacity, location FROM tables WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, tableId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Table(
-                            rs.getInt("table_number"),
-                            rs.getInt("capacity"),
-                            rs.getString("location")
-                    );
-                }
+    // Правила регулярных броней, добавленные и снятые на других терминалах (и на рабочих
+    // местах, и в HTTP API). Правил немного, поэтому они перечитываются целиком; проверки
+    // занятости и кэш свободных столов меняются, только если набор правил изменился
+    private void refreshRecurrenceRules() {
+        try {
+            List<RecurrenceRule> loaded = repository.loadRecurrenceRules(LocalDate.now());
+            if (recurring.replaceSaved(loaded)) {
+                runOnUi(() -> {
+                    recurrenceRules.setAll(loaded);
+                    refreshTableAvailability();
+                });
+                logger.info("Правила регулярных броней обновлены из БД: " + loaded.size());
             }
         } catch (SQLException e) {
-            logger.log(Level.WARNING, "Не удалось найти стол по ID: " + tableId, e);
+            DB_ERRORS.increment();
+            logger.log(Level.WARNING, "Не удалось обновить регулярные брони", e);
         }
-        return null;
     }
 
-    private BookingStatus convertToBookingStatus(String status) {
-        switch (status.toUpperCase()) {
-            case "CONFIRMED":
-                return BookingStatus.CONFIRMED;
-            case "CANCELLED":
-                return BookingStatus.CANCELLED;
-            case "COMPLETED":
-                return BookingStatus.COMPLETED;
-            default:
-                return BookingStatus.PENDING;
+    private void applyGridChanges(List<Booking> changed, Set<Integer> deleted) {
+        int applied = 0;
+        List<Booking> added = new ArrayList<>();
+        for (Booking fresh : changed) {
+            Booking current = bookingsById.get(fresh.getId());
+            if (current == null) {
+                // Слот уже занят этим id: бронирование создано на этом терминале,
+                // и addBooking сам добавит его в список
+                if (engine.findById(fresh.getId()) != null) {
+                    continue;
+                }
+                syncSlot(fresh);
+                added.add(fresh);
+                nextBookingId.accumulateAndGet(fresh.getId() + 1, Math::max);
+            } else if (!current.toReservation().equals(fresh.toReservation())) {
+                syncSlot(fresh);
+                patchBooking(current, fresh);
+                applied++;
+            }
+        }
+        bookings.addAll(added);
+        applied += added.size();
+
+        if (!deleted.isEmpty()) {
+            for (int id : deleted) {
+                engine.release(id);
+            }
+            int before = bookings.size();
+            bookings.removeIf(booking -> deleted.contains(booking.getId()));
+            applied += before - bookings.size();
+        }
+
+        if (applied > 0) {
+            statusRevision.set(statusRevision.get() + 1);
+            logger.info("Применено изменений из БД: " + applied);
         }
     }
 
-    private int convertToStatusId(BookingStatus status) {
-        switch (status) {
-            case CONFIRMED:
-                return 2;
-            case CANCELLED:
-                return 3;
-            case COMPLETED:
-                return 4;
-            default:
-                return 1;
+    private void syncSlot(Booking booking) {
+        engine.release(booking.getId());
+        if (booking.getStatus() != BookingStatus.CANCELLED) {
+            engine.add(booking.getId(), booking.getTable().getTableNumber(), booking.getBookingDateTime());
         }
     }
 
+    // Столы уже загружены в память, поэтому отдельный запрос на каждую строку не нужен
+    private Table findTableById(int tableId) {
+        return tablesById.get(tableId);
+    }
+
     // Методы для работы с бронированиями
+    public Venue getVenue() {
+        return venue;
+    }
+
     public ObservableList<Booking> getBookings() {
         return bookings;
     }
@@ -176,125 +920,245 @@ public class MainController {
         return filteredBookings;
     }
 
+    // Стол сначала атомарно занимается в ReservationEngine, затем бронирование
+    // сохраняется в БД; при ошибке сохранения слот освобождается. Повторения регулярных
+    // броней в движке не хранятся и проверяются после резервирования.
+    // Список bookings — проекция для JavaFX и обновляется в потоке интерфейса
     public void addBooking(Booking booking) {
+        ReservationEngine.Slot slot = null;
+        if (booking.getStatus() != BookingStatus.CANCELLED) {
+            slot = engine.tryReserve(booking.getTable().getTableNumber(), booking.getBookingDateTime());
+            if (slot == null) {
+                throw slotTaken(booking, null);
+            }
+            rejectIfRecurring(slot, null, booking);
+        }
+
         try {
             int bookingId = saveBookingToDatabase(booking);
+            if (slot != null) {
+                engine.assignId(slot, bookingId);
+            }
             booking.idProperty().set(bookingId);
+            nextBookingId.accumulateAndGet(bookingId + 1, Math::max);
 
-            bookings.add(booking);
-            nextBookingId = Math.max(nextBookingId, bookingId + 1);
+            runOnUi(() -> bookings.add(booking));
 
             logger.info("Добавлено новое бронирование ID: " + bookingId);
         } catch (SQLException e) {
+            if (slot != null) {
+                engine.release(slot);
+            }
+            if (BookingRepository.isSlotTaken(e)) {
+                logger.info("Слот занят с другого терминала: " + booking);
+                throw slotTaken(booking, e);
+            }
+            DB_ERRORS.increment();
             logger.log(Level.SEVERE, "Ошибка при добавлении бронирования", e);
             throw new RuntimeException("Не удалось сохранить бронирование в БД", e);
         }
     }
 
-    private int saveBookingToDatabase(Booking booking) throws SQLException {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-        ResultSet rs = null;
-
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            // 1. сохранение клиента
-            int customerId = saveOrGetCustomer(conn, booking.getCustomerName(), booking.getPhone());
-
-            // 2. получение ID стола
-            int tableId = getTableId(conn, booking.getTable().getTableNumber());
-
-            // 3. Сохраняем бронирование
-            String sql = "INSERT INTO bookings (customer_id, table_id, status_id, guests, booking_date_time, special_requests) " +
-                    "VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
-
-            stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, customerId);
-            stmt.setInt(2, tableId);
-            stmt.setInt(3, convertToStatusId(booking.getStatus()));
-            stmt.setInt(4, booking.getGuests());
-            stmt.setTimestamp(5, Timestamp.valueOf(booking.getBookingDateTime()));
-            stmt.setString(6, booking.getSpecialRequests());
-
-            rs = stmt.executeQuery();
+    // Бронь с сайта (HTTP API). Если стол не указан (0), берется наименьший свободный подходящий,
+    // а при гонке с другим запросом — следующий. Свободного нет — SlotTakenException с альтернативами
+    public Booking addBooking(Reservation request) {
+        List<Table> candidates;
+        if (request.tableNumber() != 0) {
+            Table table = findSnapshotTable(request.tableNumber());
+            if (table == null) {
+                throw new IllegalArgumentException("Стол №" + request.tableNumber() + " не найден");
+            }
+            if (table.getCapacity() < request.guests()) {
+                throw new IllegalArgumentException("Стол №" + table.getTableNumber() +
+                        " рассчитан на " + table.getCapacity() + " гостей");
+            }
+            candidates = List.of(table);
+        } else {
+            candidates = new ArrayList<>(findAvailableTables(request.guests(), request.bookingDateTime()));
+            candidates.sort(Comparator.comparingInt(Table::getCapacity));
+        }
 
-            int bookingId;
-            if (rs.next()) {
-                bookingId = rs.getInt(1);
-            } else {
-                throw new SQLException("Не удалось получить ID созданного бронирования");
+        SlotTakenException conflict = null;
+        for (Table table : candidates) {
+            Booking booking = new Booking(0, request.customerName(), request.phone(), request.guests(),
+                    request.bookingDateTime(), table, request.specialRequests());
+            booking.setStatus(request.status());
+            try {
+                addBooking(booking);
+                return booking;
+            } catch (SlotTakenException e) {
+                conflict = e;
             }
+        }
+        if (conflict != null) {
+            throw conflict;
+        }
+        Booking unplaced = new Booking(0, request.customerName(), request.phone(), request.guests(),
+                request.bookingDateTime(), new Table(0, request.guests(), ""), request.specialRequests());
+        throw slotTaken(unplaced, null);
+    }
 
-            conn.commit();
-            return bookingId;
+    // Отмена по id (HTTP API). Поиск идет в потоке интерфейса, после уже поставленных туда добавлений.
+    // Бронирования, которого еще нет в памяти (создано на другом терминале после последнего обновления
+    // из booking_grid), отменяется прямо в БД, если оно еще активно; остальное придет с обновлением.
+    // false — активного бронирования с таким id нет
+    public boolean cancelBookingById(int bookingId) {
+        Booking booking = CompletableFuture.supplyAsync(() -> bookingsById.get(bookingId), uiExecutor).join();
+        if (booking != null) {
+            BookingStatus status = booking.getStatus();
+            if (status != BookingStatus.PENDING && status != BookingStatus.CONFIRMED) {
+                return false;
+            }
+            changeBookingStatus(booking, BookingStatus.CANCELLED);
+            return true;
+        }
 
-        } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback();
+        long start = System.nanoTime();
+        try {
+            List<StatusChange> applied = repository.updateStatuses(List.of(
+                    new StatusChange(bookingId, BookingStatus.PENDING, BookingStatus.CANCELLED),
+                    new StatusChange(bookingId, BookingStatus.CONFIRMED, BookingStatus.CANCELLED)));
+            if (applied.isEmpty()) {
+                return false;
             }
-            throw e;
+            ReservationEngine.Slot slot = engine.findById(bookingId);
+            if (slot != null) {
+                engine.release(slot);
+                slotFreed(slot);
+            }
+            logger.info("Бронирование ID " + bookingId + " отменено в БД");
+            return true;
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при отмене бронирования", e);
+            throw new RuntimeException("Не удалось отменить бронирование в БД", e);
         } finally {
-            if (rs != null) rs.close();
-            if (stmt != null) stmt.close();
-            if (conn != null) conn.close();
+            BULK_STATUS_LATENCY.recordSince(start);
         }
     }
 
-    private int saveOrGetCustomer(Connection conn, String name, String phone) throws SQLException {
-        //поиск данных
-        String findSql = "SELECT id FROM customers WHERE phone = ?";
-        try (PreparedStatement findStmt = conn.prepareStatement(findSql)) {
-            findStmt.setString(1, phone);
-            try (ResultSet rs = findStmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
-                }
+    // Групповая бронь на сочетание столов: все столы занимаются в движке, затем бронирования
+    // сохраняются одной транзакцией — либо вся группа, либо ничего. Гости распределяются
+    // по столам в пределах вместимости, в пожеланиях каждого бронирования указана группа
+    public List<Booking> addGroupBooking(String customerName, String phone, int guests, LocalDateTime dateTime,
+                                         TableCombinationIndex.Combination combination, String specialRequests) {
+        List<Table> groupTables = new ArrayList<>();
+        for (int tableNumber : combination.tableNumbers()) {
+            Table table = findTableByNumber(tableNumber);
+            if (table == null) {
+                throw new RuntimeException("Стол №" + tableNumber + " не найден");
             }
+            groupTables.add(table);
         }
+        int[] shares = splitGuests(guests, groupTables);
+        String note = "Группа " + guests + " чел., столы №" + combination.numbers() +
+                (specialRequests.isEmpty() ? "" : ". " + specialRequests);
 
-        // Если не найден, создаем нового
-        String insertSql = "INSERT INTO customers (name, phone) VALUES (?, ?) RETURNING id";
-        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-            insertStmt.setString(1, name);
-            insertStmt.setString(2, phone);
-            try (ResultSet rs = insertStmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
-                } else {
-                    throw new SQLException("Не удалось получить ID созданного клиента");
+        List<Booking> group = new ArrayList<>();
+        List<ReservationEngine.Slot> slots = new ArrayList<>();
+        try {
+            for (int i = 0; i < groupTables.size(); i++) {
+                Table table = groupTables.get(i);
+                ReservationEngine.Slot slot = engine.tryReserve(table.getTableNumber(), dateTime);
+                if (slot == null) {
+                    throw groupSlotTaken(table, dateTime, null);
+                }
+                slots.add(slot);
+                if (recurring.blocks(table.getTableNumber(), dateTime)) {
+                    throw groupSlotTaken(table, dateTime, null);
                 }
+                group.add(new Booking(0, customerName, phone, shares[i], dateTime, table, note));
             }
+        } catch (RuntimeException e) {
+            slots.forEach(engine::release);
+            throw e;
         }
-    }
 
-    private int getTableId(Connection conn, int tableNumber) throws SQLException {
-        String sql = "SELECT id FROM tables WHERE table_number = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, tableNumber);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("id");
-                } else {
-                    throw new SQLException("Стол с номером " + tableNumber + " не найден");
-                }
+        List<Reservation> reservations = new ArrayList<>(group.size());
+        for (Booking booking : group) {
+            reservations.add(booking.toReservation());
+        }
+        long start = System.nanoTime();
+        try {
+            List<Integer> ids = repository.saveBookings(reservations);
+            for (int i = 0; i < group.size(); i++) {
+                engine.assignId(slots.get(i), ids.get(i));
+                group.get(i).idProperty().set(ids.get(i));
+                nextBookingId.accumulateAndGet(ids.get(i) + 1, Math::max);
             }
+            runOnUi(() -> bookings.addAll(group));
+            logger.info("Добавлена групповая бронь ID " + ids + ": " + combination);
+            return group;
+        } catch (SQLException e) {
+            slots.forEach(engine::release);
+            if (BookingRepository.isSlotTaken(e)) {
+                logger.info("Стол группы занят с другого терминала: " + combination);
+                throw groupSlotTaken(groupTables.get(0), dateTime, e);
+            }
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при добавлении групповой брони", e);
+            throw new RuntimeException("Не удалось сохранить групповую бронь в БД", e);
+        } finally {
+            SAVE_LATENCY.recordSince(start);
+        }
+    }
+
+    // Альтернативы для группы — другие сочетания; их форма перечитывает сама
+    private SlotTakenException groupSlotTaken(Table table, LocalDateTime dateTime, Throwable cause) {
+        SLOT_CONFLICTS.increment();
+        return new SlotTakenException(table.getTableNumber(), dateTime, List.of(), cause);
+    }
+
+    // Поровну, но не больше вместимости: сначала маленькие столы, остаток — большим
+    private static int[] splitGuests(int guests, List<Table> groupTables) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < groupTables.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingInt(i -> groupTables.get(i).getCapacity()));
+        int[] shares = new int[groupTables.size()];
+        int remaining = guests;
+        for (int k = 0; k < order.size(); k++) {
+            int i = order.get(k);
+            int tablesLeft = order.size() - k;
+            shares[i] = Math.min(groupTables.get(i).getCapacity(), (remaining + tablesLeft - 1) / tablesLeft);
+            remaining -= shares[i];
+        }
+        return shares;
+    }
+
+    private int saveBookingToDatabase(Booking booking) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return repository.saveBooking(booking.toReservation());
+        } finally {
+            SAVE_LATENCY.recordSince(start);
         }
     }
 
     public void updateBooking(Booking oldBooking, Booking newBooking) {
+        ReservationEngine.Slot oldSlot = engine.findById(oldBooking.getId());
+        ReservationEngine.Slot newSlot = moveSlot(oldSlot, newBooking);
+
         try {
             updateBookingInDatabase(newBooking);
 
-            // Обновляем в локальном списке
-            int index = bookings.indexOf(oldBooking);
-            if (index != -1) {
-                bookings.set(index, newBooking);
-            }
+            // Обновляем бронирование в списке на месте
+            runOnUi(() -> {
+                Booking current = bookingsById.get(newBooking.getId());
+                if (current != null) {
+                    patchBooking(current, newBooking);
+                }
+            });
 
             logger.info("Обновлено бронирование ID: " + newBooking.getId());
         } catch (SQLException e) {
+            restoreSlot(oldSlot, newSlot);
+            if (BookingRepository.isSlotTaken(e)) {
+                logger.info("Слот занят с другого терминала: " + newBooking);
+                throw slotTaken(newBooking, e);
+            }
+            DB_ERRORS.increment();
             logger.log(Level.SEVERE, "Ошибка при обновлении бронирования", e);
             throw new RuntimeException("Не удалось обновить бронирование в БД", e);
         }
@@ -302,114 +1166,782 @@ public class MainController {
 
     //обновление данных в бд
     private void updateBookingInDatabase(Booking booking) throws SQLException {
-        Connection conn = null;
-        PreparedStatement stmt = null;
-
+        long start = System.nanoTime();
         try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false);
-
-            // Обновляем клиента
-            int customerId = saveOrGetCustomer(conn, booking.getCustomerName(), booking.getPhone());
-
-            // Получаем ID стола
-            int tableId = getTableId(conn, booking.getTable().getTableNumber());
-
-            // Обновляем бронирование
-            String sql = "UPDATE bookings SET customer_id = ?, table_id = ?, status_id = ?, " +
-                    "guests = ?, booking_date_time = ?, special_requests = ?, updated_at = CURRENT_TIMESTAMP " +
-                    "WHERE id = ?";
+            repository.updateBooking(booking.toReservation());
+        } finally {
+            UPDATE_LATENCY.recordSince(start);
+        }
+    }
 
-            stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, customerId);
-            stmt.setInt(2, tableId);
-            stmt.setInt(3, convertToStatusId(booking.getStatus()));
-            stmt.setInt(4, booking.getGuests());
-            stmt.setTimestamp(5, Timestamp.valueOf(booking.getBookingDateTime()));
-            stmt.setString(6, booking.getSpecialRequests());
-            stmt.setInt(7, booking.getId());
+    private void updateStatusInDatabase(int bookingId, BookingStatus status) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            repository.updateStatus(bookingId, status);
+        } finally {
+            STATUS_LATENCY.recordSince(start);
+        }
+    }
 
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Бронирование с ID " + booking.getId() + " не найдено");
+    public void changeBookingStatus(Booking booking, BookingStatus newStatus) {
+        ReservationEngine.Slot oldSlot = engine.findById(booking.getId());
+        ReservationEngine.Slot newSlot = null;
+        if (newStatus == BookingStatus.CANCELLED) {
+            if (oldSlot != null) {
+                engine.release(oldSlot);
             }
+        } else if (oldSlot == null) {
+            // Возврат из отмены: стол за это время могли занять
+            newSlot = engine.tryReserve(booking.getId(), booking.getTable().getTableNumber(), booking.getBookingDateTime());
+            if (newSlot == null) {
+                throw slotTaken(booking, null);
+            }
+            rejectIfRecurring(newSlot, null, booking);
+        }
 
-            conn.commit();
-
+        try {
+            updateStatusInDatabase(booking.getId(), newStatus);
+            committedStatuses.put(booking.getId(), newStatus);
+            runOnUi(() -> {
+                booking.setStatus(newStatus);
+                committedStatuses.remove(booking.getId(), newStatus);
+                updateTableAvailability(booking.getTable());
+            });
+            Reservation updated = booking.toReservation().withStatus(newStatus);
+            reminders.schedule(updated);
+            lifecycle.track(updated);
+            if (newStatus == BookingStatus.CANCELLED && oldSlot != null) {
+                slotFreed(oldSlot);
+            }
+            logger.info("Статус бронирования ID " + booking.getId() + " изменен на " + newStatus.name());
         } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback();
+            restoreSlot(oldSlot, newSlot);
+            if (BookingRepository.isSlotTaken(e)) {
+                throw slotTaken(booking, e);
             }
-            throw e;
-        } finally {
-            if (stmt != null) stmt.close();
-            if (conn != null) conn.close();
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при изменении статуса бронирования", e);
+            throw new RuntimeException("Не удалось изменить статус бронирования в БД", e);
         }
     }
 
     public void deleteBooking(Booking booking) {
         try {
             deleteBookingFromDatabase(booking.getId());
-            bookings.remove(booking);
+            ReservationEngine.Slot slot = engine.findById(booking.getId());
+            if (slot != null) {
+                engine.release(slot);
+                slotFreed(slot);
+            }
+            runOnUi(() -> {
+                Booking current = bookingsById.get(booking.getId());
+                if (current != null) {
+                    bookings.remove(current);
+                }
+            });
             logger.info("Удалено бронирование ID: " + booking.getId());
         } catch (SQLException e) {
+            DB_ERRORS.increment();
             logger.log(Level.SEVERE, "Ошибка при удалении бронирования", e);
             throw new RuntimeException("Не удалось удалить бронирование из БД", e);
         }
     }
 
     private void deleteBookingFromDatabase(int bookingId) throws SQLException {
-        String sql = "DELETE FROM bookings WHERE id = ?";
+        long start = System.nanoTime();
+        try {
+            repository.deleteBooking(bookingId);
+        } finally {
+            DELETE_LATENCY.recordSince(start);
+        }
+    }
+
+    // Смена статуса нескольких выделенных бронирований одним запросом к БД и одним обновлением
+    // интерфейса. Пропускаются бронирования, уже имеющие этот статус, и отмененные при переходе
+    // в другой: возврат из отмены проверяет стол и делается по одному. Статус меняется, только если
+    // в БД он тот же, что в памяти. Возвращает число измененных
+    public int changeBookingStatuses(List<Booking> selected, BookingStatus newStatus) {
+        List<StatusChange> changes = new ArrayList<>();
+        Map<Integer, Booking> byId = new HashMap<>();
+        Map<Integer, ReservationEngine.Slot> released = new HashMap<>();
+        for (Booking booking : selected) {
+            BookingStatus current = committedStatuses.getOrDefault(booking.getId(), booking.getStatus());
+            if (current == newStatus || current == BookingStatus.CANCELLED ||
+                    byId.putIfAbsent(booking.getId(), booking) != null) {
+                continue;
+            }
+            changes.add(new StatusChange(booking.getId(), current, newStatus));
+            ReservationEngine.Slot slot = newStatus == BookingStatus.CANCELLED ? engine.findById(booking.getId()) : null;
+            if (slot != null) {
+                engine.release(slot);
+                released.put(booking.getId(), slot);
+            }
+        }
+        if (changes.isEmpty()) {
+            return 0;
+        }
+
+        List<StatusChange> applied;
+        long start = System.nanoTime();
+        try {
+            applied = repository.updateStatuses(changes);
+        } catch (SQLException e) {
+            released.values().forEach(slot -> restoreSlot(slot, null));
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при изменении статуса бронирований", e);
+            throw new RuntimeException("Не удалось изменить статус бронирований в БД", e);
+        } finally {
+            BULK_STATUS_LATENCY.recordSince(start);
+        }
+
+        Set<Integer> appliedIds = new HashSet<>();
+        for (StatusChange change : applied) {
+            appliedIds.add(change.bookingId());
+            committedStatuses.put(change.bookingId(), newStatus);
+            Reservation updated = byId.get(change.bookingId()).toReservation().withStatus(newStatus);
+            reminders.schedule(updated);
+            lifecycle.track(updated);
+        }
+        released.forEach((id, slot) -> {
+            if (appliedIds.contains(id)) {
+                slotFreed(slot);
+            } else {
+                restoreSlot(slot, null);
+            }
+        });
+        runOnUi(() -> {
+            Set<Table> affectedTables = new HashSet<>();
+            for (int id : appliedIds) {
+                Booking booking = bookingsById.get(id);
+                if (booking != null) {
+                    booking.setStatus(newStatus);
+                    affectedTables.add(booking.getTable());
+                }
+                committedStatuses.remove(id, newStatus);
+            }
+            affectedTables.forEach(this::updateTableAvailability);
+            statusRevision.set(statusRevision.get() + 1);
+        });
+        logger.info("Статус " + applied.size() + " из " + changes.size() + " бронирований изменен на " + newStatus.name());
+        return applied.size();
+    }
+
+    // Удаление нескольких бронирований одним запросом; из списка они убираются одним изменением.
+    // Возвращает число удаленных
+    public int deleteBookings(List<Booking> selected) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Booking booking : selected) {
+            ids.add(booking.getId());
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<Integer> deleted;
+        long start = System.nanoTime();
+        try {
+            deleted = repository.deleteBookings(new ArrayList<>(ids));
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при удалении бронирований", e);
+            throw new RuntimeException("Не удалось удалить бронирования из БД", e);
+        } finally {
+            BULK_DELETE_LATENCY.recordSince(start);
+        }
+
+        for (int id : deleted) {
+            ReservationEngine.Slot slot = engine.findById(id);
+            if (slot != null) {
+                engine.release(slot);
+                slotFreed(slot);
+            }
+        }
+        runOnUi(() -> {
+            Set<Booking> removed = new HashSet<>();
+            for (int id : deleted) {
+                Booking current = bookingsById.get(id);
+                if (current != null) {
+                    removed.add(current);
+                }
+            }
+            bookings.removeAll(removed);
+        });
+        logger.info("Удалено бронирований: " + deleted.size() + " из " + ids.size());
+        return deleted.size();
+    }
+
+    // Пачка автоматических переходов от BookingLifecycle (уже сохранена в БД).
+    // В интерфейс применяется одним действием в потоке JavaFX
+    private void applyStatusChanges(List<StatusChange> changes) {
+        Map<Integer, BookingStatus> newStatuses = new HashMap<>();
+        for (StatusChange change : changes) {
+            newStatuses.put(change.bookingId(), change.to());
+            committedStatuses.put(change.bookingId(), change.to());
+            ReservationEngine.Slot slot = engine.findById(change.bookingId());
+            if (change.to() == BookingStatus.CANCELLED && slot != null) {
+                engine.release(slot);
+                slotFreed(slot);
+            }
+            reminders.cancel(change.bookingId());
+        }
+
+        uiExecutor.execute(() -> {
+            Set<Table> affectedTables = new HashSet<>();
+            newStatuses.forEach((id, status) -> {
+                Booking booking = bookingsById.get(id);
+                if (booking != null) {
+                    booking.setStatus(status);
+                    affectedTables.add(booking.getTable());
+                }
+                committedStatuses.remove(id, status);
+            });
+            affectedTables.forEach(this::updateTableAvailability);
+            statusRevision.set(statusRevision.get() + 1);
+        });
+    }
+
+    // Правка существующего бронирования: свойства меняются на месте, таймеры
+    // напоминаний и автоматических статусов переставляются под новые данные
+    private void patchBooking(Booking current, Booking source) {
+        Table previousTable = current.getTable();
+        current.update(source);
+
+        Reservation reservation = current.toReservation();
+        reminders.schedule(reservation);
+        lifecycle.track(reservation);
+
+        updateTableAvailability(previousTable);
+        if (current.getTable() != previousTable) {
+            updateTableAvailability(current.getTable());
+        }
+    }
+
+    public Booking findBookingById(int bookingId) {
+        return bookingsById.get(bookingId);
+    }
+
+    // Статус «Свободен/Занят» на текущий момент. Меняется при изменениях бронирований стола;
+    // с течением времени его обновляет refreshTableAvailability()
+    private void updateTableAvailability(Table table) {
+        table.setIsAvailable(isTableAvailable(table, LocalDateTime.now()));
+    }
+
+    public void refreshTableAvailability() {
+        tables.forEach(this::updateTableAvailability);
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public ReadOnlyIntegerProperty statusRevisionProperty() {
+        return statusRevision;
+    }
 
-            stmt.setInt(1, bookingId);
-            int affectedRows = stmt.executeUpdate();
+    // Переносит слот бронирования в движке под новые стол/время/статус.
+    // Возвращает новый слот (null, если бронирование больше не занимает стол)
+    private ReservationEngine.Slot moveSlot(ReservationEngine.Slot oldSlot, Booking newBooking) {
+        int tableNumber = newBooking.getTable().getTableNumber();
+        LocalDateTime dateTime = newBooking.getBookingDateTime();
 
-            if (affectedRows == 0) {
-                throw new SQLException("Бронирование с ID " + bookingId + " не найдено");
+        if (newBooking.getStatus() == BookingStatus.CANCELLED) {
+            if (oldSlot != null) {
+                engine.release(oldSlot);
             }
+            return null;
+        }
+        ReservationEngine.Slot newSlot = oldSlot != null
+                ? engine.tryMove(oldSlot, tableNumber, dateTime)
+                : engine.tryReserve(newBooking.getId(), tableNumber, dateTime);
+        if (newSlot == null) {
+            throw slotTaken(newBooking, null);
+        }
+        // Правка без смены стола и времени с правилами повторно не сверяется
+        if (oldSlot == null || oldSlot.getTableNumber() != tableNumber || !oldSlot.getDateTime().equals(dateTime)) {
+            rejectIfRecurring(newSlot, oldSlot, newBooking);
+        }
+        return newSlot;
+    }
+
+    // Слот уже занят в движке; если на это время стол держит регулярная бронь,
+    // движок откатывается. Новое правило, наоборот, сначала попадает в расписание,
+    // а затем сверяется с движком, поэтому одновременные бронь и правило не пройдут оба
+    private void rejectIfRecurring(ReservationEngine.Slot newSlot, ReservationEngine.Slot oldSlot, Booking booking) {
+        if (recurring.blocks(booking.getTable().getTableNumber(), booking.getBookingDateTime())) {
+            restoreSlot(oldSlot, newSlot);
+            throw slotTaken(booking, null);
         }
     }
 
+    // Откат изменений в движке после ошибки записи в БД
+    private void restoreSlot(ReservationEngine.Slot oldSlot, ReservationEngine.Slot newSlot) {
+        if (newSlot != null) {
+            engine.release(newSlot);
+        }
+        if (oldSlot != null) {
+            engine.add(oldSlot.getId(), oldSlot.getTableNumber(), oldSlot.getDateTime());
+        }
+    }
+
+    private void runOnUi(Runnable action) {
+        uiExecutor.execute(action);
+    }
+
     public ObservableList<Table> getTables() {
         return tables;
     }
 
     public ObservableList<Table> getAvailableTables(int guests, LocalDateTime dateTime) {
-        ObservableList<Table> availableTables = FXCollections.observableArrayList();
+        return FXCollections.observableArrayList(findAvailableTables(guests, dateTime));
+    }
 
-        for (Table table : tables) {
+    // То же вне потока JavaFX. Запомненный результат возвращается сразу, иначе расчет идет
+    // в потоке availability; отмененный до начала расчета запрос не считается
+    public CompletableFuture<List<Table>> findAvailableTablesAsync(int guests, LocalDateTime dateTime) {
+        List<Table> cached = cachedAvailableTables(guests, dateTime);
+        if (cached != null) {
+            MEMO_HITS.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        return CompletableFuture.supplyAsync(() -> findAvailableTables(guests, dateTime), AVAILABILITY);
+    }
+
+    // Потокобезопасно: читает движок, правила и копию списка столов
+    public List<Table> findAvailableTables(int guests, LocalDateTime dateTime) {
+        long start = System.nanoTime();
+        LocalDate date = dateTime.toLocalDate();
+        // Версии читаются до расчета: изменение во время расчета сделает запись устаревшей
+        long version = engine.dayVersion(date);
+        long generation = availabilityGeneration();
+        List<Table> availableTables = availabilityMemo.get(date, version, generation, dateTime.getHour(), guests);
+        if (availableTables != null) {
+            MEMO_HITS.increment();
+            AVAILABILITY_LATENCY.recordSince(start);
+            return availableTables;
+        }
+        MEMO_MISSES.increment();
+        List<Table> found = new ArrayList<>();
+        for (Table table : tableSnapshot) {
             if (table.getCapacity() >= guests && isTableAvailable(table, dateTime)) {
-                availableTables.add(table);
+                found.add(table);
             }
         }
+        availableTables = List.copyOf(found);
+        // Кэшируются только ровные часы — время из формы; остальное (API, перенос) считается каждый раз
+        if (dateTime.getMinute() == 0 && dateTime.getSecond() == 0 && dateTime.getNano() == 0) {
+            availabilityMemo.put(date, version, generation, dateTime.getHour(), guests, availableTables);
+        }
+        AVAILABILITY_LATENCY.recordSince(start);
         return availableTables;
     }
 
+    private List<Table> cachedAvailableTables(int guests, LocalDateTime dateTime) {
+        if (dateTime.getMinute() != 0 || dateTime.getSecond() != 0 || dateTime.getNano() != 0) {
+            return null;
+        }
+        LocalDate date = dateTime.toLocalDate();
+        return availabilityMemo.get(date, engine.dayVersion(date), availabilityGeneration(),
+                dateTime.getHour(), guests);
+    }
+
+    // Оба счетчика только растут, поэтому сумма меняется при изменении любого
+    private long availabilityGeneration() {
+        return tablesGeneration.get() + recurring.version();
+    }
+
+    // Сочетания столов, все столы которых свободны; по возрастанию вместимости
+    public List<TableCombinationIndex.Combination> getAvailableCombinations(int guests, LocalDateTime dateTime) {
+        long start = System.nanoTime();
+        List<TableCombinationIndex.Combination> result = combinations.findFree(guests,
+                tableNumber -> engine.isFree(tableNumber, dateTime) && !recurring.blocks(tableNumber, dateTime));
+        COMBINATIONS_LATENCY.recordSince(start);
+        return result;
+    }
+
+    // Смежность задается cafe.tables.adjacency.<id заведения> или общим cafe.tables.adjacency
+    private void rebuildCombinations() {
+        List<TableInfo> tableInfos = new ArrayList<>(tables.size());
+        for (Table table : tables) {
+            tableInfos.add(table.toTableInfo());
+        }
+        String adjacency = System.getProperty("cafe.tables.adjacency." + venue.id(),
+                System.getProperty("cafe.tables.adjacency"));
+        combinations = TableCombinationIndex.build(tableInfos, adjacency, MAX_COMBINED_TABLES);
+        logger.info("Сочетаний столов для больших компаний: " + combinations.size());
+    }
+
     private boolean isTableAvailable(Table table, LocalDateTime dateTime) {
-        for (Booking booking : bookings) {
-            if (booking.getTable().equals(table) &&
-                    booking.getBookingDateTime().toLocalDate().equals(dateTime.toLocalDate()) &&
-                    Math.abs(booking.getBookingDateTime().getHour() - dateTime.getHour()) < 2 &&
-                    booking.getStatus() != BookingStatus.CANCELLED) {
-                return false;
+        return engine.isFree(table.getTableNumber(), dateTime) && !recurring.blocks(table.getTableNumber(), dateTime);
+    }
+
+    // Ограничение в БД сработало, хотя по данным в памяти стол был свободен:
+    // предлагаем ближайшие свободные варианты. Вызывается и из потоков HTTP API,
+    // поэтому столы берутся из копии, а не из списка JavaFX
+    private SlotTakenException slotTaken(Booking booking, Throwable cause) {
+        SLOT_CONFLICTS.increment();
+        Table requestedTable = booking.getTable();
+        LocalDateTime requested = booking.getBookingDateTime();
+
+        List<Table> currentTables = tableSnapshot;
+        List<TableInfo> tableInfos = new ArrayList<>(currentTables.size());
+        for (Table table : currentTables) {
+            tableInfos.add(table.toTableInfo());
+        }
+
+        List<Alternative> alternatives = Availability.alternatives(tableInfos, booking.getGuests(), requested,
+                (tableNumber, dateTime) -> {
+                    if (tableNumber == requestedTable.getTableNumber() && Availability.overlaps(requested, dateTime)) {
+                        return false;
+                    }
+                    Table table = findSnapshotTable(tableNumber);
+                    return table != null && isTableAvailable(table, dateTime);
+                }, MAX_ALTERNATIVES);
+
+        return new SlotTakenException(requestedTable.getTableNumber(), requested, alternatives, cause);
+    }
+
+    // Стол мог быть выведен из эксплуатации (архив) или отсутствовать среди столов
+    // по умолчанию (офлайн) — тогда подставляется временный
+    private Booking toBooking(Reservation reservation) {
+        Table table = findTableByNumber(reservation.tableNumber());
+        if (table == null) {
+            table = new Table(reservation.tableNumber(), reservation.guests(), "");
+        }
+        Booking booking = new Booking(reservation.id(), reservation.customerName(), reservation.phone(),
+                reservation.guests(), reservation.bookingDateTime(), table, reservation.specialRequests());
+        booking.setStatus(reservation.status());
+        return booking;
+    }
+
+    // Только в потоке интерфейса: в нем меняется список tables
+    private Table findTableByNumber(int tableNumber) {
+        for (Table table : tables) {
+            if (table.getTableNumber() == tableNumber) {
+                return table;
             }
         }
-        return true;
+        return null;
+    }
+
+    // То же из любого потока (HTTP API, подбор из листа ожидания)
+    private Table findSnapshotTable(int tableNumber) {
+        for (Table table : tableSnapshot) {
+            if (table.getTableNumber() == tableNumber) {
+                return table;
+            }
+        }
+        return null;
     }
 
-    // Фильтрация
-    public void applyFilter(LocalDateTime date) {
+    // Фильтрация. Возвращает true, если дата раньше горизонта архива: тогда бронирования
+    // дня собираются в getArchivedBookings() — рабочий список сразу, архив после чтения
+    // в фоне (archiveLoad()), чтобы медленная БД не останавливала интерфейс
+    public boolean applyFilter(LocalDateTime date) {
         filteredBookings.setPredicate(booking -> {
             if (date == null) return true;
             return booking.getBookingDateTime().toLocalDate().equals(date.toLocalDate());
         });
+
+        int generation = ++archiveGeneration;
+        if (date == null || !archiver.isArchived(date.toLocalDate())) {
+            archivedBookings.clear();
+            archiveLoad = CompletableFuture.completedFuture(null);
+            return false;
+        }
+
+        LocalDate day = date.toLocalDate();
+        archivedBookings.setAll(filteredBookings);
+        CompletableFuture<Void> loaded = new CompletableFuture<>();
+        archiveLoad = loaded;
+        CompletableFuture.supplyAsync(() -> readArchivedDay(day), INITIAL_LOAD)
+                .whenComplete((reservations, error) -> runOnUi(() -> {
+                    if (error != null) {
+                        loaded.completeExceptionally(error);
+                        return;
+                    }
+                    // Пока шло чтение, фильтр могли сменить: старый результат не показываем
+                    if (generation == archiveGeneration) {
+                        List<Booking> archived = new ArrayList<>(reservations.size());
+                        for (Reservation reservation : reservations) {
+                            archived.add(toBooking(reservation));
+                        }
+                        archivedBookings.addAll(archived);
+                    }
+                    loaded.complete(null);
+                }));
+        return true;
+    }
+
+    private List<Reservation> readArchivedDay(LocalDate day) {
+        try {
+            return repository.loadArchivedReservations(day, day.plusDays(1));
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка загрузки архива за " + day, e);
+            throw new RuntimeException("Не удалось загрузить архив за " + day, e);
+        }
+    }
+
+    // Завершается в потоке интерфейса, когда архив последнего фильтра добавлен в список
+    public CompletableFuture<Void> archiveLoad() {
+        return archiveLoad;
     }
 
     public void clearFilter() {
         filteredBookings.setPredicate(null);
+        archiveGeneration++;
+        archivedBookings.clear();
+    }
+
+    public ObservableList<Booking> getArchivedBookings() {
+        return archivedBookings;
+    }
+
+    // Перенесенные в архив бронирования больше не держим в памяти
+    private void removeArchived(List<Integer> bookingIds) {
+        Set<Integer> ids = new HashSet<>(bookingIds);
+        for (int id : ids) {
+            engine.release(id);
+        }
+        uiExecutor.execute(() -> bookings.removeIf(booking -> ids.contains(booking.getId())));
+    }
+
+    // Лист ожидания
+    public ObservableList<WaitlistEntry> getWaitlist() {
+        return waitlistEntries;
+    }
+
+    // Последнее предложение стола из листа ожидания
+    public ReadOnlyStringProperty waitlistStatusProperty() {
+        return waitlistStatus;
+    }
+
+    public WaitlistEntry addToWaitlist(String customerName, String phone, int guests,
+                                       LocalDate date, int fromHour, int toHour) {
+        WaitlistEntry entry = new WaitlistEntry(0, customerName, phone, guests, date, fromHour, toHour,
+                LocalDateTime.now());
+        try {
+            entry = entry.withId(repository.saveWaitlistEntry(entry));
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при добавлении в лист ожидания", e);
+            throw new RuntimeException("Не удалось сохранить запись листа ожидания в БД", e);
+        }
+        waitlist.add(entry);
+        WaitlistEntry saved = entry;
+        runOnUi(() -> waitlistEntries.add(saved));
+        logger.info("В лист ожидания добавлен: " + saved);
+        return saved;
+    }
+
+    public void removeFromWaitlist(WaitlistEntry entry) {
+        try {
+            repository.deleteWaitlistEntries(List.of(entry.id()));
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при удалении из листа ожидания", e);
+            throw new RuntimeException("Не удалось удалить запись листа ожидания из БД", e);
+        }
+        waitlist.remove(entry.id());
+        runOnUi(() -> waitlistEntries.removeIf(existing -> existing.id() == entry.id()));
+    }
+
+    // Регулярные брони
+    public ObservableList<RecurrenceRule> getRecurrenceRules() {
+        return recurrenceRules;
+    }
+
+    // Повторения правил в [from, to): разворачиваются только для запрошенного окна
+    public List<RecurringSchedule.Occurrence> getOccurrences(LocalDate from, LocalDate to) {
+        return recurring.expand(from, to);
+    }
+
+    // Сохраняет правило, если его повторения в ближайшие RECURRENCE_CHECK_WEEKS недель
+    // не пересекаются с разовыми бронями и другими правилами. Иначе — RecurrenceConflictException
+    // с датами пересечений: их можно добавить в исключения и сохранить правило снова
+    public RecurrenceRule addRecurrenceRule(RecurrenceRule rule) {
+        // Временный отрицательный id, чтобы правило не конфликтовало само с собой
+        RecurrenceRule pending = rule.withId(-pendingRuleIds.incrementAndGet());
+        recurring.put(pending);
+        List<LocalDate> conflicts;
+        try {
+            conflicts = findRecurrenceConflicts(pending);
+        } catch (RuntimeException e) {
+            recurring.remove(pending.id());
+            throw e;
+        }
+        if (!conflicts.isEmpty()) {
+            recurring.remove(pending.id());
+            throw new RecurrenceConflictException(rule.tableNumber(), conflicts);
+        }
+
+        RecurrenceRule saved;
+        try {
+            saved = rule.withId(repository.saveRecurrenceRule(rule));
+        } catch (SQLException e) {
+            recurring.remove(pending.id());
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при сохранении регулярной брони", e);
+            throw new RuntimeException("Не удалось сохранить регулярную бронь в БД", e);
+        }
+        recurring.remove(pending.id());
+        recurring.put(saved);
+        runOnUi(() -> {
+            recurrenceRules.add(saved);
+            refreshTableAvailability();
+        });
+        logger.info("Добавлена регулярная бронь ID " + saved.id() + ": " + saved);
+        return saved;
+    }
+
+    // Даты повторений правила в окне проверки, на которые стол уже занят
+    private List<LocalDate> findRecurrenceConflicts(RecurrenceRule rule) {
+        LocalDate from = rule.startDate().isAfter(LocalDate.now()) ? rule.startDate() : LocalDate.now();
+        List<LocalDate> conflicts = new ArrayList<>();
+        for (LocalDate date : rule.occurrences(from, from.plusWeeks(RECURRENCE_CHECK_WEEKS))) {
+            LocalDateTime dateTime = rule.dateTimeOn(date);
+            if (!engine.isFree(rule.tableNumber(), dateTime) ||
+                    recurring.findBlocking(rule.tableNumber(), dateTime, rule.id()) != null) {
+                conflicts.add(date);
+            }
+        }
+        return conflicts;
+    }
+
+    public void removeRecurrenceRule(RecurrenceRule rule) {
+        try {
+            repository.deleteRecurrenceRule(rule.id());
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при удалении регулярной брони", e);
+            throw new RuntimeException("Не удалось удалить регулярную бронь из БД", e);
+        }
+        recurring.remove(rule.id());
+        runOnUi(() -> {
+            recurrenceRules.removeIf(existing -> existing.id() == rule.id());
+            refreshTableAvailability();
+        });
+        logger.info("Удалена регулярная бронь ID " + rule.id());
+    }
+
+    // Отмена одного повторения: дата добавляется в исключения правила
+    public void skipOccurrence(RecurrenceRule rule, LocalDate date) {
+        try {
+            repository.addRecurrenceException(rule.id(), date);
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.SEVERE, "Ошибка при пропуске повторения регулярной брони", e);
+            throw new RuntimeException("Не удалось сохранить пропуск повторения в БД", e);
+        }
+        RecurrenceRule current = recurring.find(rule.id());
+        if (current == null) {
+            return;
+        }
+        RecurrenceRule updated = current.withExceptions(Set.of(date));
+        recurring.put(updated);
+        runOnUi(() -> {
+            recurrenceRules.replaceAll(existing -> existing.id() == updated.id() ? updated : existing);
+            refreshTableAvailability();
+        });
+        logger.info("Повторение " + date + " регулярной брони ID " + rule.id() + " пропущено");
+    }
+
+    // Стол освободился (отмена, удаление): подбор компании из листа ожидания в отдельном потоке.
+    // В HTTP API предложение некому показать — лист ожидания разбирают рабочие места
+    private void slotFreed(ReservationEngine.Slot slot) {
+        if (headless || waitlist.isEmpty() || slot.getDateTime().isBefore(LocalDateTime.now())) {
+            return;
+        }
+        freedSlots.add(slot);
+        if (matching.compareAndSet(false, true)) {
+            waitlistMatcher.execute(this::matchFreedSlots);
+        }
+    }
+
+    private void matchFreedSlots() {
+        do {
+            List<Integer> removed = new ArrayList<>(waitlist.removeBefore(LocalDate.now()));
+            ReservationEngine.Slot slot;
+            while ((slot = freedSlots.poll()) != null) {
+                WaitlistEntry offered = offerFreedSlot(slot);
+                if (offered != null) {
+                    removed.add(offered.id());
+                }
+            }
+            if (!removed.isEmpty()) {
+                removeWaitlistEntries(removed);
+            }
+            matching.set(false);
+            // Слот мог прийти между последним poll и сбросом флага
+        } while (!freedSlots.isEmpty() && matching.compareAndSet(false, true));
+    }
+
+    // Сначала тот же час, затем соседние: после освобождения стола они тоже могли стать свободными.
+    // Компании создается бронирование в статусе «Ожидание», администратор подтверждает его звонком
+    private WaitlistEntry offerFreedSlot(ReservationEngine.Slot slot) {
+        Table table = findSnapshotTable(slot.getTableNumber());
+        if (table == null) {
+            return null;
+        }
+        LocalDateTime freed = slot.getDateTime();
+        for (int shift : new int[]{0, -1, 1}) {
+            LocalDateTime start = freed.plusHours(shift);
+            if (!start.toLocalDate().equals(freed.toLocalDate()) || start.getHour() < Availability.FIRST_HOUR ||
+                    start.getHour() > Availability.LAST_HOUR || start.isBefore(LocalDateTime.now()) ||
+                    !isTableAvailable(table, start)) {
+                continue;
+            }
+            WaitlistEntry entry = waitlist.poll(start.toLocalDate(), start.getHour(), table.getCapacity());
+            if (entry == null) {
+                continue;
+            }
+            Booking booking = new Booking(0, entry.customerName(), entry.phone(), entry.guests(),
+                    start, table, WAITLIST_NOTE);
+            try {
+                addBooking(booking);
+            } catch (SlotTakenException e) {
+                // Стол успели занять: запись возвращается в лист, пробуем соседний час
+                waitlist.add(entry);
+                continue;
+            } catch (RuntimeException e) {
+                waitlist.add(entry);
+                logger.log(Level.WARNING, "Не удалось предложить стол из листа ожидания: " + entry, e);
+                return null;
+            }
+            WAITLIST_OFFERS.increment();
+            String message = "Стол №" + table.getTableNumber() + " на " + start.toLocalTime() + " " +
+                    start.toLocalDate() + " предложен: " + entry.customerName() + ", " + entry.phone();
+            logger.info(message);
+            runOnUi(() -> waitlistStatus.set(message));
+            return entry;
+        }
+        return null;
+    }
+
+    // Записи уже убраны из индекса; ошибка БД не мешает подбору, в худшем случае
+    // запись вернется в лист после перезапуска
+    private void removeWaitlistEntries(List<Integer> entryIds) {
+        try {
+            repository.deleteWaitlistEntries(entryIds);
+        } catch (SQLException e) {
+            DB_ERRORS.increment();
+            logger.log(Level.WARNING, "Не удалось удалить записи листа ожидания " + entryIds, e);
+        }
+        Set<Integer> ids = new HashSet<>(entryIds);
+        runOnUi(() -> waitlistEntries.removeIf(entry -> ids.contains(entry.id())));
+    }
+
+    // Тепловая карта занятости за последние months месяцев. Вызывается в потоке
+    // интерфейса: сегодняшние бронирования берутся из памяти, остальное считает БД
+    public CompletableFuture<OccupancyHeatmap> loadOccupancy(int months) {
+        LocalDate today = LocalDate.now();
+        List<Reservation> todays = new ArrayList<>();
+        for (Booking booking : bookings) {
+            if (booking.getBookingDateTime().toLocalDate().equals(today)) {
+                todays.add(booking.toReservation());
+            }
+        }
+        return occupancy.load(today.minusMonths(months), today, todays);
+    }
+
+    public void invalidateOccupancy() {
+        occupancy.invalidate();
     }
 
     // Статистика
@@ -430,7 +1962,7 @@ public class MainController {
     }
 
     public int getNextBookingId() {
-        return nextBookingId;
+        return nextBookingId.get();
     }
 
     public ObservableList<Booking> getBookingsForTable(Table table) {
@@ -444,7 +1976,7 @@ public class MainController {
     }
 
     private void initializeSampleData() {
-        tables.addAll(
+        tables.setAll(
                 new Table(1, 2, "У окна"),
                 new Table(2, 4, "Центр зала"),
                 new Table(3, 6, "VIP зона"),
@@ -452,19 +1984,6 @@ public class MainController {
                 new Table(5, 8, "Банкетный зал"),
                 new Table(6, 4, "Барная стойка")
         );
-
-//        bookings.addAll(
-//                new Booking(nextBookingId++, "Иван Иванов", "+79161234567", 4,
-//                        LocalDateTime.now().plusDays(1), tables.get(1), "День рождения"),
-//                new Booking(nextBookingId++, "Мария Петрова", "+79167654321", 2,
-//                        LocalDateTime.now().plusDays(2), tables.get(0), "Романтический ужин"),
-//                new Booking(nextBookingId++, "Алексей Сидоров", "+79169998877", 6,
-//                        LocalDateTime.now().plusHours(5), tables.get(2), "Корпоратив")
-//        );
-
-        bookings.get(0).setStatus(BookingStatus.CONFIRMED);
-        bookings.get(1).setStatus(BookingStatus.PENDING);
-        bookings.get(2).setStatus(BookingStatus.COMPLETED);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,310 @@
+package database;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.BookingStatus;
+import model.Reservation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Локальный журнал изменений бронирований на время недоступности БД.
+// Файл только дописывается; запись считается принятой после fsync.
+// Все записи, накопившиеся за время предыдущего fsync, сбрасываются на диск
+// одним вызовом force (групповой fsync), поэтому частые изменения не ждут
+// отдельной синхронизации каждое.
+// Кроме изменений в журнал пишутся служебные отметки: сопоставление локального id
+// с id из БД (MAPPED) и номер последней отправленной в БД записи (REPLAYED).
+// Когда отправлено все, файл обнуляется
+public class BookingJournal implements Closeable {
+    private static final Logger logger = Logger.getLogger(BookingJournal.class.getName());
+    private static final LatencyHistogram FSYNC_LATENCY = Metrics.histogram("journal.fsync");
+    private static final Counter APPENDS = Metrics.counter("journal.appends");
+
+    public enum Operation { ADD, UPDATE, STATUS, DELETE }
+
+    // Изменение бронирования. Для ADD и UPDATE заполнено booking, для STATUS — from (может быть null,
+    // тогда статус меняется безусловно) и to, для DELETE — только bookingId.
+    // key — ключ идемпотентности ADD: повторная отправка того же бронирования после сбоя
+    // не создает второе (null у записей, сделанных до появления ключа)
+    public record Entry(long seq, Operation operation, int bookingId, Reservation booking,
+                        BookingStatus from, BookingStatus to, UUID key) {
+
+        public static Entry add(Reservation booking) {
+            return new Entry(0, Operation.ADD, booking.id(), booking, null, null, UUID.randomUUID());
+        }
+
+        public static Entry update(Reservation booking) {
+            return new Entry(0, Operation.UPDATE, booking.id(), booking, null, null, null);
+        }
+
+        public static Entry status(int bookingId, BookingStatus from, BookingStatus to) {
+            return new Entry(0, Operation.STATUS, bookingId, null, from, to, null);
+        }
+
+        public static Entry delete(int bookingId) {
+            return new Entry(0, Operation.DELETE, bookingId, null, null, null, null);
+        }
+
+        Entry withSeq(long seq) {
+            return new Entry(seq, operation, bookingId, booking, from, to, key);
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    // Изменения, еще не отправленные в БД, в порядке записи
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private final Map<Integer, Integer> mappedIds = new HashMap<>();
+    private final Thread writer;
+    private long lastSeq;
+
+    // Команда для потока записи: строка журнала или обнуление файла
+    private record Command(String line, boolean truncate, CompletableFuture<Void> done) {
+    }
+
+    public BookingJournal(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            readExisting();
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.writer = new Thread(this::writeLoop, "booking-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        if (!pending.isEmpty()) {
+            logger.info("В журнале " + file + " не отправлено в БД изменений: " + pending.size());
+        }
+    }
+
+    // Ставит изменение в очередь записи; future завершается после fsync
+    public synchronized CompletableFuture<Void> append(Entry entry) {
+        Entry numbered = entry.withSeq(++lastSeq);
+        pending.addLast(numbered);
+        APPENDS.increment();
+        return enqueue(encode(numbered), false);
+    }
+
+    // Запоминает id, выданный БД бронированию, созданному без связи
+    public synchronized CompletableFuture<Void> markMapped(int localId, int id) {
+        mappedIds.put(localId, id);
+        return enqueue(++lastSeq + "\tMAPPED\t" + localId + "\t" + id, false);
+    }
+
+    // Отмечает, что изменения до seq включительно уже в БД. Если не отправленных
+    // не осталось, файл обнуляется следующей командой той же очереди
+    public synchronized CompletableFuture<Void> markReplayed(long seq) {
+        while (!pending.isEmpty() && pending.peekFirst().seq() <= seq) {
+            pending.removeFirst();
+        }
+        if (pending.isEmpty()) {
+            mappedIds.clear();
+            return enqueue(null, true);
+        }
+        return enqueue(++lastSeq + "\tREPLAYED\t" + seq, false);
+    }
+
+    public synchronized List<Entry> peekPending(int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, pending.size()));
+        for (Entry entry : pending) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized Map<Integer, Integer> getMappedIds() {
+        return new HashMap<>(mappedIds);
+    }
+
+    public static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Запись в журнал прервана", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Не удалось записать журнал", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.interrupt();
+        channel.close();
+    }
+
+    private CompletableFuture<Void> enqueue(String line, boolean truncate) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        queue.add(new Command(line, truncate, done));
+        return done;
+    }
+
+    private void writeLoop() {
+        List<Command> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                writeBatch(batch);
+                for (Command command : batch) {
+                    command.done().complete(null);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Ошибка записи журнала " + file, e);
+                for (Command command : batch) {
+                    command.done().completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<Command> batch) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Command command : batch) {
+            if (command.truncate()) {
+                // Все, что было записано до этой команды, уже отправлено в БД
+                flush(sb);
+                channel.truncate(0);
+            } else {
+                sb.append(command.line()).append('\n');
+            }
+        }
+        flush(sb);
+
+        long start = System.nanoTime();
+        channel.force(false);
+        FSYNC_LATENCY.recordSince(start);
+    }
+
+    private void flush(StringBuilder sb) throws IOException {
+        if (sb.length() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        sb.setLength(0);
+    }
+
+    private void readExisting() throws IOException {
+        long replayed = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] f = line.split("\t", -1);
+            try {
+                long seq = Long.parseLong(f[0]);
+                lastSeq = Math.max(lastSeq, seq);
+                switch (f[1]) {
+                    case "MAPPED" -> mappedIds.put(Integer.parseInt(f[2]), Integer.parseInt(f[3]));
+                    case "REPLAYED" -> replayed = Math.max(replayed, Long.parseLong(f[2]));
+                    default -> pending.addLast(decode(seq, f));
+                }
+            } catch (RuntimeException e) {
+                // Недописанная последняя строка после сбоя: все до нее уже на диске
+                logger.warning("Пропущена поврежденная строка журнала: " + line);
+            }
+        }
+        long upTo = replayed;
+        pending.removeIf(entry -> entry.seq() <= upTo);
+    }
+
+    // Формат строки: поля через табуляцию; \, табуляция и перевод строки экранируются
+    private static String encode(Entry entry) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(entry.seq()).append('\t').append(entry.operation()).append('\t').append(entry.bookingId());
+        switch (entry.operation()) {
+            case ADD, UPDATE -> {
+                Reservation b = entry.booking();
+                sb.append('\t').append(escape(b.customerName()))
+                        .append('\t').append(escape(b.phone()))
+                        .append('\t').append(b.guests())
+                        .append('\t').append(b.bookingDateTime())
+                        .append('\t').append(b.tableNumber())
+                        .append('\t').append(b.status().name())
+                        .append('\t').append(escape(b.specialRequests()));
+                if (entry.key() != null) {
+                    sb.append('\t').append(entry.key());
+                }
+            }
+            case STATUS -> sb.append('\t').append(entry.from() == null ? "-" : entry.from().name())
+                    .append('\t').append(entry.to().name());
+            case DELETE -> {
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Entry decode(long seq, String[] f) {
+        Operation operation = Operation.valueOf(f[1]);
+        int bookingId = Integer.parseInt(f[2]);
+        return switch (operation) {
+            case ADD, UPDATE -> new Entry(seq, operation, bookingId, new Reservation(bookingId,
+                    unescape(f[3]), unescape(f[4]), Integer.parseInt(f[5]), LocalDateTime.parse(f[6]),
+                    Integer.parseInt(f[7]), BookingStatus.valueOf(f[8]), unescape(f[9])), null, null,
+                    f.length > 10 ? UUID.fromString(f[10]) : null);
+            case STATUS -> new Entry(seq, operation, bookingId, null,
+                    "-".equals(f[3]) ? null : BookingStatus.valueOf(f[3]), BookingStatus.valueOf(f[4]), null);
+            case DELETE -> new Entry(seq, operation, bookingId, null, null, null, null);
+        };
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "\\0";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String value) {
+        if ("\\0".equals(value)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,742 @@
+package database;
+
+import model.AuditRow;
+import model.BookingStatus;
+import model.OccupancyCount;
+import model.RecurrenceRule;
+import model.Reservation;
+import model.StatusChange;
+import model.TableInfo;
+import model.Venue;
+import model.WaitlistEntry;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Запросы к таблицам бронирований. Не зависит от JavaFX, поэтому используется
+// и контроллером интерфейса, и headless-сервером
+public class BookingRepository implements BookingStore {
+    private final Venue venue;
+
+    public BookingRepository() {
+        this(DatabaseConnection.getDefaultVenue());
+    }
+
+    // Все запросы идут в базу заведения venue
+    public BookingRepository(Venue venue) {
+        this.venue = venue;
+    }
+
+    @Override
+    public List<TableInfo> loadTables() throws SQLException {
+        String sql = "SELECT table_number, capacity, location FROM tables WHERE is_active = true ORDER BY table_number";
+
+        List<TableInfo> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                result.add(new TableInfo(
+                        rs.getInt("table_number"),
+                        rs.getInt("capacity"),
+                        rs.getString("location")
+                ));
+            }
+        }
+        return result;
+    }
+
+    // Только бронирования, которые еще могут занимать стол
+    @Override
+    public List<Reservation> loadActiveReservations() throws SQLException {
+        String sql = "SELECT b.id, c.name, c.phone, b.guests, b.booking_date_time, " +
+                "t.table_number, bs.name as status, b.special_requests " +
+                "FROM bookings b " +
+                "JOIN customers c ON b.customer_id = c.id " +
+                "JOIN tables t ON b.table_id = t.id " +
+                "JOIN booking_status bs ON b.status_id = bs.id " +
+                "WHERE b.status_id <> ? AND b.booking_date_time >= CURRENT_DATE";
+
+        List<Reservation> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, toStatusId(BookingStatus.CANCELLED));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(readReservation(rs));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int saveBooking(Reservation booking) throws SQLException {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection(venue);
+            conn.setAutoCommit(false);
+
+            int bookingId = insertBooking(conn, booking, null);
+
+            conn.commit();
+            return bookingId;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) conn.close();
+        }
+    }
+
+    // Одна транзакция на всю группу: если хоть один стол занят (bookings_no_overlap),
+    // откатываются все бронирования
+    @Override
+    public List<Integer> saveBookings(List<Reservation> bookings) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(venue)) {
+            conn.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>(bookings.size());
+                for (Reservation booking : bookings) {
+                    ids.add(insertBooking(conn, booking, null));
+                }
+                conn.commit();
+                return ids;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // Бронирование с ключом журнала вставляется один раз (bookings_journal_key_idx): строка с тем же
+    // ключом уже есть — проверка по уникальному индексу срабатывает раньше bookings_no_overlap,
+    // вставки нет, и возвращается id сохраненной строки
+    @Override
+    public int saveJournaledBooking(Reservation booking, UUID journalKey) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(venue)) {
+            conn.setAutoCommit(false);
+            try {
+                int bookingId = insertBooking(conn, booking, journalKey);
+                conn.commit();
+                return bookingId;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private int insertBooking(Connection conn, Reservation booking, UUID journalKey) throws SQLException {
+        // 1. сохранение клиента
+        int customerId = saveOrGetCustomer(conn, booking.customerName(), booking.phone());
+
+        // 2. получение ID стола
+        int tableId = getTableId(conn, booking.tableNumber());
+
+        // 3. Сохраняем бронирование
+        String sql = "INSERT INTO bookings (customer_id, table_id, status_id, guests, booking_date_time, " +
+                "special_requests, journal_key) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                "ON CONFLICT (journal_key) WHERE journal_key IS NOT NULL DO NOTHING RETURNING id";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, customerId);
+            stmt.setInt(2, tableId);
+            stmt.setInt(3, toStatusId(booking.status()));
+            stmt.setInt(4, booking.guests());
+            stmt.setTimestamp(5, Timestamp.valueOf(booking.bookingDateTime()));
+            stmt.setString(6, booking.specialRequests());
+            stmt.setObject(7, journalKey, Types.OTHER);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        if (journalKey != null) {
+            return findByJournalKey(conn, journalKey);
+        }
+        throw new SQLException("Не удалось получить ID созданного бронирования");
+    }
+
+    private int findByJournalKey(Connection conn, UUID journalKey) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id FROM bookings WHERE journal_key = ?")) {
+            stmt.setObject(1, journalKey, Types.OTHER);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+                throw new SQLException("Бронирование с ключом журнала " + journalKey + " не найдено");
+            }
+        }
+    }
+
+    //обновление данных в бд
+    @Override
+    public void updateBooking(Reservation booking) throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        try {
+            conn = DatabaseConnection.getConnection(venue);
+            conn.setAutoCommit(false);
+
+            // Обновляем клиента
+            int customerId = saveOrGetCustomer(conn, booking.customerName(), booking.phone());
+
+            // Получаем ID стола
+            int tableId = getTableId(conn, booking.tableNumber());
+
+            // Обновляем бронирование
+            String sql = "UPDATE bookings SET customer_id = ?, table_id = ?, status_id = ?, " +
+                    "guests = ?, booking_date_time = ?, special_requests = ?, updated_at = CURRENT_TIMESTAMP " +
+                    "WHERE id = ?";
+
+            stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, customerId);
+            stmt.setInt(2, tableId);
+            stmt.setInt(3, toStatusId(booking.status()));
+            stmt.setInt(4, booking.guests());
+            stmt.setTimestamp(5, Timestamp.valueOf(booking.bookingDateTime()));
+            stmt.setString(6, booking.specialRequests());
+            stmt.setInt(7, booking.id());
+
+            int affectedRows = stmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new SQLException("Бронирование с ID " + booking.id() + " не найдено");
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (stmt != null) stmt.close();
+            if (conn != null) conn.close();
+        }
+    }
+
+    @Override
+    public void updateStatus(int bookingId, BookingStatus status) throws SQLException {
+        String sql = "UPDATE bookings SET status_id = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, toStatusId(status));
+            stmt.setInt(2, bookingId);
+            if (stmt.executeUpdate() == 0) {
+                throw new SQLException("Бронирование с ID " + bookingId + " не найдено");
+            }
+        }
+    }
+
+    // Пакетное изменение статусов одним UPDATE по массивам (id, ожидаемый статус, новый статус).
+    // Строка меняется, только если статус в БД все еще равен ожидаемому (его не успели поменять вручную).
+    // Возвращает фактически примененные изменения
+    @Override
+    public List<StatusChange> updateStatuses(List<StatusChange> changes) throws SQLException {
+        if (changes.isEmpty()) {
+            return List.of();
+        }
+        String sql = "UPDATE bookings b SET status_id = c.to_status, updated_at = CURRENT_TIMESTAMP " +
+                "FROM unnest(?::int[], ?::int[], ?::int[]) AS c(id, from_status, to_status) " +
+                "WHERE b.id = c.id AND b.status_id = c.from_status RETURNING b.id";
+
+        Integer[] ids = new Integer[changes.size()];
+        Integer[] fromStatuses = new Integer[changes.size()];
+        Integer[] toStatuses = new Integer[changes.size()];
+        for (int i = 0; i < changes.size(); i++) {
+            StatusChange change = changes.get(i);
+            ids[i] = change.bookingId();
+            fromStatuses[i] = toStatusId(change.from());
+            toStatuses[i] = toStatusId(change.to());
+        }
+
+        Set<Integer> updated = new HashSet<>();
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", ids));
+            stmt.setArray(2, conn.createArrayOf("integer", fromStatuses));
+            stmt.setArray(3, conn.createArrayOf("integer", toStatuses));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    updated.add(rs.getInt(1));
+                }
+            }
+        }
+
+        List<StatusChange> applied = new ArrayList<>(updated.size());
+        for (StatusChange change : changes) {
+            if (updated.contains(change.bookingId())) {
+                applied.add(change);
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public void deleteBooking(int bookingId) throws SQLException {
+        String sql = "DELETE FROM bookings WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, bookingId);
+            int affectedRows = stmt.executeUpdate();
+
+            if (affectedRows == 0) {
+                throw new SQLException("Бронирование с ID " + bookingId + " не найдено");
+            }
+        }
+    }
+
+    // Удаление выделенных бронирований одним DELETE; возвращает id удаленных
+    @Override
+    public List<Integer> deleteBookings(List<Integer> bookingIds) throws SQLException {
+        if (bookingIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = "DELETE FROM bookings WHERE id = ANY(?) RETURNING id";
+
+        List<Integer> deleted = new ArrayList<>(bookingIds.size());
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", bookingIds.toArray(new Integer[0])));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    deleted.add(rs.getInt(1));
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Integer> archiveFinishedBookings(LocalDateTime before, int limit) throws SQLException {
+        String sql = "SELECT * FROM archive_bookings(?, ?)";
+
+        List<Integer> moved = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(before));
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    moved.add(rs.getInt(1));
+                }
+            }
+        }
+        return moved;
+    }
+
+    // Условие по booking_date_time позволяет PostgreSQL читать только нужные месячные секции.
+    // Архив не меняется с рабочего места, поэтому читается с реплики, если она есть
+    @Override
+    public List<Reservation> loadArchivedReservations(LocalDate from, LocalDate to) throws SQLException {
+        String sql = "SELECT b.id, c.name, c.phone, b.guests, b.booking_date_time, " +
+                "t.table_number, bs.name as status, b.special_requests " +
+                "FROM bookings_archive b " +
+                "JOIN customers c ON b.customer_id = c.id " +
+                "JOIN tables t ON b.table_id = t.id " +
+                "JOIN booking_status bs ON b.status_id = bs.id " +
+                "WHERE b.booking_date_time >= ? AND b.booking_date_time < ? " +
+                "ORDER BY b.booking_date_time";
+
+        List<Reservation> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(2, Timestamp.valueOf(to.atStartOfDay()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(readReservation(rs));
+                }
+            }
+        }
+        return result;
+    }
+
+    // Агрегация выполняется в PostgreSQL: в приложение приходит не больше
+    // столов × 7 × 24 строк. Условия по дате используют частичный индекс по времени
+    // в bookings и отсекают лишние месячные секции архива. Отчет читается с реплики, если она есть
+    @Override
+    public List<OccupancyCount> loadOccupancy(LocalDate from, LocalDate to, int slotHours) throws SQLException {
+        String sql = "SELECT t.table_number, " +
+                "EXTRACT(ISODOW FROM o.booking_date_time)::int AS dow, " +
+                "EXTRACT(HOUR FROM o.booking_date_time)::int + s.shift AS hour, " +
+                "count(*) AS bookings " +
+                "FROM (SELECT table_id, booking_date_time FROM bookings " +
+                "      WHERE booking_date_time >= ? AND booking_date_time < ? AND status_id <> ? " +
+                "      UNION ALL " +
+                "      SELECT table_id, booking_date_time FROM bookings_archive " +
+                "      WHERE booking_date_time >= ? AND booking_date_time < ? AND status_id <> ?) o " +
+                "JOIN tables t ON t.id = o.table_id " +
+                "CROSS JOIN generate_series(0, ? - 1) AS s(shift) " +
+                "GROUP BY 1, 2, 3";
+
+        List<OccupancyCount> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getReadConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+            Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+            int cancelled = toStatusId(BookingStatus.CANCELLED);
+            stmt.setTimestamp(1, start);
+            stmt.setTimestamp(2, end);
+            stmt.setInt(3, cancelled);
+            stmt.setTimestamp(4, start);
+            stmt.setTimestamp(5, end);
+            stmt.setInt(6, cancelled);
+            stmt.setInt(7, slotHours);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new OccupancyCount(rs.getInt("table_number"), rs.getInt("dow"),
+                            rs.getInt("hour"), rs.getInt("bookings")));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<WaitlistEntry> loadWaitlist(LocalDate from) throws SQLException {
+        String deleteSql = "DELETE FROM waitlist WHERE wait_date < ?";
+        String selectSql = "SELECT id, customer_name, phone, guests, wait_date, from_hour, to_hour, created_at " +
+                "FROM waitlist WHERE wait_date >= ?";
+
+        List<WaitlistEntry> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection(venue)) {
+            try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+                stmt.setDate(1, Date.valueOf(from));
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                stmt.setDate(1, Date.valueOf(from));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(new WaitlistEntry(
+                                rs.getInt("id"),
+                                rs.getString("customer_name"),
+                                rs.getString("phone"),
+                                rs.getInt("guests"),
+                                rs.getDate("wait_date").toLocalDate(),
+                                rs.getInt("from_hour"),
+                                rs.getInt("to_hour"),
+                                rs.getTimestamp("created_at").toLocalDateTime()));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int saveWaitlistEntry(WaitlistEntry entry) throws SQLException {
+        String sql = "INSERT INTO waitlist (customer_name, phone, guests, wait_date, from_hour, to_hour, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, entry.customerName());
+            stmt.setString(2, entry.phone());
+            stmt.setInt(3, entry.guests());
+            stmt.setDate(4, Date.valueOf(entry.date()));
+            stmt.setInt(5, entry.fromHour());
+            stmt.setInt(6, entry.toHour());
+            stmt.setTimestamp(7, Timestamp.valueOf(entry.createdAt()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    // Одним запросом на пачку: при серии отмен предложенные записи удаляются разом
+    @Override
+    public void deleteWaitlistEntries(List<Integer> entryIds) throws SQLException {
+        String sql = "DELETE FROM waitlist WHERE id = ANY(?)";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("integer", entryIds.toArray()));
+            stmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<RecurrenceRule> loadRecurrenceRules(LocalDate from) throws SQLException {
+        String sql = "SELECT id, customer_name, phone, guests, table_number, start_hour, frequency, " +
+                "start_date, end_date, exceptions, special_requests " +
+                "FROM recurring_bookings WHERE end_date IS NULL OR end_date >= ?";
+
+        List<RecurrenceRule> result = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(from));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Set<LocalDate> exceptions = new HashSet<>();
+                    for (Object date : (Object[]) rs.getArray("exceptions").getArray()) {
+                        exceptions.add(((Date) date).toLocalDate());
+                    }
+                    Date endDate = rs.getDate("end_date");
+                    result.add(new RecurrenceRule(
+                            rs.getInt("id"),
+                            rs.getString("customer_name"),
+                            rs.getString("phone"),
+                            rs.getInt("guests"),
+                            rs.getInt("table_number"),
+                            rs.getInt("start_hour"),
+                            RecurrenceRule.Frequency.valueOf(rs.getString("frequency")),
+                            rs.getDate("start_date").toLocalDate(),
+                            endDate != null ? endDate.toLocalDate() : null,
+                            exceptions,
+                            rs.getString("special_requests")));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int saveRecurrenceRule(RecurrenceRule rule) throws SQLException {
+        String sql = "INSERT INTO recurring_bookings (customer_name, phone, guests, table_number, start_hour, " +
+                "frequency, start_date, end_date, exceptions, special_requests) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, rule.customerName());
+            stmt.setString(2, rule.phone());
+            stmt.setInt(3, rule.guests());
+            stmt.setInt(4, rule.tableNumber());
+            stmt.setInt(5, rule.hour());
+            stmt.setString(6, rule.frequency().name());
+            stmt.setDate(7, Date.valueOf(rule.startDate()));
+            stmt.setDate(8, rule.endDate() != null ? Date.valueOf(rule.endDate()) : null);
+            stmt.setArray(9, conn.createArrayOf("date",
+                    rule.exceptions().stream().map(Date::valueOf).toArray()));
+            stmt.setString(10, rule.specialRequests());
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    @Override
+    public void addRecurrenceException(int ruleId, LocalDate date) throws SQLException {
+        String sql = "UPDATE recurring_bookings SET exceptions = array_append(exceptions, ?) " +
+                "WHERE id = ? AND NOT (? = ANY(exceptions))";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(date));
+            stmt.setInt(2, ruleId);
+            stmt.setDate(3, Date.valueOf(date));
+            stmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public void deleteRecurrenceRule(int ruleId) throws SQLException {
+        String sql = "DELETE FROM recurring_bookings WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, ruleId);
+            stmt.executeUpdate();
+        }
+    }
+
+    // Полный аудит читает bookings и архив без сортировки (сортирует и проверяет приложение
+    // параллельно по столам). Инкрементальный — только дни столов, где менялись бронирования,
+    // по индексам bookings_updated_at_idx и bookings_table_time_active_idx.
+    // Курсор с fetchSize не держит миллионы строк в памяти драйвера. Читается с реплики, если она есть:
+    // ее отставание меньше перекрытия, с которым следующий инкрементальный аудит берет изменения
+    @Override
+    public LocalDateTime streamAuditRows(LocalDateTime changedSince, Consumer<AuditRow> sink) throws SQLException {
+        String columns = "t.table_number, t.capacity, b.guests, b.booking_date_time";
+        String sql = changedSince == null
+                ? "SELECT b.id, " + columns + ", false AS archived FROM bookings b " +
+                  "JOIN tables t ON b.table_id = t.id WHERE b.status_id <> ? " +
+                  "UNION ALL " +
+                  "SELECT b.id, " + columns + ", true FROM bookings_archive b " +
+                  "JOIN tables t ON b.table_id = t.id WHERE b.status_id <> ?"
+                : "WITH changed AS (SELECT DISTINCT table_id, date_trunc('day', booking_date_time) AS day " +
+                  "FROM bookings WHERE updated_at > ?) " +
+                  "SELECT b.id, " + columns + ", false AS archived FROM changed " +
+                  "JOIN bookings b ON b.table_id = changed.table_id " +
+                  "AND b.booking_date_time >= changed.day AND b.booking_date_time < changed.day + interval '1 day' " +
+                  "JOIN tables t ON b.table_id = t.id WHERE b.status_id <> ?";
+
+        try (Connection conn = DatabaseConnection.getReadConnection(venue)) {
+            conn.setAutoCommit(false);
+            try {
+                LocalDateTime snapshot;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT now()::timestamp")) {
+                    rs.next();
+                    snapshot = rs.getTimestamp(1).toLocalDateTime();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setFetchSize(10_000);
+                    int cancelled = toStatusId(BookingStatus.CANCELLED);
+                    if (changedSince == null) {
+                        stmt.setInt(1, cancelled);
+                        stmt.setInt(2, cancelled);
+                    } else {
+                        stmt.setTimestamp(1, Timestamp.valueOf(changedSince));
+                        stmt.setInt(2, cancelled);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            sink.accept(new AuditRow(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4),
+                                    rs.getTimestamp(5).toLocalDateTime(), rs.getBoolean(6)));
+                        }
+                    }
+                }
+                conn.commit();
+                return snapshot;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public LocalDateTime loadLastAuditSnapshot() throws SQLException {
+        String sql = "SELECT max(snapshot_at) FROM booking_audit_runs";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            Timestamp snapshot = rs.getTimestamp(1);
+            return snapshot != null ? snapshot.toLocalDateTime() : null;
+        }
+    }
+
+    @Override
+    public void saveAuditRun(LocalDateTime snapshotAt, boolean incremental, int rowsChecked,
+                             int overlaps, int overCapacity) throws SQLException {
+        String sql = "INSERT INTO booking_audit_runs (snapshot_at, incremental, rows_checked, overlaps, over_capacity) " +
+                "VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(snapshotAt));
+            stmt.setBoolean(2, incremental);
+            stmt.setInt(3, rowsChecked);
+            stmt.setInt(4, overlaps);
+            stmt.setInt(5, overCapacity);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static Reservation readReservation(ResultSet rs) throws SQLException {
+        return new Reservation(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("phone"),
+                rs.getInt("guests"),
+                rs.getTimestamp("booking_date_time").toLocalDateTime(),
+                rs.getInt("table_number"),
+                toBookingStatus(rs.getString("status")),
+                rs.getString("special_requests")
+        );
+    }
+
+    private int saveOrGetCustomer(Connection conn, String name, String phone) throws SQLException {
+        //поиск данных
+        String findSql = "SELECT id FROM customers WHERE phone = ?";
+        try (PreparedStatement findStmt = conn.prepareStatement(findSql)) {
+            findStmt.setString(1, phone);
+            try (ResultSet rs = findStmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("id");
+                }
+            }
+        }
+
+        // Если не найден, создаем нового
+        String insertSql = "INSERT INTO customers (name, phone) VALUES (?, ?) RETURNING id";
+        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+            insertStmt.setString(1, name);
+            insertStmt.setString(2, phone);
+            try (ResultSet rs = insertStmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("id");
+                } else {
+                    throw new SQLException("Не удалось получить ID созданного клиента");
+                }
+            }
+        }
+    }
+
+    private int getTableId(Connection conn, int tableNumber) throws SQLException {
+        String sql = "SELECT id FROM tables WHERE table_number = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, tableNumber);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("id");
+                } else {
+                    throw new SQLException("Стол с номером " + tableNumber + " не найден");
+                }
+            }
+        }
+    }
+
+    // Нарушение ограничения bookings_no_overlap: стол на это время уже занят
+    public static boolean isSlotTaken(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if ("23P01".equals(current.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static BookingStatus toBookingStatus(String status) {
+        switch (status.toUpperCase()) {
+            case "CONFIRMED":
+                return BookingStatus.CONFIRMED;
+            case "CANCELLED":
+                return BookingStatus.CANCELLED;
+            case "COMPLETED":
+                return BookingStatus.COMPLETED;
+            default:
+                return BookingStatus.PENDING;
+        }
+    }
+
+    public static int toStatusId(BookingStatus status) {
+        switch (status) {
+            case CONFIRMED:
+                return 2;
+            case CANCELLED:
+                return 3;
+            case COMPLETED:
+                return 4;
+            default:
+                return 1;
+        }
+    }
+}
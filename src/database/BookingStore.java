@@ -0,0 +1,88 @@
+package database;
+
+import model.AuditRow;
+import model.BookingStatus;
+import model.OccupancyCount;
+import model.RecurrenceRule;
+import model.Reservation;
+import model.StatusChange;
+import model.TableInfo;
+import model.WaitlistEntry;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Хранилище бронирований. Основная реализация — BookingRepository (PostgreSQL),
+// InMemoryBookingStore заменяет БД в нагрузочных прогонах
+public interface BookingStore {
+
+    List<TableInfo> loadTables() throws SQLException;
+
+    List<Reservation> loadActiveReservations() throws SQLException;
+
+    int saveBooking(Reservation booking) throws SQLException;
+
+    // Сохранение бронирования из локального журнала. Повторный вызов с тем же ключом
+    // (отправка журнала после сбоя) не создает второе бронирование, а возвращает id первого
+    int saveJournaledBooking(Reservation booking, UUID journalKey) throws SQLException;
+
+    // Групповая бронь на несколько столов: сохраняются все бронирования или ни одного.
+    // Возвращает id в порядке bookings
+    List<Integer> saveBookings(List<Reservation> bookings) throws SQLException;
+
+    void updateBooking(Reservation booking) throws SQLException;
+
+    void updateStatus(int bookingId, BookingStatus status) throws SQLException;
+
+    List<StatusChange> updateStatuses(List<StatusChange> changes) throws SQLException;
+
+    void deleteBooking(int bookingId) throws SQLException;
+
+    // Удаляет бронирования одним запросом; возвращает id удаленных (уже удаленные пропускаются)
+    List<Integer> deleteBookings(List<Integer> bookingIds) throws SQLException;
+
+    // Переносит в архив до limit завершенных и отмененных бронирований,
+    // начавшихся раньше before; возвращает id перенесенных
+    List<Integer> archiveFinishedBookings(LocalDateTime before, int limit) throws SQLException;
+
+    // Архивные бронирования в интервале [from, to)
+    List<Reservation> loadArchivedReservations(LocalDate from, LocalDate to) throws SQLException;
+
+    // Занятость столов по дням недели и часам за [from, to), включая архив.
+    // Бронирование занимает стол на slotHours часов подряд
+    List<OccupancyCount> loadOccupancy(LocalDate from, LocalDate to, int slotHours) throws SQLException;
+
+    // Лист ожидания с даты from; записи на более ранние дни удаляются
+    List<WaitlistEntry> loadWaitlist(LocalDate from) throws SQLException;
+
+    // Возвращает id новой записи
+    int saveWaitlistEntry(WaitlistEntry entry) throws SQLException;
+
+    void deleteWaitlistEntries(List<Integer> entryIds) throws SQLException;
+
+    // Правила регулярных броней, действующие на дату from и позже
+    List<RecurrenceRule> loadRecurrenceRules(LocalDate from) throws SQLException;
+
+    // Возвращает id нового правила
+    int saveRecurrenceRule(RecurrenceRule rule) throws SQLException;
+
+    // Пропуск одного повторения
+    void addRecurrenceException(int ruleId, LocalDate date) throws SQLException;
+
+    void deleteRecurrenceRule(int ruleId) throws SQLException;
+
+    // Неотмененные бронирования для аудита, потоком в sink. changedSince == null — вся история
+    // вместе с архивом; иначе — все бронирования тех дней и столов, где после changedSince
+    // что-то менялось. Возвращает время БД, на которое прочитаны строки
+    LocalDateTime streamAuditRows(LocalDateTime changedSince, Consumer<AuditRow> sink) throws SQLException;
+
+    // snapshot_at последнего аудита или null, если аудит еще не запускался
+    LocalDateTime loadLastAuditSnapshot() throws SQLException;
+
+    void saveAuditRun(LocalDateTime snapshotAt, boolean incremental, int rowsChecked,
+                      int overlaps, int overCapacity) throws SQLException;
+}
@@ -0,0 +1,173 @@
+package database;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.Venue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Небольшой пул соединений. Выдает обертку над соединением, у которой close()
+// возвращает соединение в пул, поэтому существующий код с try-with-resources
+// продолжает работать без изменений
+public class ConnectionPool {
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+    private static final LatencyHistogram ACQUIRE_WAIT = Metrics.histogram("db.pool.acquireWait");
+    private static final Counter ACQUIRE_TIMEOUTS = Metrics.counter("db.pool.acquireTimeouts");
+    private static final Counter CONNECTIONS_OPENED = Metrics.counter("db.pool.connectionsOpened");
+
+    private final Venue venue;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final Semaphore permits;
+    private final BlockingQueue<Connection> idle;
+    private volatile boolean shutdown;
+
+    public ConnectionPool(Venue venue, int maxSize, long acquireTimeoutMs) {
+        this.venue = venue;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.permits = new Semaphore(maxSize, true);
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    public Connection acquire() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Пул соединений закрыт");
+        }
+        long start = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            ACQUIRE_WAIT.recordSince(start);
+            if (!acquired) {
+                ACQUIRE_TIMEOUTS.increment();
+                throw new SQLTransientConnectionException(
+                        "Нет свободных соединений с БД за " + acquireTimeoutMs + " мс", "08004");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Ожидание соединения прервано", "08004", e);
+        }
+
+        try {
+            Connection physical = idle.poll();
+            if (physical == null || physical.isClosed()) {
+                physical = DatabaseConnection.openConnection(venue);
+                CONNECTIONS_OPENED.increment();
+            }
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        Connection conn;
+        while ((conn = idle.poll()) != null) {
+            closeQuietly(conn);
+        }
+    }
+
+    private void release(Connection physical) {
+        try {
+            // Незавершенная транзакция не должна достаться следующему владельцу
+            if (!physical.isClosed()) {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+            }
+            if (shutdown || physical.isClosed() || !idle.offer(physical)) {
+                closeQuietly(physical);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Соединение не удалось вернуть в пул, оно будет закрыто", e);
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            release(physical);
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || physical.isClosed();
+                    case "unwrap":
+                        if (((Class<?>) args[0]).isInstance(physical)) {
+                            return physical;
+                        }
+                        break;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled[" + physical + "]";
+                    default:
+                        if (closed) {
+                            throw new SQLException("Соединение уже возвращено в пул");
+                        }
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Ошибка при закрытии соединения", e);
+        }
+    }
+}
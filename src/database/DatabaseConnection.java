@@ -1,39 +1,162 @@
 package database;
 
+import metrics.Metrics;
+import model.Venue;
+
+import java.io.IOException;
 import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Подключения к БД заведений. Каждое заведение (cafe.venues) — отдельная база на сервере
+// со своими таблицами, индексами и пулом соединений: нагрузка одного заведения
+// не занимает соединения и не замедляет запросы другого
 public class DatabaseConnection {
-    private static final String URL = "jdbc:postgresql://localhost:5432/cafe_booking";
+    private static final String SERVER_URL = "jdbc:postgresql://localhost:5432/";
     private static final String USERNAME = "postgres";
     private static final String PASSWORD = "muliko08m";
 
-    private static Connection connection;
+    private static final List<Venue> venues = Venue.parseList(
+            System.getProperty("cafe.venues", Venue.MAIN_ID + ":Кафе:cafe_booking"));
 
-    public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            Properties props = new Properties();
-            props.setProperty("user", USERNAME);
-            props.setProperty("password", PASSWORD);
-            props.setProperty("ssl", "false");
+    // Соединения выдаются из пула, чтобы с БД могли работать несколько потоков
+    // (фоновая загрузка, HTTP API). close() возвращает соединение в пул.
+    // Пул заведения создается при первом обращении к нему
+    private static final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+    // Реплики только для чтения: cafe.db.replica.<id заведения> (для основного заведения
+    // также cafe.db.replica) — имя БД на сервере по умолчанию или полный JDBC URL.
+    // Optional.empty() — у заведения реплики нет
+    private static final Map<String, Optional<ReplicaRouter>> replicas = new ConcurrentHashMap<>();
+    // Допустимое по умолчанию отставание реплики для отчетов
+    private static final long REPLICA_MAX_LAG_MS = Long.getLong("cafe.db.replica.maxLagMs", 5000L);
+
+    public static List<Venue> getVenues() {
+        return venues;
+    }
 
-            connection = DriverManager.getConnection(URL, props);
+    // Первое заведение в cafe.venues; с ним работают HTTP API и нагрузочные прогоны
+    public static Venue getDefaultVenue() {
+        return venues.get(0);
+    }
+
+    // Заведение по id из cafe.venues (параметр --venue запуска без интерфейса)
+    public static Venue findVenue(String id) {
+        for (Venue venue : venues) {
+            if (venue.id().equals(id)) {
+                return venue;
+            }
         }
-        return connection;
+        throw new IllegalArgumentException("Неизвестное заведение: " + id);
     }
 
-    public static void closeConnection() {
-        if (connection != null) {
+    public static Connection getConnection() throws SQLException {
+        return getConnection(getDefaultVenue());
+    }
+
+    public static Connection getConnection(Venue venue) throws SQLException {
+        return getPool(venue).acquire();
+    }
+
+    // Соединение для чтения, которому не важны собственные последние изменения (отчеты, история, загрузка):
+    // с реплики, если она задана и отстает не больше cafe.db.replica.maxLagMs, иначе с основной БД.
+    // Запись и чтение сразу после своей записи идут через getConnection
+    public static Connection getReadConnection(Venue venue) throws SQLException {
+        return getReadConnection(venue, REPLICA_MAX_LAG_MS);
+    }
+
+    public static Connection getReadConnection(Venue venue, long maxLagMs) throws SQLException {
+        ReplicaRouter router = replicas.computeIfAbsent(venue.id(), id -> {
+            String database = System.getProperty("cafe.db.replica." + id,
+                    Venue.MAIN_ID.equals(id) ? System.getProperty("cafe.db.replica") : null);
+            return database == null || database.isBlank()
+                    ? Optional.empty()
+                    : Optional.of(new ReplicaRouter(venue, database.trim()));
+        }).orElse(null);
+        Connection conn = router != null ? router.acquire(Math.min(maxLagMs, REPLICA_MAX_LAG_MS)) : null;
+        return conn != null ? conn : getConnection(venue);
+    }
+
+    public static ConnectionPool getPool() {
+        return getPool(getDefaultVenue());
+    }
+
+    public static ConnectionPool getPool(Venue venue) {
+        return pools.computeIfAbsent(venue.id(), id -> {
+            ConnectionPool pool = new ConnectionPool(venue,
+                    Integer.getInteger("cafe.db.poolSize", 8),
+                    Long.getLong("cafe.db.acquireTimeoutMs", 5000L));
+            Metrics.gauge(venue.scopedName("db.pool.active"), pool::getActiveCount);
+            Metrics.gauge(venue.scopedName("db.pool.idle"), pool::getIdleCount);
+            Metrics.gauge(venue.scopedName("db.pool.waiting"), pool::getWaitingCount);
+            Metrics.gauge(venue.scopedName("db.pool.max"), pool::getMaxSize);
+            return pool;
+        });
+    }
+
+    // Отдельное соединение для длительных операций (например, чтения курсором),
+    // чтобы не мешать общему соединению формы и не закрываться вместе с ним.
+    // Все запросы через него замеряются (см. JdbcInstrumentation)
+    public static Connection openConnection(Venue venue) throws SQLException {
+        return JdbcInstrumentation.wrap(openRawConnection(venue), venue);
+    }
+
+    // Соединение без замеров — для служебных запросов самой инструментации
+    static Connection openRawConnection(Venue venue) throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", USERNAME);
+        props.setProperty("password", PASSWORD);
+        props.setProperty("ssl", "false");
+        // Недоступная БД должна обнаруживаться быстро: после этого работа идет через журнал
+        props.setProperty("connectTimeout", System.getProperty("cafe.db.connectTimeoutSeconds", "3"));
+
+        String url = venue.database().startsWith("jdbc:") ? venue.database() : SERVER_URL + venue.database();
+        return DriverManager.getConnection(url, props);
+    }
+
+    public static List<SlowQueryLog.Entry> getRecentSlowQueries() {
+        return JdbcInstrumentation.getSlowQueries().recent();
+    }
+
+    public static void ensureSchema() {
+        ensureSchema(getDefaultVenue());
+    }
+
+    // Применяет недостающие миграции схемы (SchemaMigrator) и проверяет,
+    // что на месте индексы, на которые рассчитаны запросы приложения.
+    // Схема у каждого заведения своя и обновляется при первом подключении к нему
+    // Проверка выполняется и после неудачной миграции, чтобы пропавшее ограничение было видно сразу
+    public static void ensureSchema(Venue venue) {
+        try (Connection conn = getConnection(venue)) {
             try {
-                connection.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+                SchemaMigrator.migrate(conn);
+            } catch (IOException | SQLException e) {
+                System.out.println("Не удалось применить миграции схемы (" + venue.name() + "): " + e.getMessage());
+            }
+            List<String> missing = SchemaMigrator.checkIndexes(conn);
+            if (!missing.isEmpty()) {
+                System.out.println("ВНИМАНИЕ: отсутствуют или невалидны индексы и ограничения (" + venue.name() + "): " +
+                        String.join(", ", missing));
             }
+        } catch (SQLException e) {
+            System.out.println("Не удалось проверить схему: " + e.getMessage());
         }
     }
 
+    public static void closeConnection() {
+        pools.values().forEach(ConnectionPool::shutdown);
+        replicas.values().forEach(router -> router.ifPresent(ReplicaRouter::shutdown));
+    }
+
     public static void testConnection() {
-        try (Connection conn = getConnection()) {
+        testConnection(getDefaultVenue());
+    }
+
+    public static void testConnection(Venue venue) {
+        try (Connection conn = getConnection(venue)) {
             System.out.println("Подключение к PostgreSQL установлено успешно!");
         } catch (SQLException e) {
             System.out.println("Ошибка подключения к PostgreSQL: " + e.getMessage());
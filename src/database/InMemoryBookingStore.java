@@ -0,0 +1,337 @@
+package database;
+
+import model.AuditRow;
+import model.BookingStatus;
+import model.OccupancyCount;
+import model.RecurrenceRule;
+import model.Reservation;
+import model.StatusChange;
+import model.TableInfo;
+import model.WaitlistEntry;
+import service.Availability;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Хранилище в памяти вместо PostgreSQL. Повторяет поведение ограничения
+// bookings_no_overlap (ошибка с SQLState 23P01) и может добавлять задержку
+// на каждый вызов, чтобы имитировать сетевой обмен с БД
+public class InMemoryBookingStore implements BookingStore {
+    private final List<TableInfo> tables;
+    private final long latencyNanos;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<Integer, Reservation> bookings = new HashMap<>();
+    private final Map<UUID, Integer> journalKeys = new HashMap<>();
+    private final Map<Integer, Reservation> archive = new HashMap<>();
+    private final Map<Integer, WaitlistEntry> waitlist = new HashMap<>();
+    private final Map<Integer, RecurrenceRule> rules = new HashMap<>();
+    private LocalDateTime lastAuditSnapshot;
+
+    public InMemoryBookingStore(List<TableInfo> tables, long latencyMicros) {
+        this.tables = List.copyOf(tables);
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+    }
+
+    @Override
+    public List<TableInfo> loadTables() {
+        simulateLatency();
+        return tables;
+    }
+
+    @Override
+    public synchronized List<Reservation> loadActiveReservations() {
+        simulateLatency();
+        List<Reservation> result = new ArrayList<>();
+        for (Reservation booking : bookings.values()) {
+            if (booking.status() != BookingStatus.CANCELLED) {
+                result.add(booking);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int saveBooking(Reservation booking) throws SQLException {
+        simulateLatency();
+        synchronized (this) {
+            checkOverlap(booking);
+            int id = nextId.getAndIncrement();
+            bookings.put(id, booking.withId(id));
+            return id;
+        }
+    }
+
+    @Override
+    public int saveJournaledBooking(Reservation booking, UUID journalKey) throws SQLException {
+        simulateLatency();
+        synchronized (this) {
+            Integer saved = journalKeys.get(journalKey);
+            if (saved != null) {
+                return saved;
+            }
+            checkOverlap(booking);
+            int id = nextId.getAndIncrement();
+            bookings.put(id, booking.withId(id));
+            journalKeys.put(journalKey, id);
+            return id;
+        }
+    }
+
+    @Override
+    public List<Integer> saveBookings(List<Reservation> group) throws SQLException {
+        simulateLatency();
+        synchronized (this) {
+            for (Reservation booking : group) {
+                checkOverlap(booking);
+            }
+            List<Integer> ids = new ArrayList<>(group.size());
+            for (Reservation booking : group) {
+                int id = nextId.getAndIncrement();
+                bookings.put(id, booking.withId(id));
+                ids.add(id);
+            }
+            return ids;
+        }
+    }
+
+    @Override
+    public void updateBooking(Reservation booking) throws SQLException {
+        simulateLatency();
+        synchronized (this) {
+            requireExisting(booking.id());
+            checkOverlap(booking);
+            bookings.put(booking.id(), booking);
+        }
+    }
+
+    @Override
+    public void updateStatus(int bookingId, BookingStatus status) throws SQLException {
+        simulateLatency();
+        synchronized (this) {
+            Reservation existing = requireExisting(bookingId);
+            Reservation updated = existing.withStatus(status);
+            checkOverlap(updated);
+            bookings.put(bookingId, updated);
+        }
+    }
+
+    @Override
+    public List<StatusChange> updateStatuses(List<StatusChange> changes) {
+        simulateLatency();
+        List<StatusChange> applied = new ArrayList<>();
+        synchronized (this) {
+            for (StatusChange change : changes) {
+                Reservation existing = bookings.get(change.bookingId());
+                if (existing != null && existing.status() == change.from()) {
+                    bookings.put(change.bookingId(), existing.withStatus(change.to()));
+                    applied.add(change);
+                }
+            }
+        }
+        return applied;
+    }
+
+    @Override
+    public void deleteBooking(int bookingId) throws SQLException {
+        simulateLatency();
+        synchronized (this) {
+            if (bookings.remove(bookingId) == null) {
+                throw new SQLException("Бронирование с ID " + bookingId + " не найдено");
+            }
+        }
+    }
+
+    @Override
+    public List<Integer> deleteBookings(List<Integer> bookingIds) {
+        simulateLatency();
+        List<Integer> deleted = new ArrayList<>();
+        synchronized (this) {
+            for (int bookingId : bookingIds) {
+                if (bookings.remove(bookingId) != null) {
+                    deleted.add(bookingId);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized List<Integer> archiveFinishedBookings(LocalDateTime before, int limit) {
+        simulateLatency();
+        List<Integer> moved = new ArrayList<>();
+        for (Reservation booking : List.copyOf(bookings.values())) {
+            if (moved.size() >= limit) {
+                break;
+            }
+            boolean finished = booking.status() == BookingStatus.CANCELLED || booking.status() == BookingStatus.COMPLETED;
+            if (finished && booking.bookingDateTime().isBefore(before)) {
+                bookings.remove(booking.id());
+                archive.put(booking.id(), booking);
+                moved.add(booking.id());
+            }
+        }
+        return moved;
+    }
+
+    @Override
+    public synchronized List<Reservation> loadArchivedReservations(LocalDate from, LocalDate to) {
+        simulateLatency();
+        List<Reservation> result = new ArrayList<>();
+        for (Reservation booking : archive.values()) {
+            LocalDate date = booking.bookingDateTime().toLocalDate();
+            if (!date.isBefore(from) && date.isBefore(to)) {
+                result.add(booking);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<OccupancyCount> loadOccupancy(LocalDate from, LocalDate to, int slotHours) {
+        simulateLatency();
+        Map<List<Integer>, Integer> counts = new HashMap<>();
+        for (Map<Integer, Reservation> source : List.of(bookings, archive)) {
+            for (Reservation booking : source.values()) {
+                LocalDate date = booking.bookingDateTime().toLocalDate();
+                if (booking.status() == BookingStatus.CANCELLED || date.isBefore(from) || !date.isBefore(to)) {
+                    continue;
+                }
+                for (int shift = 0; shift < slotHours; shift++) {
+                    counts.merge(List.of(booking.tableNumber(), date.getDayOfWeek().getValue(),
+                            booking.bookingDateTime().getHour() + shift), 1, Integer::sum);
+                }
+            }
+        }
+        List<OccupancyCount> result = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> result.add(new OccupancyCount(key.get(0), key.get(1), key.get(2), count)));
+        return result;
+    }
+
+    @Override
+    public synchronized List<WaitlistEntry> loadWaitlist(LocalDate from) {
+        simulateLatency();
+        waitlist.values().removeIf(entry -> entry.date().isBefore(from));
+        return new ArrayList<>(waitlist.values());
+    }
+
+    @Override
+    public synchronized int saveWaitlistEntry(WaitlistEntry entry) {
+        simulateLatency();
+        int id = nextId.getAndIncrement();
+        waitlist.put(id, entry.withId(id));
+        return id;
+    }
+
+    @Override
+    public synchronized void deleteWaitlistEntries(List<Integer> entryIds) {
+        simulateLatency();
+        entryIds.forEach(waitlist::remove);
+    }
+
+    @Override
+    public synchronized List<RecurrenceRule> loadRecurrenceRules(LocalDate from) {
+        simulateLatency();
+        List<RecurrenceRule> result = new ArrayList<>();
+        for (RecurrenceRule rule : rules.values()) {
+            if (rule.endDate() == null || !rule.endDate().isBefore(from)) {
+                result.add(rule);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int saveRecurrenceRule(RecurrenceRule rule) {
+        simulateLatency();
+        int id = nextId.getAndIncrement();
+        rules.put(id, rule.withId(id));
+        return id;
+    }
+
+    @Override
+    public synchronized void addRecurrenceException(int ruleId, LocalDate date) throws SQLException {
+        simulateLatency();
+        RecurrenceRule rule = rules.get(ruleId);
+        if (rule == null) {
+            throw new SQLException("Правило с ID " + ruleId + " не найдено");
+        }
+        rules.put(ruleId, rule.withExceptions(Set.of(date)));
+    }
+
+    @Override
+    public synchronized void deleteRecurrenceRule(int ruleId) {
+        simulateLatency();
+        rules.remove(ruleId);
+    }
+
+    // Время изменений здесь не хранится, поэтому и инкрементальный аудит читает все бронирования
+    @Override
+    public synchronized LocalDateTime streamAuditRows(LocalDateTime changedSince, Consumer<AuditRow> sink) {
+        simulateLatency();
+        Map<Integer, Integer> capacities = new HashMap<>();
+        for (TableInfo table : tables) {
+            capacities.put(table.tableNumber(), table.capacity());
+        }
+        for (Map<Integer, Reservation> source : List.of(bookings, archive)) {
+            for (Reservation booking : source.values()) {
+                if (booking.status() != BookingStatus.CANCELLED) {
+                    sink.accept(new AuditRow(booking.id(), booking.tableNumber(),
+                            capacities.getOrDefault(booking.tableNumber(), 0), booking.guests(),
+                            booking.bookingDateTime(), source == archive));
+                }
+            }
+        }
+        return LocalDateTime.now();
+    }
+
+    @Override
+    public synchronized LocalDateTime loadLastAuditSnapshot() {
+        simulateLatency();
+        return lastAuditSnapshot;
+    }
+
+    @Override
+    public synchronized void saveAuditRun(LocalDateTime snapshotAt, boolean incremental, int rowsChecked,
+                                          int overlaps, int overCapacity) {
+        simulateLatency();
+        lastAuditSnapshot = snapshotAt;
+    }
+
+    private Reservation requireExisting(int bookingId) throws SQLException {
+        Reservation existing = bookings.get(bookingId);
+        if (existing == null) {
+            throw new SQLException("Бронирование с ID " + bookingId + " не найдено");
+        }
+        return existing;
+    }
+
+    private void checkOverlap(Reservation booking) throws SQLException {
+        if (booking.status() == BookingStatus.CANCELLED) {
+            return;
+        }
+        for (Reservation other : bookings.values()) {
+            if (other.id() != booking.id() && other.tableNumber() == booking.tableNumber() &&
+                    Availability.blocks(other.status(), other.bookingDateTime(), booking.bookingDateTime())) {
+                throw new SQLException("conflicting key value violates exclusion constraint \"bookings_no_overlap\"",
+                        "23P01");
+            }
+        }
+    }
+
+    private void simulateLatency() {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package database;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.Venue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.logging.Logger;
+
+// Тонкая обертка над Connection/Statement/PreparedStatement, которая замеряет
+// каждый запрос. Значения параметров в лог не попадают, только их типы.
+// Медленные запросы складываются в кольцевой буфер, а для медленных SELECT
+// в фоне строится план (без выполнения запроса), чтобы регрессии планов были видны в логе.
+// Чтения курсором (setFetchSize) — выгрузки и аудит — не объясняются: они медленные по природе
+final class JdbcInstrumentation {
+    private static final Logger logger = Logger.getLogger(JdbcInstrumentation.class.getName());
+
+    private static final long SLOW_THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("cafe.db.slowQueryMs", 200L));
+    private static final boolean EXPLAIN_ENABLED =
+            Boolean.parseBoolean(System.getProperty("cafe.db.explainSlowQueries", "true"));
+    // Один и тот же запрос объясняется не чаще, чем раз в этот интервал
+    private static final long EXPLAIN_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+    // EXPLAIN (GENERIC_PLAN) появился в PostgreSQL 16
+    private static final int GENERIC_PLAN_VERSION = 16;
+    private static final Pattern QUOTED_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final LatencyHistogram STATEMENT_LATENCY = Metrics.histogram("db.statements");
+    private static final Counter SLOW_STATEMENTS = Metrics.counter("db.slowStatements");
+
+    private static final SlowQueryLog slowQueries = new SlowQueryLog(100);
+    private static final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private static final ExecutorService explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(16), r -> {
+        Thread thread = new Thread(r, "sql-explain");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private JdbcInstrumentation() {
+    }
+
+    static SlowQueryLog getSlowQueries() {
+        return slowQueries;
+    }
+
+    // venue — заведение, в базе которого выполняется EXPLAIN медленных запросов
+    static Connection wrap(Connection connection, Venue venue) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return wrapPrepared((PreparedStatement) result, (String) args[0], venue);
+                case "createStatement":
+                    return wrapStatement((Statement) result, venue);
+                default:
+                    return result;
+            }
+        });
+    }
+
+    private static Statement wrapStatement(Statement statement, Venue venue) {
+        boolean[] streaming = {false};
+        return proxy(Statement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("setFetchSize")) {
+                streaming[0] = (Integer) args[0] > 0;
+            } else if (name.startsWith("execute") && args != null && args.length > 0 && args[0] instanceof String) {
+                long start = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } finally {
+                    finished(venue, (String) args[0], null, streaming[0], System.nanoTime() - start);
+                }
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static PreparedStatement wrapPrepared(PreparedStatement statement, String sql, Venue venue) {
+        Object[][] parameters = {new Object[8]};
+        boolean[] streaming = {false};
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("setFetchSize")) {
+                streaming[0] = (Integer) args[0] > 0;
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0];
+                if (index >= parameters[0].length) {
+                    parameters[0] = Arrays.copyOf(parameters[0], Math.max(index + 1, parameters[0].length * 2));
+                }
+                parameters[0][index] = name.equals("setNull") ? null : args[1];
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(parameters[0], null);
+            } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                long start = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } finally {
+                    finished(venue, sql, parameters[0], streaming[0], System.nanoTime() - start);
+                }
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static void finished(Venue venue, String sql, Object[] parameters, boolean streaming, long nanos) {
+        STATEMENT_LATENCY.record(nanos);
+        if (nanos < SLOW_THRESHOLD_NANOS) {
+            return;
+        }
+
+        SLOW_STATEMENTS.increment();
+        SlowQueryLog.Entry entry = new SlowQueryLog.Entry(LocalDateTime.now(), nanos / 1_000_000.0,
+                normalize(sql), redact(parameters));
+        slowQueries.add(entry);
+        logger.warning("Медленный запрос: " + entry);
+
+        if (EXPLAIN_ENABLED && !streaming && isReadOnlyQuery(sql)) {
+            scheduleExplain(venue, sql, parameters == null ? null : parameters.clone());
+        }
+    }
+
+    private static void scheduleExplain(Venue venue, String sql, Object[] parameters) {
+        long now = System.currentTimeMillis();
+        Long previous = lastExplained.get(sql);
+        if (previous != null && now - previous < EXPLAIN_INTERVAL_MS) {
+            return;
+        }
+        lastExplained.put(sql, now);
+
+        try {
+            explainer.execute(() -> explain(venue, sql, parameters));
+        } catch (RejectedExecutionException e) {
+            logger.log(Level.FINE, "EXPLAIN пропущен: очередь переполнена", e);
+        }
+    }
+
+    // Запрос не выполняется (без ANALYZE), значения параметров в план не попадают: на PostgreSQL 16+
+    // строится общий план с $1, $2..., на более старых — план с подставленными значениями,
+    // из текста которого вырезаются строковые константы. Транзакция только для чтения с откатом
+    private static void explain(Venue venue, String sql, Object[] parameters) {
+        try (Connection conn = DatabaseConnection.openRawConnection(venue)) {
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            try {
+                StringBuilder plan = new StringBuilder("План медленного запроса ")
+                        .append(normalize(sql)).append(':');
+                if (conn.getMetaData().getDatabaseMajorVersion() >= GENERIC_PLAN_VERSION) {
+                    try (Statement stmt = conn.createStatement();
+                         ResultSet rs = stmt.executeQuery("EXPLAIN (GENERIC_PLAN) " + numberParameters(sql))) {
+                        while (rs.next()) {
+                            plan.append('\n').append(rs.getString(1));
+                        }
+                    }
+                } else {
+                    try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+                        if (parameters != null) {
+                            for (int i = 1; i < parameters.length; i++) {
+                                if (parameters[i] != null) {
+                                    stmt.setObject(i, parameters[i]);
+                                }
+                            }
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                plan.append('\n').append(QUOTED_LITERAL.matcher(rs.getString(1)).replaceAll("'?'"));
+                            }
+                        }
+                    }
+                }
+                logger.warning(plan.toString());
+            } finally {
+                conn.rollback();
+            }
+        } catch (SQLException e) {
+            logger.log(Level.INFO, "Не удалось получить план запроса " + normalize(sql), e);
+        }
+    }
+
+    // Параметры JDBC (?) в нумерованные параметры PostgreSQL ($1, $2...); внутри строковых констант
+    // ? остается как есть
+    private static String numberParameters(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 8);
+        boolean quoted = false;
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted) {
+                result.append('$').append(++index);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isReadOnlyQuery(String sql) {
+        String normalized = sql.trim().toUpperCase(Locale.ROOT);
+        return (normalized.startsWith("SELECT") || normalized.startsWith("WITH")) &&
+                !normalized.contains("INSERT ") && !normalized.contains("UPDATE ") &&
+                !normalized.contains("DELETE ") && !normalized.contains("FOR UPDATE");
+    }
+
+    // Вместо значений — только номера и типы параметров
+    private static String redact(Object[] parameters) {
+        if (parameters == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < parameters.length; i++) {
+            if (parameters[i] == null) {
+                continue;
+            }
+            sb.append(sb.length() == 0 ? "[" : ", ")
+                    .append('$').append(i).append('=').append('<')
+                    .append(parameters[i].getClass().getSimpleName()).append('>');
+        }
+        return sb.length() == 0 ? "" : sb.append(']').toString();
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,580 @@
+package database;
+
+import metrics.Counter;
+import metrics.Metrics;
+import model.AuditRow;
+import model.BookingStatus;
+import model.OccupancyCount;
+import model.RecurrenceRule;
+import model.Reservation;
+import model.StatusChange;
+import model.TableInfo;
+import model.WaitlistEntry;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Хранилище с офлайн-режимом поверх основного (BookingRepository).
+// Пока БД доступна, изменения идут в нее напрямую. При ошибке соединения хранилище
+// переходит в офлайн: изменения записываются в локальный журнал (BookingJournal)
+// и сразу считаются принятыми, новые бронирования получают временные отрицательные id.
+// Фоновый поток периодически отправляет журнал в БД пачками; изменения, которые БД
+// отвергла (слот занят, бронирование уже удалено и т.п.), передаются слушателю как конфликты.
+// Режим «онлайн» возвращается только когда журнал отправлен полностью
+public class JournalingBookingStore implements BookingStore {
+    private static final Logger logger = Logger.getLogger(JournalingBookingStore.class.getName());
+    private static final Counter REPLAYED = Metrics.counter("journal.replayed");
+    private static final Counter CONFLICTS = Metrics.counter("journal.conflicts");
+
+    // Изменение из журнала, которое не удалось применить в БД
+    public record Conflict(BookingJournal.Operation operation, int bookingId, Reservation booking, String reason) {
+        @Override
+        public String toString() {
+            String subject = booking == null ? "Бронирование №" + bookingId :
+                    booking.customerName() + " (" + booking.phone() + "), стол " + booking.tableNumber() + ", " +
+                            booking.bookingDateTime().toLocalDate() + " " + booking.bookingDateTime().getHour() + ":00";
+            return subject + ": " + reason;
+        }
+    }
+
+    public interface Listener {
+        void onStateChanged(boolean online, int pendingCount);
+
+        void onConflicts(List<Conflict> conflicts);
+    }
+
+    private final BookingStore delegate;
+    private final BookingJournal journal;
+    private final int batchSize;
+    // Временный id -> id в БД; для бронирований, которые БД отвергла, — FAILED
+    private final Map<Integer, Integer> mappedIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextLocalId;
+    private volatile boolean online;
+    private volatile Listener listener;
+    private ScheduledExecutorService replayer;
+
+    private static final int FAILED = 0;
+
+    public JournalingBookingStore(BookingStore delegate, BookingJournal journal, int batchSize) {
+        this.delegate = delegate;
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.mappedIds.putAll(journal.getMappedIds());
+
+        int minLocalId = 0;
+        for (BookingJournal.Entry entry : journal.peekPending(Integer.MAX_VALUE)) {
+            minLocalId = Math.min(minLocalId, entry.bookingId());
+        }
+        this.nextLocalId = new AtomicInteger(minLocalId - 1);
+        // С неотправленным журналом прямые записи в БД обогнали бы его
+        this.online = journal.getPendingCount() == 0;
+    }
+
+    public void start(Listener listener, Duration replayInterval) {
+        this.listener = listener;
+        if (replayer != null) {
+            return;
+        }
+        replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replayer.scheduleWithFixedDelay(this::replay, 0, replayInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (replayer != null) {
+            replayer.shutdownNow();
+        }
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    public int getPendingCount() {
+        return journal.getPendingCount();
+    }
+
+    // Изменения, еще не отправленные в БД (для восстановления локального состояния при запуске без БД)
+    public List<BookingJournal.Entry> getPendingEntries() {
+        return journal.peekPending(Integer.MAX_VALUE);
+    }
+
+    public void goOffline(String reason) {
+        synchronized (this) {
+            if (!online) {
+                return;
+            }
+            online = false;
+        }
+        logger.warning("Нет связи с БД, изменения пишутся в локальный журнал: " + reason);
+        notifyState();
+    }
+
+    // Ошибки соединения (класс SQLState 08 и ошибки пула) переводят в офлайн,
+    // остальные — обычные ошибки запроса
+    public static boolean isConnectionFailure(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientConnectionException || t instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (t instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<TableInfo> loadTables() throws SQLException {
+        return delegate.loadTables();
+    }
+
+    @Override
+    public List<Reservation> loadActiveReservations() throws SQLException {
+        return delegate.loadActiveReservations();
+    }
+
+    @Override
+    public int saveBooking(Reservation booking) throws SQLException {
+        while (true) {
+            if (online) {
+                try {
+                    return delegate.saveBooking(booking);
+                } catch (SQLException e) {
+                    offlineOrRethrow(e);
+                }
+            }
+            int[] localId = new int[1];
+            if (journalIfOffline(() -> {
+                localId[0] = nextLocalId.getAndDecrement();
+                return BookingJournal.Entry.add(booking.withId(localId[0]));
+            })) {
+                return localId[0];
+            }
+        }
+    }
+
+    // Без БД бронирования группы записываются в журнал по одному; при отправке журнала
+    // каждое проверяется отдельно, и занятый стол попадет в список конфликтов
+    // Нужно только при отправке журнала, поэтому идет прямо в БД
+    @Override
+    public int saveJournaledBooking(Reservation booking, UUID journalKey) throws SQLException {
+        return delegate.saveJournaledBooking(booking, journalKey);
+    }
+
+    @Override
+    public List<Integer> saveBookings(List<Reservation> bookings) throws SQLException {
+        if (online) {
+            try {
+                return delegate.saveBookings(bookings);
+            } catch (SQLException e) {
+                offlineOrRethrow(e);
+            }
+        }
+        List<Integer> ids = new ArrayList<>(bookings.size());
+        for (Reservation booking : bookings) {
+            ids.add(saveBooking(booking));
+        }
+        return ids;
+    }
+
+    @Override
+    public void updateBooking(Reservation booking) throws SQLException {
+        while (true) {
+            if (online) {
+                try {
+                    delegate.updateBooking(booking.withId(resolve(booking.id())));
+                    return;
+                } catch (SQLException e) {
+                    offlineOrRethrow(e);
+                }
+            }
+            if (journalIfOffline(() -> BookingJournal.Entry.update(booking))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void updateStatus(int bookingId, BookingStatus status) throws SQLException {
+        while (true) {
+            if (online) {
+                try {
+                    delegate.updateStatus(resolve(bookingId), status);
+                    return;
+                } catch (SQLException e) {
+                    offlineOrRethrow(e);
+                }
+            }
+            if (journalIfOffline(() -> BookingJournal.Entry.status(bookingId, null, status))) {
+                return;
+            }
+        }
+    }
+
+    // Без связи все переходы принимаются; при отправке журнала каждый снова
+    // проверяется условием на исходный статус
+    @Override
+    public List<StatusChange> updateStatuses(List<StatusChange> changes) throws SQLException {
+        while (true) {
+            if (online) {
+                try {
+                    List<StatusChange> resolved = new ArrayList<>(changes.size());
+                    for (StatusChange change : changes) {
+                        resolved.add(new StatusChange(resolve(change.bookingId()), change.from(), change.to()));
+                    }
+                    Set<Integer> applied = new HashSet<>();
+                    for (StatusChange change : delegate.updateStatuses(resolved)) {
+                        applied.add(change.bookingId());
+                    }
+                    List<StatusChange> result = new ArrayList<>();
+                    for (int i = 0; i < changes.size(); i++) {
+                        if (applied.contains(resolved.get(i).bookingId())) {
+                            result.add(changes.get(i));
+                        }
+                    }
+                    return result;
+                } catch (SQLException e) {
+                    offlineOrRethrow(e);
+                }
+            }
+            CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+            boolean journaled = false;
+            synchronized (this) {
+                if (!online) {
+                    for (StatusChange change : changes) {
+                        last = journal.append(BookingJournal.Entry.status(change.bookingId(), change.from(), change.to()));
+                    }
+                    journaled = true;
+                }
+            }
+            if (journaled) {
+                awaitJournal(last);
+                notifyState();
+                return changes;
+            }
+        }
+    }
+
+    @Override
+    public void deleteBooking(int bookingId) throws SQLException {
+        while (true) {
+            if (online) {
+                try {
+                    delegate.deleteBooking(resolve(bookingId));
+                    return;
+                } catch (SQLException e) {
+                    offlineOrRethrow(e);
+                }
+            }
+            if (journalIfOffline(() -> BookingJournal.Entry.delete(bookingId))) {
+                return;
+            }
+        }
+    }
+
+    // Без связи каждое удаление записывается в журнал отдельной записью
+    @Override
+    public List<Integer> deleteBookings(List<Integer> bookingIds) throws SQLException {
+        while (true) {
+            if (online) {
+                try {
+                    Map<Integer, Integer> originalIds = new HashMap<>();
+                    for (int bookingId : bookingIds) {
+                        originalIds.put(resolve(bookingId), bookingId);
+                    }
+                    List<Integer> deleted = new ArrayList<>();
+                    for (int id : delegate.deleteBookings(new ArrayList<>(originalIds.keySet()))) {
+                        deleted.add(originalIds.get(id));
+                    }
+                    return deleted;
+                } catch (SQLException e) {
+                    offlineOrRethrow(e);
+                }
+            }
+            CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+            boolean journaled = false;
+            synchronized (this) {
+                if (!online) {
+                    for (int bookingId : bookingIds) {
+                        last = journal.append(BookingJournal.Entry.delete(bookingId));
+                    }
+                    journaled = true;
+                }
+            }
+            if (journaled) {
+                awaitJournal(last);
+                notifyState();
+                return bookingIds;
+            }
+        }
+    }
+
+    @Override
+    public List<Integer> archiveFinishedBookings(LocalDateTime before, int limit) throws SQLException {
+        if (!online) {
+            return List.of();
+        }
+        return delegate.archiveFinishedBookings(before, limit);
+    }
+
+    @Override
+    public List<Reservation> loadArchivedReservations(LocalDate from, LocalDate to) throws SQLException {
+        if (!online) {
+            throw new SQLException("Нет подключения к БД: архив недоступен", "08003");
+        }
+        return delegate.loadArchivedReservations(from, to);
+    }
+
+    @Override
+    public List<OccupancyCount> loadOccupancy(LocalDate from, LocalDate to, int slotHours) throws SQLException {
+        if (!online) {
+            throw new SQLException("Нет подключения к БД: аналитика недоступна", "08003");
+        }
+        return delegate.loadOccupancy(from, to, slotHours);
+    }
+
+    // Лист ожидания в журнал не пишется: без БД он недоступен
+    @Override
+    public List<WaitlistEntry> loadWaitlist(LocalDate from) throws SQLException {
+        requireOnline("лист ожидания недоступен");
+        return delegate.loadWaitlist(from);
+    }
+
+    @Override
+    public int saveWaitlistEntry(WaitlistEntry entry) throws SQLException {
+        requireOnline("лист ожидания недоступен");
+        return delegate.saveWaitlistEntry(entry);
+    }
+
+    @Override
+    public void deleteWaitlistEntries(List<Integer> entryIds) throws SQLException {
+        requireOnline("лист ожидания недоступен");
+        delegate.deleteWaitlistEntries(entryIds);
+    }
+
+    // Регулярные брони тоже меняются только при связи с БД
+    @Override
+    public List<RecurrenceRule> loadRecurrenceRules(LocalDate from) throws SQLException {
+        requireOnline("регулярные брони недоступны");
+        return delegate.loadRecurrenceRules(from);
+    }
+
+    @Override
+    public int saveRecurrenceRule(RecurrenceRule rule) throws SQLException {
+        requireOnline("регулярные брони недоступны");
+        return delegate.saveRecurrenceRule(rule);
+    }
+
+    @Override
+    public void addRecurrenceException(int ruleId, LocalDate date) throws SQLException {
+        requireOnline("регулярные брони недоступны");
+        delegate.addRecurrenceException(ruleId, date);
+    }
+
+    @Override
+    public void deleteRecurrenceRule(int ruleId) throws SQLException {
+        requireOnline("регулярные брони недоступны");
+        delegate.deleteRecurrenceRule(ruleId);
+    }
+
+    @Override
+    public LocalDateTime streamAuditRows(LocalDateTime changedSince, Consumer<AuditRow> sink) throws SQLException {
+        requireOnline("аудит недоступен");
+        return delegate.streamAuditRows(changedSince, sink);
+    }
+
+    @Override
+    public LocalDateTime loadLastAuditSnapshot() throws SQLException {
+        requireOnline("аудит недоступен");
+        return delegate.loadLastAuditSnapshot();
+    }
+
+    @Override
+    public void saveAuditRun(LocalDateTime snapshotAt, boolean incremental, int rowsChecked,
+                             int overlaps, int overCapacity) throws SQLException {
+        requireOnline("аудит недоступен");
+        delegate.saveAuditRun(snapshotAt, incremental, rowsChecked, overlaps, overCapacity);
+    }
+
+    private void requireOnline(String what) throws SQLException {
+        if (!online) {
+            throw new SQLException("Нет подключения к БД: " + what, "08003");
+        }
+    }
+
+    private void offlineOrRethrow(SQLException e) throws SQLException {
+        if (!isConnectionFailure(e)) {
+            throw e;
+        }
+        goOffline(e.getMessage());
+    }
+
+    // Записывает изменение в журнал, если хранилище в офлайне, и ждет fsync.
+    // false — хранилище успело вернуться в онлайн, запись нужно повторить напрямую
+    private boolean journalIfOffline(Supplier<BookingJournal.Entry> entry) throws SQLException {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            if (online) {
+                return false;
+            }
+            written = journal.append(entry.get());
+        }
+        awaitJournal(written);
+        notifyState();
+        return true;
+    }
+
+    private void awaitJournal(CompletableFuture<Void> written) throws SQLException {
+        try {
+            BookingJournal.await(written);
+        } catch (IOException e) {
+            throw new SQLException("Нет связи с БД и не удалось записать локальный журнал", e);
+        }
+    }
+
+    // Временные id созданных без связи бронирований заменяются на id из БД
+    private int resolve(int bookingId) throws SQLException {
+        if (bookingId >= 0) {
+            return bookingId;
+        }
+        Integer id = mappedIds.get(bookingId);
+        if (id == null || id == FAILED) {
+            throw new SQLException("Бронирование " + bookingId + " не было сохранено в БД");
+        }
+        return id;
+    }
+
+    private void replay() {
+        if (online) {
+            return;
+        }
+        try {
+            // Проверка связи: без нее пустой журнал вернул бы хранилище в онлайн,
+            // и следующая запись снова ждала бы таймаута соединения
+            delegate.loadTables();
+        } catch (SQLException e) {
+            return;
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        int replayed = 0;
+        try {
+            List<BookingJournal.Entry> batch;
+            while (!(batch = journal.peekPending(batchSize)).isEmpty()) {
+                CompletableFuture<Void> progress = null;
+                for (BookingJournal.Entry entry : batch) {
+                    apply(entry, conflicts);
+                    progress = journal.markReplayed(entry.seq());
+                    replayed++;
+                }
+                // Отметки о прогрессе сбрасываются на диск одним fsync на пачку
+                BookingJournal.await(progress);
+                REPLAYED.add(batch.size());
+                notifyState();
+            }
+        } catch (SQLException e) {
+            if (!isConnectionFailure(e)) {
+                logger.log(Level.SEVERE, "Ошибка отправки журнала в БД", e);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Ошибка отправки журнала в БД", e);
+        }
+
+        if (replayed > 0) {
+            logger.info("Отправлено в БД изменений из журнала: " + replayed + ", конфликтов: " + conflicts.size());
+        }
+        if (!conflicts.isEmpty()) {
+            CONFLICTS.add(conflicts.size());
+            Listener current = listener;
+            if (current != null) {
+                current.onConflicts(conflicts);
+            }
+        }
+        goOnlineIfReplayed();
+    }
+
+    // Применяет одно изменение к БД. Ошибка соединения прерывает отправку
+    // (изменение останется в журнале), остальные ошибки становятся конфликтами
+    private void apply(BookingJournal.Entry entry, List<Conflict> conflicts) throws SQLException, IOException {
+        try {
+            switch (entry.operation()) {
+                case ADD -> {
+                    // Вставка могла пройти до сбоя, а отметка MAPPED — не успеть на диск:
+                    // по ключу БД вернет id уже сохраненного бронирования
+                    int id = entry.key() == null
+                            ? delegate.saveBooking(entry.booking())
+                            : delegate.saveJournaledBooking(entry.booking(), entry.key());
+                    mappedIds.put(entry.bookingId(), id);
+                    journal.markMapped(entry.bookingId(), id);
+                }
+                case UPDATE -> {
+                    int id = resolve(entry.bookingId());
+                    delegate.updateBooking(entry.booking().withId(id));
+                }
+                case STATUS -> {
+                    int id = resolve(entry.bookingId());
+                    if (entry.from() == null) {
+                        delegate.updateStatus(id, entry.to());
+                    } else if (delegate.updateStatuses(List.of(new StatusChange(id, entry.from(), entry.to()))).isEmpty()) {
+                        conflicts.add(new Conflict(entry.operation(), entry.bookingId(), null,
+                                "статус уже изменен с другого терминала"));
+                    }
+                }
+                case DELETE -> delegate.deleteBooking(resolve(entry.bookingId()));
+            }
+        } catch (SQLException e) {
+            if (isConnectionFailure(e)) {
+                throw e;
+            }
+            if (entry.operation() == BookingJournal.Operation.ADD) {
+                mappedIds.put(entry.bookingId(), FAILED);
+            }
+            String reason = BookingRepository.isSlotTaken(e) ? "стол на это время уже занят" : e.getMessage();
+            conflicts.add(new Conflict(entry.operation(), entry.bookingId(), entry.booking(), reason));
+        }
+    }
+
+    private void goOnlineIfReplayed() {
+        synchronized (this) {
+            if (online || journal.getPendingCount() > 0) {
+                return;
+            }
+            online = true;
+        }
+        logger.info("Связь с БД восстановлена, журнал отправлен");
+        notifyState();
+    }
+
+    private void notifyState() {
+        Listener current = listener;
+        if (current != null) {
+            current.onStateChanged(online, journal.getPendingCount());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package database;
+
+import metrics.Counter;
+import metrics.Metrics;
+import model.Venue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Чтение с реплики заведения. Соединение выдается, только если отставание реплики
+// не больше допустимого для запроса; иначе (или если реплика недоступна) вызывающий
+// читает с основной БД. Отставание измеряется не чаще, чем раз в LAG_CHECK_MS
+final class ReplicaRouter {
+    private static final Logger logger = Logger.getLogger(ReplicaRouter.class.getName());
+    private static final long LAG_CHECK_MS = Long.getLong("cafe.db.replica.lagCheckMs", 1000L);
+    // После ошибки соединения реплика не используется этот интервал
+    private static final long RETRY_AFTER_MS = Long.getLong("cafe.db.replica.retrySeconds", 30L) * 1000;
+    private static final Counter REPLICA_READS = Metrics.counter("db.replica.reads");
+    private static final Counter PRIMARY_FALLBACKS = Metrics.counter("db.replica.fallbacks");
+
+    // Для standby: 0, если все полученные изменения уже применены, иначе время с последней
+    // примененной транзакции. Равенство позиций ничего не значит без приемника WAL: реплика,
+    // потерявшая связь с основной БД, тоже все «применила». Поэтому без работающего приемника
+    // результат NULL — реплика считается отставшей. Состояние приемника видно роли
+    // с pg_read_all_stats; без этой роли виден только сам процесс, и его достаточно.
+    // Обычный сервер (не в режиме восстановления) считается актуальным
+    private static final String LAG_SQL = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver " +
+            "WHERE coalesce(status, 'streaming') = 'streaming') THEN NULL " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END";
+
+    private final Venue replica;
+    private final ConnectionPool pool;
+    private volatile long lagMs = Long.MAX_VALUE;
+    private volatile long lagCheckedAt;
+    private volatile long unavailableUntil;
+
+    ReplicaRouter(Venue venue, String replicaDatabase) {
+        this.replica = new Venue(venue.id(), venue.name(), replicaDatabase);
+        this.pool = new ConnectionPool(replica,
+                Integer.getInteger("cafe.db.replica.poolSize", 4),
+                Long.getLong("cafe.db.acquireTimeoutMs", 5000L));
+        Metrics.gauge(venue.scopedName("db.replica.lagMs"), () -> lagMs == Long.MAX_VALUE ? -1 : lagMs);
+        Metrics.gauge(venue.scopedName("db.replica.pool.active"), pool::getActiveCount);
+    }
+
+    // Соединение с репликой или null, если читать нужно с основной БД
+    Connection acquire(long maxLagMs) {
+        long now = System.currentTimeMillis();
+        if (now < unavailableUntil) {
+            PRIMARY_FALLBACKS.increment();
+            return null;
+        }
+        Connection conn = null;
+        try {
+            conn = pool.acquire();
+            if (now - lagCheckedAt >= LAG_CHECK_MS) {
+                lagMs = measureLag(conn);
+                lagCheckedAt = now;
+            }
+            if (lagMs > maxLagMs) {
+                conn.close();
+                PRIMARY_FALLBACKS.increment();
+                return null;
+            }
+            conn.setReadOnly(true);
+            REPLICA_READS.increment();
+            return conn;
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Реплика " + replica.database() + " недоступна, чтение идет с основной БД", e);
+            unavailableUntil = now + RETRY_AFTER_MS;
+            lagMs = Long.MAX_VALUE;
+            closeQuietly(conn);
+            PRIMARY_FALLBACKS.increment();
+            return null;
+        }
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    private static long measureLag(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LAG_SQL)) {
+            rs.next();
+            long lag = rs.getLong(1);
+            // Приемник WAL не работает или реплика еще не применила ни одной транзакции
+            return rs.wasNull() ? Long.MAX_VALUE : lag;
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Ошибка при закрытии соединения", e);
+        }
+    }
+}
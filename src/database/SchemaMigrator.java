@@ -0,0 +1,217 @@
+package database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+// Версионные миграции схемы из ресурсов sql/V<номер>__<описание>.sql.
+// Примененные версии записываются в schema_history; каждая миграция выполняется
+// в своей транзакции. Уже примененный файл не меняют — добавляют следующую версию
+final class SchemaMigrator {
+    private static final Logger logger = Logger.getLogger(SchemaMigrator.class.getName());
+
+    static final String[] MIGRATIONS = {
+            "V1__base_schema.sql",
+            "V2__booking_overlap_constraint.sql",
+            "V3__booking_archive.sql",
+            "V4__performance_indexes.sql",
+            "V5__booking_grid.sql",
+            "V6__waitlist.sql",
+            "V7__recurring_bookings.sql",
+            "V8__booking_audit.sql",
+            "V9__require_booking_overlap_constraint.sql",
+            "V10__booking_journal_key.sql",
+            "V11__archive_explicit_columns.sql"
+    };
+
+    // Индексы, без которых частые запросы уходят в последовательное чтение
+    static final String[] EXPECTED_INDEXES = {
+            "customers_phone_idx",
+            "tables_table_number_idx",
+            "bookings_table_time_active_idx",
+            "bookings_time_active_idx",
+            "bookings_time_finished_idx",
+            "bookings_updated_at_idx",
+            "booking_grid_time_idx",
+            "booking_grid_updated_at_idx",
+            "waitlist_date_idx",
+            "bookings_journal_key_idx"
+    };
+
+    // Ограничения, на которые полагается логика приложения (bookings_no_overlap — защита
+    // от двойного бронирования с разных терминалов)
+    static final String[] EXPECTED_CONSTRAINTS = {
+            "bookings_no_overlap"
+    };
+
+    // Ключ advisory-блокировки: несколько экземпляров приложения не применяют миграции одновременно
+    private static final long LOCK_KEY = 0x63616665_6d696772L;
+
+    private SchemaMigrator() {
+    }
+
+    static void migrate(Connection conn) throws SQLException, IOException {
+        conn.setAutoCommit(true);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_history (" +
+                    "version integer PRIMARY KEY, " +
+                    "description varchar(200) NOT NULL, " +
+                    "checksum varchar(64) NOT NULL, " +
+                    "applied_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                    "duration_ms integer NOT NULL)");
+        }
+
+        lock(conn, "SELECT pg_advisory_lock(?)");
+        try {
+            Map<Integer, String> applied = loadApplied(conn);
+            for (String file : MIGRATIONS) {
+                int version = Integer.parseInt(file.substring(1, file.indexOf("__")));
+                String sql = readScript(file);
+                String checksum = checksum(sql);
+
+                String appliedChecksum = applied.get(version);
+                if (appliedChecksum != null) {
+                    if (!appliedChecksum.equals(checksum)) {
+                        logger.warning("Миграция " + file + " изменена после применения (контрольная сумма не совпадает)");
+                    }
+                    continue;
+                }
+                apply(conn, version, file, sql, checksum);
+            }
+        } finally {
+            conn.setAutoCommit(true);
+            lock(conn, "SELECT pg_advisory_unlock(?)");
+        }
+    }
+
+    // Предупреждает об ожидаемых индексах, которых нет или которые невалидны
+    // (например, после прерванного CREATE INDEX CONCURRENTLY)
+    static List<String> checkIndexes(Connection conn) throws SQLException {
+        String sql = "SELECT c.relname, i.indisvalid FROM pg_index i " +
+                "JOIN pg_class c ON c.oid = i.indexrelid " +
+                "WHERE c.relname = ANY(?)";
+
+        Map<String, Boolean> found = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("text", EXPECTED_INDEXES));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    found.put(rs.getString(1), rs.getBoolean(2));
+                }
+            }
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (String index : EXPECTED_INDEXES) {
+            Boolean valid = found.get(index);
+            if (valid == null) {
+                problems.add(index);
+                logger.warning("Отсутствует индекс " + index + ": запросы к БД будут медленнее");
+            } else if (!valid) {
+                problems.add(index);
+                logger.warning("Индекс " + index + " невалиден и не используется, его нужно пересоздать");
+            }
+        }
+        problems.addAll(checkConstraints(conn));
+        return problems;
+    }
+
+    private static List<String> checkConstraints(Connection conn) throws SQLException {
+        String sql = "SELECT conname FROM pg_constraint WHERE conname = ANY(?) AND convalidated";
+
+        List<String> found = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("text", EXPECTED_CONSTRAINTS));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    found.add(rs.getString(1));
+                }
+            }
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (String constraint : EXPECTED_CONSTRAINTS) {
+            if (!found.contains(constraint)) {
+                problems.add(constraint);
+                logger.severe("Отсутствует ограничение " + constraint + ": БД не защищена от двойного бронирования");
+            }
+        }
+        return problems;
+    }
+
+    private static void apply(Connection conn, int version, String file, String sql, String checksum)
+            throws SQLException {
+        long start = System.nanoTime();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            for (SQLWarning w = stmt.getWarnings(); w != null; w = w.getNextWarning()) {
+                logger.warning("Миграция " + file + ": " + w.getMessage());
+            }
+
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO schema_history (version, description, checksum, duration_ms) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, version);
+                insert.setString(2, file.substring(file.indexOf("__") + 2, file.length() - 4).replace('_', ' '));
+                insert.setString(3, checksum);
+                insert.setInt(4, (int) ((System.nanoTime() - start) / 1_000_000));
+                insert.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Миграция " + file + " не применена: " + e.getMessage(), e.getSQLState(), e);
+        }
+        logger.info("Применена миграция " + file + " за " + (System.nanoTime() - start) / 1_000_000 + " мс");
+    }
+
+    private static Map<Integer, String> loadApplied(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_history")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void lock(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, LOCK_KEY);
+            stmt.execute();
+        }
+    }
+
+    private static String readScript(String file) throws IOException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream("sql/" + file)) {
+            if (in == null) {
+                throw new IOException("Файл миграции не найден: sql/" + file);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        }
+    }
+
+    private static String checksum(String sql) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sql.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package database;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Кольцевой буфер последних медленных запросов (старые записи вытесняются)
+public class SlowQueryLog {
+
+    public record Entry(LocalDateTime at, double millis, String sql, String parameters) {
+
+        @Override
+        public String toString() {
+            return at + " " + String.format(java.util.Locale.ROOT, "%.1f", millis) + " мс: " + sql +
+                    (parameters.isEmpty() ? "" : " " + parameters);
+        }
+    }
+
+    private final Entry[] entries;
+    private int next;
+    private long total;
+
+    public SlowQueryLog(int capacity) {
+        this.entries = new Entry[capacity];
+    }
+
+    public synchronized void add(Entry entry) {
+        entries[next] = entry;
+        next = (next + 1) % entries.length;
+        total++;
+    }
+
+    // От новых к старым
+    public synchronized List<Entry> recent() {
+        List<Entry> result = new ArrayList<>(entries.length);
+        for (int i = 1; i <= entries.length; i++) {
+            Entry entry = entries[(next - i + entries.length) % entries.length];
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+}
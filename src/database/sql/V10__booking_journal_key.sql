@@ -0,0 +1,10 @@
+-- Ключ идемпотентности бронирований, созданных без связи с БД (локальный журнал).
+-- Если после сбоя бронирование из журнала отправляется повторно (вставка прошла,
+-- а отметка MAPPED не успела на диск), строка с тем же ключом второй раз не вставляется.
+-- В архив столбец добавляется тоже: archive_bookings переносит строки через SELECT *
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS journal_key uuid;
+ALTER TABLE bookings_archive ADD COLUMN IF NOT EXISTS journal_key uuid;
+
+-- Частичный: ключ есть только у бронирований из журнала
+CREATE UNIQUE INDEX IF NOT EXISTS bookings_journal_key_idx
+    ON bookings (journal_key) WHERE journal_key IS NOT NULL;
@@ -0,0 +1,45 @@
+-- archive_bookings переносила строки через INSERT ... SELECT * и зависела от того, что
+-- столбцы bookings и bookings_archive идут в одном порядке. Архив создан как LIKE bookings
+-- на момент V3, а столбцы добавляются в обе таблицы отдельно (V10), поэтому после любого
+-- расхождения перенос ломался бы или клал значения не в те столбцы. Теперь столбцы
+-- перечислены явно: новый столбец bookings добавляется в bookings_archive и в этот список.
+--
+-- Секционирована по месяцам только bookings_archive, «горячая» bookings остается обычной
+-- таблицей: ограничение bookings_no_overlap (EXCLUDE) нельзя создать на секционированной
+-- таблице, а после переноса завершенных бронирований в ней остается несколько месяцев строк
+CREATE OR REPLACE FUNCTION archive_bookings(cutoff timestamp, batch_size integer)
+RETURNS SETOF integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    month_start timestamp;
+BEGIN
+    FOR month_start IN
+        SELECT DISTINCT date_trunc('month', booking_date_time)
+        FROM bookings
+        WHERE status_id IN (3, 4) AND booking_date_time < cutoff
+    LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF bookings_archive FOR VALUES FROM (%L) TO (%L)',
+                       'bookings_archive_' || to_char(month_start, 'YYYY_MM'),
+                       month_start, month_start + interval '1 month');
+    END LOOP;
+
+    RETURN QUERY
+    WITH moved AS (
+        DELETE FROM bookings
+        WHERE id IN (SELECT id FROM bookings
+                     WHERE status_id IN (3, 4) AND booking_date_time < cutoff
+                     ORDER BY booking_date_time
+                     LIMIT batch_size
+                     FOR UPDATE SKIP LOCKED)
+        RETURNING id, customer_id, table_id, status_id, guests, booking_date_time,
+                  special_requests, created_at, updated_at, journal_key
+    ), archived AS (
+        INSERT INTO bookings_archive (id, customer_id, table_id, status_id, guests, booking_date_time,
+                                      special_requests, created_at, updated_at, journal_key)
+        SELECT id, customer_id, table_id, status_id, guests, booking_date_time,
+               special_requests, created_at, updated_at, journal_key
+        FROM moved
+        RETURNING bookings_archive.id
+    )
+    SELECT archived.id FROM archived;
+END $$;
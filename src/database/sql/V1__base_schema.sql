@@ -0,0 +1,43 @@
+-- Базовая схема: таблицы, с которыми работают BookingRepository и MainController.
+-- IF NOT EXISTS — чтобы миграция спокойно применялась к уже существующим базам,
+-- созданным вручную до появления миграций
+CREATE TABLE IF NOT EXISTS booking_status (
+    id   integer PRIMARY KEY,
+    name varchar(20) NOT NULL UNIQUE
+);
+
+INSERT INTO booking_status (id, name) VALUES
+    (1, 'PENDING'),
+    (2, 'CONFIRMED'),
+    (3, 'CANCELLED'),
+    (4, 'COMPLETED')
+ON CONFLICT DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS customers (
+    id    serial PRIMARY KEY,
+    name  varchar(100) NOT NULL,
+    phone varchar(20)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS tables (
+    id           serial PRIMARY KEY,
+    table_number integer      NOT NULL,
+    capacity     integer      NOT NULL CHECK (capacity > 0),
+    location     varchar(100),
+    is_active    boolean      NOT NULL DEFAULT true
+);
+
+CREATE TABLE IF NOT EXISTS bookings (
+    id                serial PRIMARY KEY,
+    customer_id       integer   NOT NULL REFERENCES customers (id),
+    table_id          integer   NOT NULL REFERENCES tables (id),
+    status_id         integer   NOT NULL DEFAULT 1 REFERENCES booking_status (id),
+    guests            integer   NOT NULL CHECK (guests > 0),
+    booking_date_time timestamp NOT NULL,
+    special_requests  text,
+    created_at        timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at        timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- В старых базах updated_at могло не быть, а запросы обновления его выставляют
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS updated_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP;
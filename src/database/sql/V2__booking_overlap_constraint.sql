@@ -0,0 +1,21 @@
+-- Запрет двойного бронирования на уровне БД.
+-- Бронирование занимает стол на 2 часа с начала часа (как в Availability);
+-- отмененные бронирования (status_id = 3) в проверке не участвуют.
+-- Проверку выполняет GiST-индекс ограничения, поэтому ни явных блокировок,
+-- ни SERIALIZABLE-транзакций при вставке не требуется.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'bookings_no_overlap') THEN
+        ALTER TABLE bookings ADD CONSTRAINT bookings_no_overlap
+            EXCLUDE USING gist (
+                table_id WITH =,
+                tsrange(date_trunc('hour', booking_date_time),
+                        date_trunc('hour', booking_date_time) + interval '2 hours') WITH &&
+            ) WHERE (status_id <> 3);
+    END IF;
+EXCEPTION
+    WHEN exclusion_violation THEN
+        RAISE WARNING 'bookings_no_overlap не создано: в таблице уже есть пересекающиеся бронирования';
+END $$;
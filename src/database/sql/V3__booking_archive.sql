@@ -0,0 +1,42 @@
+-- Холодный архив завершенных и отмененных бронирований.
+-- bookings остается небольшой «горячей» таблицей с ограничением bookings_no_overlap,
+-- старые завершенные бронирования переносятся в bookings_archive, разбитую по месяцам.
+-- Секции создаются по мере необходимости самой функцией archive_bookings.
+CREATE TABLE IF NOT EXISTS bookings_archive (LIKE bookings)
+    PARTITION BY RANGE (booking_date_time);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_date_idx ON bookings_archive (booking_date_time);
+
+-- Переносит до batch_size бронирований со статусом CANCELLED (3) или COMPLETED (4),
+-- начавшихся раньше cutoff, и возвращает их id. Строки, заблокированные другими
+-- транзакциями, пропускаются и уйдут в следующий запуск
+CREATE OR REPLACE FUNCTION archive_bookings(cutoff timestamp, batch_size integer)
+RETURNS SETOF integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    month_start timestamp;
+BEGIN
+    FOR month_start IN
+        SELECT DISTINCT date_trunc('month', booking_date_time)
+        FROM bookings
+        WHERE status_id IN (3, 4) AND booking_date_time < cutoff
+    LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF bookings_archive FOR VALUES FROM (%L) TO (%L)',
+                       'bookings_archive_' || to_char(month_start, 'YYYY_MM'),
+                       month_start, month_start + interval '1 month');
+    END LOOP;
+
+    RETURN QUERY
+    WITH moved AS (
+        DELETE FROM bookings
+        WHERE id IN (SELECT id FROM bookings
+                     WHERE status_id IN (3, 4) AND booking_date_time < cutoff
+                     ORDER BY booking_date_time
+                     LIMIT batch_size
+                     FOR UPDATE SKIP LOCKED)
+        RETURNING *
+    ), archived AS (
+        INSERT INTO bookings_archive SELECT * FROM moved RETURNING bookings_archive.id
+    )
+    SELECT archived.id FROM archived;
+END $$;
@@ -0,0 +1,29 @@
+-- Индексы под частые запросы приложения.
+-- Частичные индексы исключают отмененные бронирования (status_id = 3):
+-- они не участвуют ни в проверке занятости, ни в загрузке активных бронирований.
+-- Список имен продублирован в SchemaMigrator.EXPECTED_INDEXES для проверки при запуске
+
+-- Поиск клиента по телефону при каждом сохранении (saveOrGetCustomer)
+CREATE INDEX IF NOT EXISTS customers_phone_idx ON customers (phone);
+
+-- Поиск id стола по номеру при каждом сохранении (getTableId)
+CREATE INDEX IF NOT EXISTS tables_table_number_idx ON tables (table_number);
+
+-- Бронирования стола в интервале времени (занятость, расписание стола)
+CREATE INDEX IF NOT EXISTS bookings_table_time_active_idx
+    ON bookings (table_id, booking_date_time) WHERE status_id <> 3;
+
+-- Активные бронирования начиная с сегодняшнего дня (loadActiveReservations)
+CREATE INDEX IF NOT EXISTS bookings_time_active_idx
+    ON bookings (booking_date_time) WHERE status_id <> 3;
+
+-- Кандидаты на перенос в архив (archive_bookings)
+CREATE INDEX IF NOT EXISTS bookings_time_finished_idx
+    ON bookings (booking_date_time) WHERE status_id IN (3, 4);
+
+-- Изменения после заданного момента (инкрементальное обновление)
+CREATE INDEX IF NOT EXISTS bookings_updated_at_idx ON bookings (updated_at);
+
+ANALYZE customers;
+ANALYZE tables;
+ANALYZE bookings;
@@ -0,0 +1,113 @@
+-- Денормализованная модель для основной таблицы бронирований в интерфейсе.
+-- Содержит столбцы, которые показывает MainView.createBookingsTable (плюс пожелания
+-- для окна подробностей и ключи для поддержки), и поддерживается триггерами,
+-- поэтому загрузка и инкрементальное обновление читают одну таблицу по индексу.
+-- Удаление бронирования оставляет «надгробие» (deleted = true), чтобы клиенты,
+-- читающие изменения по updated_at, тоже убрали строку; старые надгробия чистятся
+CREATE TABLE IF NOT EXISTS booking_grid (
+    id                integer PRIMARY KEY,
+    customer_id       integer      NOT NULL,
+    customer_name     varchar(100) NOT NULL,
+    phone             varchar(20)  NOT NULL,
+    guests            integer      NOT NULL,
+    booking_date_time timestamp    NOT NULL,
+    table_id          integer      NOT NULL,
+    table_number      integer      NOT NULL,
+    status            varchar(20)  NOT NULL,
+    special_requests  text,
+    deleted           boolean      NOT NULL DEFAULT false,
+    updated_at        timestamp    NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE INDEX IF NOT EXISTS booking_grid_time_idx ON booking_grid (booking_date_time) WHERE NOT deleted;
+CREATE INDEX IF NOT EXISTS booking_grid_updated_at_idx ON booking_grid (updated_at);
+CREATE INDEX IF NOT EXISTS booking_grid_customer_idx ON booking_grid (customer_id);
+CREATE INDEX IF NOT EXISTS booking_grid_table_idx ON booking_grid (table_id);
+
+CREATE OR REPLACE FUNCTION booking_grid_sync() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        UPDATE booking_grid SET deleted = true, updated_at = clock_timestamp() WHERE id = OLD.id;
+        RETURN OLD;
+    END IF;
+
+    INSERT INTO booking_grid (id, customer_id, customer_name, phone, guests, booking_date_time,
+                              table_id, table_number, status, special_requests, deleted, updated_at)
+    SELECT NEW.id, c.id, c.name, c.phone, NEW.guests, NEW.booking_date_time,
+           t.id, t.table_number, bs.name, NEW.special_requests, false, clock_timestamp()
+    FROM customers c, tables t, booking_status bs
+    WHERE c.id = NEW.customer_id AND t.id = NEW.table_id AND bs.id = NEW.status_id
+    ON CONFLICT (id) DO UPDATE SET
+        customer_id = EXCLUDED.customer_id,
+        customer_name = EXCLUDED.customer_name,
+        phone = EXCLUDED.phone,
+        guests = EXCLUDED.guests,
+        booking_date_time = EXCLUDED.booking_date_time,
+        table_id = EXCLUDED.table_id,
+        table_number = EXCLUDED.table_number,
+        status = EXCLUDED.status,
+        special_requests = EXCLUDED.special_requests,
+        deleted = false,
+        updated_at = EXCLUDED.updated_at;
+    RETURN NEW;
+END $$;
+
+-- Надгробия старше суток уже прочитаны всеми работающими клиентами
+CREATE OR REPLACE FUNCTION booking_grid_purge() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    DELETE FROM booking_grid WHERE deleted AND updated_at < clock_timestamp() - interval '1 day';
+    RETURN NULL;
+END $$;
+
+CREATE OR REPLACE FUNCTION booking_grid_sync_customer() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE booking_grid
+    SET customer_name = NEW.name, phone = NEW.phone, updated_at = clock_timestamp()
+    WHERE customer_id = NEW.id AND NOT deleted;
+    RETURN NEW;
+END $$;
+
+CREATE OR REPLACE FUNCTION booking_grid_sync_table() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE booking_grid
+    SET table_number = NEW.table_number, updated_at = clock_timestamp()
+    WHERE table_id = NEW.id AND NOT deleted;
+    RETURN NEW;
+END $$;
+
+DROP TRIGGER IF EXISTS booking_grid_sync ON bookings;
+CREATE TRIGGER booking_grid_sync
+    AFTER INSERT OR UPDATE OR DELETE ON bookings
+    FOR EACH ROW EXECUTE FUNCTION booking_grid_sync();
+
+DROP TRIGGER IF EXISTS booking_grid_purge ON bookings;
+CREATE TRIGGER booking_grid_purge
+    AFTER DELETE ON bookings
+    FOR EACH STATEMENT EXECUTE FUNCTION booking_grid_purge();
+
+DROP TRIGGER IF EXISTS booking_grid_sync_customer ON customers;
+CREATE TRIGGER booking_grid_sync_customer
+    AFTER UPDATE OF name, phone ON customers
+    FOR EACH ROW EXECUTE FUNCTION booking_grid_sync_customer();
+
+DROP TRIGGER IF EXISTS booking_grid_sync_table ON tables;
+CREATE TRIGGER booking_grid_sync_table
+    AFTER UPDATE OF table_number ON tables
+    FOR EACH ROW EXECUTE FUNCTION booking_grid_sync_table();
+
+-- Заполнение по уже существующим бронированиям
+INSERT INTO booking_grid (id, customer_id, customer_name, phone, guests, booking_date_time,
+                          table_id, table_number, status, special_requests)
+SELECT b.id, c.id, c.name, c.phone, b.guests, b.booking_date_time,
+       t.id, t.table_number, bs.name, b.special_requests
+FROM bookings b
+JOIN customers c ON b.customer_id = c.id
+JOIN tables t ON b.table_id = t.id
+JOIN booking_status bs ON b.status_id = bs.id
+ON CONFLICT (id) DO NOTHING;
+
+ANALYZE booking_grid;
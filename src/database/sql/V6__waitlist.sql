@@ -0,0 +1,16 @@
+-- Лист ожидания: компании, готовые занять стол, если он освободится.
+-- Подходит начало в любой час from_hour..to_hour дня wait_date
+CREATE TABLE IF NOT EXISTS waitlist (
+    id            serial PRIMARY KEY,
+    customer_name varchar(100) NOT NULL,
+    phone         varchar(20)  NOT NULL,
+    guests        integer      NOT NULL CHECK (guests > 0),
+    wait_date     date         NOT NULL,
+    from_hour     integer      NOT NULL,
+    to_hour       integer      NOT NULL,
+    created_at    timestamp    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CHECK (from_hour <= to_hour)
+);
+
+-- Загрузка листа с сегодняшнего дня и очистка прошедших дней
+CREATE INDEX IF NOT EXISTS waitlist_date_idx ON waitlist (wait_date);
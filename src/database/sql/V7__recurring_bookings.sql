@@ -0,0 +1,17 @@
+-- Регулярные брони: правило хранится один раз, повторения вычисляются приложением
+-- для запрошенного окна дат и в bookings не записываются
+CREATE TABLE IF NOT EXISTS recurring_bookings (
+    id               serial PRIMARY KEY,
+    customer_name    varchar(100) NOT NULL,
+    phone            varchar(20)  NOT NULL,
+    guests           integer      NOT NULL CHECK (guests > 0),
+    table_number     integer      NOT NULL,
+    start_hour       integer      NOT NULL,
+    frequency        varchar(10)  NOT NULL CHECK (frequency IN ('WEEKLY', 'MONTHLY')),
+    start_date       date         NOT NULL,
+    end_date         date,
+    exceptions       date[]       NOT NULL DEFAULT '{}',
+    special_requests text,
+    created_at       timestamp    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CHECK (end_date IS NULL OR end_date >= start_date)
+);
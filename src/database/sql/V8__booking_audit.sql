@@ -0,0 +1,12 @@
+-- Запуски аудита пересечений и перегрузки столов. snapshot_at — время БД, на которое
+-- прочитаны бронирования: следующий инкрементальный аудит проверяет только дни столов,
+-- где бронирования менялись после него
+CREATE TABLE IF NOT EXISTS booking_audit_runs (
+    id            serial PRIMARY KEY,
+    snapshot_at   timestamp NOT NULL,
+    incremental   boolean   NOT NULL,
+    rows_checked  integer   NOT NULL,
+    overlaps      integer   NOT NULL,
+    over_capacity integer   NOT NULL,
+    finished_at   timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,20 @@
+-- Повторная попытка создать bookings_no_overlap там, где V2 его пропустила, потому что
+-- в таблице уже были пересекающиеся бронирования. Ошибка здесь не перехватывается:
+-- миграция не записывается в schema_history и повторяется при каждом запуске,
+-- пока пересечения не устранены (их перечисляет java App --audit)
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'bookings_no_overlap') THEN
+        ALTER TABLE bookings ADD CONSTRAINT bookings_no_overlap
+            EXCLUDE USING gist (
+                table_id WITH =,
+                tsrange(date_trunc('hour', booking_date_time),
+                        date_trunc('hour', booking_date_time) + interval '2 hours') WITH &&
+            ) WHERE (status_id <> 3);
+    END IF;
+EXCEPTION
+    WHEN exclusion_violation THEN
+        RAISE EXCEPTION 'bookings_no_overlap не создано, двойные бронирования в БД не запрещены: %. '
+            'Устраните пересечения (java App --audit) и перезапустите приложение', SQLERRM
+            USING ERRCODE = 'exclusion_violation';
+END $$;
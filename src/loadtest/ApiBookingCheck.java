@@ -0,0 +1,105 @@
+package loadtest;
+
+import controller.MainController;
+import database.InMemoryBookingStore;
+import model.Booking;
+import model.BookingStatus;
+import model.RecurrenceRule;
+import model.Reservation;
+import service.RecurringSchedule;
+import service.SlotTakenException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+// Самопроверка операций HTTP API на общем контроллере: выбор наименьшего свободного стола,
+// конфликт с альтернативами, регулярные брони, отмена своих бронирований и созданных
+// на другом терминале (их еще нет в памяти). Запуск: java loadtest.ApiBookingCheck
+public class ApiBookingCheck {
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        // Столы 1..6 вместимостью 2, 4, 6, 2, 8, 4
+        InMemoryBookingStore store = new InMemoryBookingStore(LoadGenerator.sampleTables(6), 0);
+        ExecutorService uiThread = Checks.uiThread();
+        MainController controller = MainController.open(store, uiThread::execute);
+        uiThread.submit(() -> { }).get();
+
+        LocalDateTime dateTime = LocalDateTime.of(LocalDate.now().plusDays(3), LocalTime.of(19, 0));
+        Booking first = controller.addBooking(request(0, 2, dateTime));
+        checks.that(first.getTable().getCapacity() == 2, "стол не указан — берется наименьший подходящий");
+        Booking second = controller.addBooking(request(0, 2, dateTime));
+        checks.that(second.getTable().getCapacity() == 2 && second.getTable() != first.getTable(),
+                "занятый стол пропускается");
+
+        for (int i = 0; i < 4; i++) {
+            controller.addBooking(request(0, 2, dateTime));
+        }
+        SlotTakenException noTable = null;
+        try {
+            controller.addBooking(request(0, 2, dateTime.plusMinutes(30)));
+        } catch (SlotTakenException e) {
+            noTable = e;
+        }
+        checks.that(noTable != null && noTable.getTableNumber() == 0 && !noTable.getAlternatives().isEmpty(),
+                "свободных столов нет — конфликт с альтернативами");
+
+        SlotTakenException taken = null;
+        try {
+            controller.addBooking(request(first.getTable().getTableNumber(), 2, dateTime.plusHours(1)));
+        } catch (SlotTakenException e) {
+            taken = e;
+        }
+        checks.that(taken != null && taken.getTableNumber() == first.getTable().getTableNumber(),
+                "указанный занятый стол — конфликт по этому столу");
+
+        checks.that(controller.cancelBookingById(first.getId()), "отмена только что созданного бронирования");
+        checks.that(controller.findAvailableTables(2, dateTime).contains(first.getTable()),
+                "после отмены стол снова свободен");
+        checks.that(!controller.cancelBookingById(first.getId()), "повторная отмена — бронирования нет");
+
+        // Бронирование с другого терминала: в хранилище есть, в памяти контроллера еще нет
+        int foreignId = store.saveBooking(request(0, 4, dateTime.plusDays(1)).withTableNumber(2));
+        checks.that(controller.findBookingById(foreignId) == null, "чужое бронирование еще не загружено");
+        checks.that(controller.cancelBookingById(foreignId), "чужое бронирование отменяется по id");
+        checks.that(store.loadActiveReservations().stream().noneMatch(r -> r.id() == foreignId),
+                "отмена записана в хранилище");
+        checks.that(!controller.cancelBookingById(999_999), "неизвестный id — бронирования нет");
+
+        // Регулярная бронь стола 5 (единственный на 8 гостей) по вечерам того же дня недели
+        LocalDateTime weekly = dateTime.plusDays(7).withHour(20);
+        RecurrenceRule rule = controller.addRecurrenceRule(new RecurrenceRule(0, "Регулярный", "+70000000001", 8, 5,
+                20, RecurrenceRule.Frequency.WEEKLY, weekly.toLocalDate(), null, Set.of(), ""));
+        checks.that(controller.findAvailableTables(8, weekly).isEmpty(),
+                "стол регулярной брони не предлагается как свободный");
+        SlotTakenException recurringTaken = null;
+        try {
+            controller.addBooking(request(0, 8, weekly.plusWeeks(2)));
+        } catch (SlotTakenException e) {
+            recurringTaken = e;
+        }
+        checks.that(recurringTaken != null, "бронь на время регулярной брони отклоняется");
+        checks.that(controller.addBooking(request(0, 8, weekly.plusDays(1))).getTable().getTableNumber() == 5,
+                "в другие дни стол свободен");
+
+        // Правила с других терминалов: набор подменяется, только если изменился
+        RecurringSchedule schedule = new RecurringSchedule();
+        schedule.put(rule);
+        schedule.put(new RecurrenceRule(-1, "Новое", "+70000000002", 6, 3,
+                20, RecurrenceRule.Frequency.WEEKLY, weekly.toLocalDate(), null, Set.of(), ""));
+        checks.that(!schedule.replaceSaved(List.of(rule)), "неизменные правила не перестраиваются");
+        checks.that(schedule.replaceSaved(List.of()) && !schedule.blocks(5, weekly) && schedule.blocks(3, weekly),
+                "снятое правило исчезает, непроверенное новое остается");
+
+        checks.exit();
+    }
+
+    private static Reservation request(int tableNumber, int guests, LocalDateTime dateTime) {
+        return new Reservation(0, "Проверка", "+70000000000", guests, dateTime, tableNumber,
+                BookingStatus.PENDING, "");
+    }
+}
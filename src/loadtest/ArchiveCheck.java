@@ -0,0 +1,70 @@
+package loadtest;
+
+import controller.MainController;
+import database.InMemoryBookingStore;
+import model.Booking;
+import model.BookingStatus;
+import model.Reservation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+// Самопроверка архива: завершенные бронирования старше срока хранения уходят из рабочего
+// списка, незавершенные остаются; фильтр по дате до горизонта собирает день из рабочего
+// списка и архива, по свежей дате архив не читается. Запуск: java loadtest.ArchiveCheck
+public class ArchiveCheck {
+    private static final long TIMEOUT_MS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        InMemoryBookingStore store = new InMemoryBookingStore(LoadGenerator.sampleTables(2), 0);
+        LocalDateTime old = LocalDate.now().minusDays(400).atTime(19, 0);
+        store.saveBooking(reservation("Завершено", old, BookingStatus.COMPLETED));
+        store.saveBooking(reservation("Не закрыто", old.plusHours(3), BookingStatus.CONFIRMED));
+        store.saveBooking(reservation("Завтра", LocalDate.now().plusDays(1).atTime(19, 0), BookingStatus.PENDING));
+
+        // Архивация запускается при создании контроллера (срок хранения по умолчанию — 365 дней)
+        ExecutorService uiThread = Checks.uiThread();
+        MainController controller = MainController.open(store, uiThread::execute);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (store.loadArchivedReservations(old.toLocalDate(), old.toLocalDate().plusDays(1)).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        uiThread.submit(() -> { }).get();
+
+        List<String> hot = names(controller.getBookings());
+        checks.that(hot.size() == 2 && !hot.contains("Завершено"),
+                "завершенное старое бронирование перенесено в архив и убрано из списка");
+        checks.that(hot.contains("Не закрыто"), "незавершенное старое бронирование не архивируется");
+
+        boolean archived = uiThread.submit(() -> controller.applyFilter(old)).get();
+        controller.archiveLoad().get();
+        List<String> day = names(controller.getArchivedBookings());
+        checks.that(archived && day.size() == 2 && day.containsAll(List.of("Завершено", "Не закрыто")),
+                "день до горизонта собран из рабочего списка и архива");
+
+        // Фильтр сменили раньше, чем дочитался архив: устаревший результат не показывается
+        uiThread.submit(() -> {
+            controller.applyFilter(old);
+            controller.clearFilter();
+        }).get();
+        controller.archiveLoad().get();
+        checks.that(controller.getArchivedBookings().isEmpty(), "архив сброшенного фильтра не показывается");
+
+        boolean recent = uiThread.submit(() -> controller.applyFilter(LocalDateTime.now())).get();
+        checks.that(!recent && controller.getArchivedBookings().isEmpty(), "свежая дата архив не читает");
+
+        checks.exit();
+    }
+
+    private static Reservation reservation(String name, LocalDateTime dateTime, BookingStatus status) {
+        return new Reservation(0, name, "+70000000000", 2, dateTime, 1, status, "");
+    }
+
+    private static List<String> names(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getCustomerName).toList();
+    }
+}
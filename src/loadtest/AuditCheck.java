@@ -0,0 +1,101 @@
+package loadtest;
+
+import database.InMemoryBookingStore;
+import model.AuditRow;
+import service.Availability;
+import service.BookingAudit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+// Самопроверка аудита: пересечения и превышения вместимости, найденные параллельным проходом
+// по отсортированным бронированиям, совпадают с попарным перебором (Availability.overlaps)
+// на случайной истории за 10 лет, включая начало в :30. Повторный запуск с incremental
+// отмечается как инкрементальный. Запуск:
+//   java loadtest.AuditCheck --rows=50000 --tables=200
+public class AuditCheck {
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        Map<String, String> options = LoadGenerator.parseOptions(args);
+        int rows = Integer.parseInt(options.getOrDefault("rows", "50000"));
+        int tables = Integer.parseInt(options.getOrDefault("tables", "200"));
+
+        List<AuditRow> history = new ArrayList<>(rows);
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2015, 1, 1, 0, 0);
+        for (int i = 0; i < rows; i++) {
+            LocalDateTime dateTime = base.plusDays(random.nextInt(3650))
+                    .withHour(8 + random.nextInt(16)).withMinute(random.nextBoolean() ? 0 : 30);
+            history.add(new AuditRow(i + 1, 1 + random.nextInt(tables), 4, 1 + random.nextInt(5), dateTime,
+                    random.nextInt(4) == 0));
+        }
+        // История подменяет бронирования хранилища; запуски аудита сохраняются как обычно
+        InMemoryBookingStore store = new InMemoryBookingStore(List.of(), 0) {
+            @Override
+            public synchronized LocalDateTime streamAuditRows(LocalDateTime changedSince, Consumer<AuditRow> sink) {
+                history.forEach(sink);
+                return LocalDateTime.now();
+            }
+        };
+
+        BookingAudit audit = new BookingAudit(store, ForkJoinPool.commonPool());
+        BookingAudit.Report first = audit.run(true);
+        checks.that(!first.incremental(), "без предыдущего запуска аудит выполняется полностью");
+        BookingAudit.Report report = audit.run(false);
+        System.out.println(report);
+
+        Set<List<Integer>> found = new HashSet<>();
+        for (BookingAudit.Overlap overlap : report.overlaps()) {
+            found.add(pair(overlap.firstId(), overlap.secondId()));
+        }
+        Set<List<Integer>> expected = bruteForceOverlaps(history);
+        checks.that(report.rowsChecked() == rows && report.overlaps().size() == found.size(),
+                "каждое бронирование проверено, пересечения без повторов");
+        checks.that(found.equals(expected), "пересечения совпадают с попарным перебором (" + expected.size() + ")");
+
+        Set<Integer> overCapacity = new HashSet<>();
+        report.overCapacity().forEach(row -> overCapacity.add(row.bookingId()));
+        Set<Integer> expectedOverCapacity = new HashSet<>();
+        history.stream().filter(row -> row.guests() > row.capacity())
+                .forEach(row -> expectedOverCapacity.add(row.bookingId()));
+        checks.that(overCapacity.equals(expectedOverCapacity),
+                "превышения вместимости совпадают (" + expectedOverCapacity.size() + ")");
+
+        checks.that(audit.run(true).incremental(), "после сохраненного запуска аудит инкрементальный");
+        checks.exit();
+    }
+
+    // Все пары бронирований одного стола, без сортировки
+    private static Set<List<Integer>> bruteForceOverlaps(List<AuditRow> history) {
+        Map<Integer, List<AuditRow>> byTable = new HashMap<>();
+        for (AuditRow row : history) {
+            byTable.computeIfAbsent(row.tableNumber(), table -> new ArrayList<>()).add(row);
+        }
+        Set<List<Integer>> overlaps = new HashSet<>();
+        for (List<AuditRow> tableRows : byTable.values()) {
+            for (int i = 0; i < tableRows.size(); i++) {
+                for (int j = i + 1; j < tableRows.size(); j++) {
+                    AuditRow first = tableRows.get(i);
+                    AuditRow second = tableRows.get(j);
+                    if (Availability.overlaps(first.bookingDateTime(), second.bookingDateTime())) {
+                        overlaps.add(pair(first.bookingId(), second.bookingId()));
+                    }
+                }
+            }
+        }
+        return overlaps;
+    }
+
+    private static List<Integer> pair(int firstId, int secondId) {
+        return List.of(Math.min(firstId, secondId), Math.max(firstId, secondId));
+    }
+}
@@ -0,0 +1,116 @@
+package loadtest;
+
+import controller.MainController;
+import database.InMemoryBookingStore;
+import model.Booking;
+import model.BookingStatus;
+import model.RecurrenceRule;
+import model.Table;
+import service.Availability;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+// Самопроверка запоминания свободных столов: повторный запрос отвечается сразу, бронирование
+// сбрасывает запомненное только для своего дня, а при случайных бронированиях, отменах
+// и регулярной брони результат всегда совпадает с полным просмотром списка бронирований.
+// Запуск: java loadtest.AvailabilityMemoCheck --operations=3000
+public class AvailabilityMemoCheck {
+    private static final int TABLES = 60;
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        int operations = Integer.parseInt(LoadGenerator.parseOptions(args).getOrDefault("operations", "3000"));
+        InMemoryBookingStore store = new InMemoryBookingStore(LoadGenerator.sampleTables(TABLES), 0);
+        ExecutorService uiThread = Checks.uiThread();
+        MainController controller = MainController.open(store, uiThread::execute);
+        uiThread.submit(() -> { }).get();
+        List<Table> tables = uiThread.submit(() -> List.copyOf(controller.getTables())).get();
+
+        LocalDateTime first = LocalDate.now().plusDays(1).atTime(19, 0);
+        LocalDateTime second = first.plusDays(1);
+        controller.findAvailableTablesAsync(2, first).get();
+        controller.findAvailableTablesAsync(2, second).get();
+        checks.that(controller.findAvailableTablesAsync(2, first).isDone()
+                        && controller.findAvailableTablesAsync(2, second).isDone(),
+                "повторный запрос возвращает запомненный результат сразу");
+
+        Table table = tables.get(0);
+        controller.addBooking(new Booking(0, "Гость", "+70000000000", 2, first, table, ""));
+        uiThread.submit(() -> { }).get();
+        CompletableFuture<List<Table>> afterBooking = controller.findAvailableTablesAsync(2, first);
+        checks.that(!afterBooking.get().contains(table), "бронирование сбрасывает запомненное для своего дня");
+        checks.that(controller.findAvailableTablesAsync(2, second).isDone(), "другие дни остаются запомненными");
+
+        Random random = new Random(3);
+        List<Booking> added = new ArrayList<>();
+        int mismatches = 0;
+        for (int i = 0; i < operations; i++) {
+            LocalDateTime dateTime = LocalDate.now().plusDays(1 + random.nextInt(5)).atTime(8 + random.nextInt(16), 0);
+            int guests = 1 + random.nextInt(8);
+            int action = random.nextInt(8);
+            if (action < 2) {
+                Booking booking = new Booking(0, "Гость " + i, "+7" + i, 2, dateTime,
+                        tables.get(random.nextInt(TABLES)), "");
+                try {
+                    controller.addBooking(booking);
+                    added.add(booking);
+                } catch (RuntimeException e) {
+                    // стол занят — тоже обычный исход
+                }
+            } else if (action == 2 && !added.isEmpty()) {
+                controller.changeBookingStatus(added.remove(random.nextInt(added.size())), BookingStatus.CANCELLED);
+            }
+            if (i == operations / 2) {
+                controller.addRecurrenceRule(new RecurrenceRule(0, "Регулярно", "+70000000001", 2,
+                        tables.get(1).getTableNumber(), 13, RecurrenceRule.Frequency.WEEKLY,
+                        LocalDate.now().plusDays(1), null, Set.of(), "")
+                        .withExceptions(Set.copyOf(conflictDates(controller, tables.get(1), uiThread))));
+            }
+            uiThread.submit(() -> { }).get();
+            List<Table> memo = controller.findAvailableTablesAsync(guests, dateTime).get();
+            if (!memo.equals(fullScan(controller, uiThread, tables, guests, dateTime))) {
+                mismatches++;
+            }
+        }
+        checks.that(mismatches == 0, "результат совпадает с полным просмотром (" + operations + " запросов)");
+        checks.exit();
+    }
+
+    // Свободные столы по списку бронирований и правил, без движка и запомненных результатов
+    private static List<Table> fullScan(MainController controller, ExecutorService uiThread, List<Table> tables,
+                                        int guests, LocalDateTime dateTime) throws Exception {
+        return uiThread.submit(() -> {
+            List<Table> free = new ArrayList<>();
+            for (Table table : tables) {
+                boolean busy = controller.getBookings().stream().anyMatch(booking ->
+                        booking.getTable().getTableNumber() == table.getTableNumber()
+                                && Availability.blocks(booking.getStatus(), booking.getBookingDateTime(), dateTime))
+                        || controller.getRecurrenceRules().stream().anyMatch(rule ->
+                        rule.tableNumber() == table.getTableNumber() && rule.occursOn(dateTime.toLocalDate())
+                                && Availability.overlaps(rule.dateTimeOn(dateTime.toLocalDate()), dateTime));
+                if (table.getCapacity() >= guests && !busy) {
+                    free.add(table);
+                }
+            }
+            return free;
+        }).get();
+    }
+
+    // Дни, когда стол уже занят в 13:00 или рядом: регулярная бронь их пропускает
+    private static List<LocalDate> conflictDates(MainController controller, Table table, ExecutorService uiThread)
+            throws Exception {
+        return uiThread.submit(() -> controller.getBookings().stream()
+                .filter(booking -> booking.getTable().getTableNumber() == table.getTableNumber()
+                        && Availability.blocks(booking.getStatus(), booking.getBookingDateTime(),
+                        booking.getBookingDateTime().toLocalDate().atTime(13, 0)))
+                .map(booking -> booking.getBookingDateTime().toLocalDate())
+                .toList()).get();
+    }
+}
@@ -0,0 +1,78 @@
+package loadtest;
+
+import controller.MainController;
+import database.InMemoryBookingStore;
+import javafx.collections.ListChangeListener;
+import model.Booking;
+import model.BookingStatus;
+import model.Reservation;
+import model.Table;
+import model.TableInfo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Самопроверка действий над несколькими выделенными бронированиями: массовая отмена освобождает
+// столы, уже имеющие статус и отмененные пропускаются, статус, измененный в БД другим терминалом,
+// не перезаписывается, массовое удаление — одно изменение списка, повтор ничего не делает.
+// Запуск: java loadtest.BulkOperationsCheck
+public class BulkOperationsCheck {
+    private static final int TABLES = 100;
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        List<TableInfo> tables = new ArrayList<>();
+        for (int i = 1; i <= TABLES; i++) {
+            tables.add(new TableInfo(i, 4, "Зал"));
+        }
+        InMemoryBookingStore store = new InMemoryBookingStore(tables, 0);
+        ExecutorService uiThread = Checks.uiThread();
+        MainController controller = MainController.open(store, uiThread::execute);
+        uiThread.submit(() -> { }).get();
+        LocalDateTime dateTime = LocalDate.now().plusDays(1).atTime(19, 0);
+        for (Table table : uiThread.submit(() -> List.copyOf(controller.getTables())).get()) {
+            controller.addBooking(new Booking(0, "Гость " + table.getTableNumber(), "+70000000000", 2,
+                    dateTime, table, ""));
+        }
+        List<Booking> all = uiThread.submit(() -> List.copyOf(controller.getBookings())).get();
+
+        int cancelled = controller.changeBookingStatuses(all.subList(0, 80), BookingStatus.CANCELLED);
+        uiThread.submit(() -> { }).get();
+        checks.that(cancelled == 80 && controller.getAvailableTables(2, dateTime).size() == 80,
+                "массовая отмена освобождает столы");
+        checks.that(store.loadActiveReservations().size() == 20, "отмена записана в хранилище");
+
+        int confirmed = controller.changeBookingStatuses(all, BookingStatus.CONFIRMED);
+        int confirmedAgain = controller.changeBookingStatuses(all, BookingStatus.CONFIRMED);
+        uiThread.submit(() -> { }).get();
+        checks.that(confirmed == 20 && confirmedAgain == 0, "отмененные и уже подтвержденные пропускаются");
+
+        // Другой терминал отменил бронирование; в памяти этого терминала оно еще подтверждено
+        Booking stale = all.get(80);
+        store.updateStatus(stale.getId(), BookingStatus.CANCELLED);
+        int completed = controller.changeBookingStatuses(all.subList(80, 100), BookingStatus.COMPLETED);
+        uiThread.submit(() -> { }).get();
+        List<Reservation> active = store.loadActiveReservations();
+        checks.that(completed == 19 && active.size() == 19 && active.stream().noneMatch(r -> r.id() == stale.getId())
+                        && active.stream().allMatch(r -> r.status() == BookingStatus.COMPLETED),
+                "статус, измененный в БД другим терминалом, не перезаписывается");
+
+        AtomicInteger changeEvents = new AtomicInteger();
+        uiThread.submit(() -> controller.getBookings()
+                .addListener((ListChangeListener<Booking>) change -> changeEvents.incrementAndGet())).get();
+        int deleted = controller.deleteBookings(all.subList(50, 100));
+        int deletedAgain = controller.deleteBookings(all.subList(90, 100));
+        uiThread.submit(() -> { }).get();
+        checks.that(deleted == 50 && deletedAgain == 0 && store.loadActiveReservations().isEmpty(),
+                "удалены из хранилища, повторное удаление ничего не делает");
+        checks.that(changeEvents.get() == 1 && controller.getBookings().size() == 50,
+                "удаление пачки — одно изменение списка");
+        checks.that(controller.getAvailableTables(2, dateTime).size() == TABLES,
+                "после удаления все столы свободны (оставшиеся бронирования отменены)");
+        checks.exit();
+    }
+}
@@ -0,0 +1,36 @@
+package loadtest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Итог самопроверок из этого пакета (тестового фреймворка в проекте нет):
+// каждая проверка печатается, код выхода 1, если хоть одна не прошла
+final class Checks {
+    private int passed;
+    private int failed;
+
+    void that(boolean condition, String description) {
+        if (condition) {
+            passed++;
+            System.out.println("OK    " + description);
+        } else {
+            failed++;
+            System.out.println("FAIL  " + description);
+        }
+    }
+
+    // Однопоточный исполнитель вместо потока JavaFX. Поток — демон: исключение в проверке
+    // завершает процесс с ошибкой, а не оставляет его висеть
+    static ExecutorService uiThread() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ui-thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void exit() {
+        System.out.println("Проверок: " + (passed + failed) + ", не прошло: " + failed);
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,182 @@
+package loadtest;
+
+import controller.MainController;
+import database.InMemoryBookingStore;
+import model.Booking;
+import model.BookingStatus;
+import model.Reservation;
+import model.TableInfo;
+import service.SlotTakenException;
+import service.TableCombinationIndex;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+// Самопроверка групповых броней: индекс сочетаний совпадает с перебором всех наборов столов
+// на случайных залах, явные пары соседей между зонами отбрасываются, гости делятся по вместимости,
+// а конфликт при записи в хранилище не оставляет ни строк, ни занятых слотов.
+// Запуск: java loadtest.CombinationCheck
+public class CombinationCheck {
+    private static final int MAX_TABLES = 3;
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+
+        Random random = new Random(46);
+        int mismatches = 0;
+        int compared = 0;
+        for (int trial = 0; trial < 200; trial++) {
+            List<TableInfo> tables = randomHall(random);
+            TableCombinationIndex index = TableCombinationIndex.build(tables, null, MAX_TABLES);
+            for (int guests = 1; guests <= 8 * MAX_TABLES + 1; guests++) {
+                List<TableCombinationIndex.Combination> candidates = index.candidates(guests);
+                Set<List<Integer>> found = new HashSet<>();
+                int previousCapacity = 0;
+                for (TableCombinationIndex.Combination combination : candidates) {
+                    found.add(combination.tableNumbers());
+                    compared++;
+                    if (combination.capacity() < previousCapacity) {
+                        mismatches++;
+                    }
+                    previousCapacity = combination.capacity();
+                }
+                if (!found.equals(bruteForce(tables, guests)) || found.size() != candidates.size()) {
+                    mismatches++;
+                }
+            }
+        }
+        checks.that(mismatches == 0 && compared > 0,
+                "индекс сочетаний совпадает с перебором на 200 случайных залах (сочетаний: " + compared + ")");
+
+        List<TableInfo> hall = List.of(new TableInfo(1, 2, "A"), new TableInfo(3, 6, "A"),
+                new TableInfo(4, 8, "B"), new TableInfo(7, 4, "B"));
+        List<TableCombinationIndex.Combination> explicit =
+                TableCombinationIndex.build(hall, "1-3,4-7,3-4", MAX_TABLES).candidates(10);
+        checks.that(explicit.size() == 1 && explicit.get(0).tableNumbers().equals(List.of(4, 7)),
+                "явные пары соседей: пара из разных зон не используется");
+
+        // Банкетный зал: 12 столов подряд в одной зоне, вместимость 2, 4, 6, 2, 8, 4 по кругу
+        List<TableInfo> banquet = new ArrayList<>();
+        for (TableInfo table : LoadGenerator.sampleTables(12)) {
+            banquet.add(new TableInfo(table.tableNumber(), table.capacity(), "Банкетный зал"));
+        }
+        InMemoryBookingStore store = new InMemoryBookingStore(banquet, 0);
+        ExecutorService uiThread = Checks.uiThread();
+        MainController controller = MainController.open(store, uiThread::execute);
+        uiThread.submit(() -> { }).get();
+        LocalDateTime dateTime = LocalDate.now().plusDays(1).atTime(19, 0);
+
+        List<TableCombinationIndex.Combination> free = controller.getAvailableCombinations(14, dateTime);
+        TableCombinationIndex.Combination chosen = free.get(0);
+        List<Booking> group = controller.addGroupBooking("Банкет", "+70000000000", 14, dateTime, chosen, "");
+        checks.that(group.size() == chosen.tableNumbers().size()
+                        && group.stream().mapToInt(Booking::getGuests).sum() == 14
+                        && group.stream().allMatch(booking -> booking.getGuests() <= booking.getTable().getCapacity()),
+                "гости группы разделены по столам без превышения вместимости");
+        checks.that(!controller.getAvailableCombinations(14, dateTime).contains(chosen)
+                        && rejects(controller, chosen, dateTime),
+                "занятое сочетание больше не предлагается и не бронируется");
+
+        // Стол занят в хранилище с другого терминала, в памяти этого терминала он свободен
+        TableCombinationIndex.Combination other = controller.getAvailableCombinations(14, dateTime).get(0);
+        int taken = other.tableNumbers().get(other.tableNumbers().size() - 1);
+        store.saveBooking(new Reservation(0, "Другой терминал", "+70000000001", 2, dateTime, taken,
+                BookingStatus.CONFIRMED, ""));
+        int rowsBefore = store.loadActiveReservations().size();
+        checks.that(rejects(controller, other, dateTime) && store.loadActiveReservations().size() == rowsBefore,
+                "конфликт при записи группы не оставляет строк в хранилище");
+        int firstTable = other.tableNumbers().get(0);
+        checks.that(controller.getAvailableTables(1, dateTime).stream()
+                        .anyMatch(table -> table.getTableNumber() == firstTable),
+                "после конфликта слоты остальных столов группы освобождены");
+        checks.exit();
+    }
+
+    // Зал из 6..12 столов с пропусками в номерах, двумя зонами и вместимостью 2..8
+    private static List<TableInfo> randomHall(Random random) {
+        List<TableInfo> tables = new ArrayList<>();
+        int number = 0;
+        int count = 6 + random.nextInt(7);
+        for (int i = 0; i < count; i++) {
+            number += 1 + (random.nextInt(5) == 0 ? 1 : 0);
+            tables.add(new TableInfo(number, 2 + random.nextInt(7), random.nextInt(3) == 0 ? "B" : "A"));
+        }
+        return tables;
+    }
+
+    // Связные наборы из 2..MAX_TABLES столов, вмещающие компанию, ни одна связная часть которых ее не вмещает
+    private static Set<List<Integer>> bruteForce(List<TableInfo> tables, int guests) {
+        Set<List<Integer>> result = new HashSet<>();
+        int n = tables.size();
+        for (int mask = 1; mask < 1 << n; mask++) {
+            int size = Integer.bitCount(mask);
+            if (size < 2 || size > MAX_TABLES || !connected(tables, mask) || capacity(tables, mask) < guests) {
+                continue;
+            }
+            boolean minimal = true;
+            for (int part = (mask - 1) & mask; part > 0 && minimal; part = (part - 1) & mask) {
+                if (connected(tables, part) && capacity(tables, part) >= guests) {
+                    minimal = false;
+                }
+            }
+            if (minimal) {
+                List<Integer> numbers = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    if ((mask & 1 << i) != 0) {
+                        numbers.add(tables.get(i).tableNumber());
+                    }
+                }
+                result.add(numbers);
+            }
+        }
+        return result;
+    }
+
+    // Соседи — столы одной зоны с номерами подряд; столы в списке по возрастанию номера
+    private static boolean connected(List<TableInfo> tables, int mask) {
+        int first = Integer.numberOfTrailingZeros(mask);
+        int reached = 1 << first;
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (int i = 0; i + 1 < tables.size(); i++) {
+                TableInfo left = tables.get(i);
+                TableInfo right = tables.get(i + 1);
+                boolean adjacent = right.tableNumber() == left.tableNumber() + 1
+                        && left.location().equals(right.location());
+                int pair = 1 << i | 1 << (i + 1);
+                if (adjacent && (mask & pair) == pair && (reached & pair) != 0 && (reached & pair) != pair) {
+                    reached |= pair;
+                    grown = true;
+                }
+            }
+        }
+        return reached == mask;
+    }
+
+    private static int capacity(List<TableInfo> tables, int mask) {
+        int capacity = 0;
+        for (int i = 0; i < tables.size(); i++) {
+            if ((mask & 1 << i) != 0) {
+                capacity += tables.get(i).capacity();
+            }
+        }
+        return capacity;
+    }
+
+    private static boolean rejects(MainController controller, TableCombinationIndex.Combination combination,
+                                   LocalDateTime dateTime) {
+        try {
+            controller.addGroupBooking("Еще одна группа", "+70000000002", 14, dateTime, combination, "");
+            return false;
+        } catch (SlotTakenException e) {
+            return true;
+        }
+    }
+}
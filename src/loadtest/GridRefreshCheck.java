@@ -0,0 +1,108 @@
+package loadtest;
+
+import controller.MainController;
+import database.DatabaseConnection;
+import model.Booking;
+import model.BookingStatus;
+import model.Reservation;
+import model.Venue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Predicate;
+
+// Самопроверка booking_grid на настоящей БД (заведение по умолчанию, cafe.db.*): два терминала,
+// изменения одного доходят до другого через триггеры и инкрементальное обновление, включая
+// переименование клиента прямо в БД и удаление (надгробие). Создает и удаляет свои бронирования.
+// Запуск: java loadtest.GridRefreshCheck
+public class GridRefreshCheck {
+    private static final long TIMEOUT_MS = Long.getLong("cafe.check.timeoutMs", 15_000L);
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        System.setProperty("cafe.grid.refreshSeconds", System.getProperty("cafe.grid.refreshSeconds", "1"));
+        Venue venue = DatabaseConnection.getDefaultVenue();
+        LocalDateTime dateTime = LocalDate.now().plusDays(30).atTime(12, 0);
+        String phone = "+7999" + (System.currentTimeMillis() % 10_000_000);
+
+        ExecutorService firstThread = Checks.uiThread();
+        MainController first = start(venue, firstThread);
+        Booking existing = first.addBooking(request("Сетка до запуска", phone, dateTime));
+
+        // Второй терминал загружает сетку одним запросом к booking_grid
+        ExecutorService secondThread = Checks.uiThread();
+        MainController second = start(venue, secondThread);
+        checks.that(await(second, secondThread, existing.getId(), b -> b != null),
+                "начальная загрузка из booking_grid видит бронирование другого терминала");
+
+        Booking added = first.addBooking(request("Сетка после запуска", phone, dateTime.plusHours(3)));
+        checks.that(await(second, secondThread, added.getId(), b -> b != null),
+                "новое бронирование приходит с инкрементальным обновлением");
+
+        first.cancelBookingById(added.getId());
+        checks.that(await(second, secondThread, added.getId(),
+                        b -> b != null && b.getStatus() == BookingStatus.CANCELLED),
+                "смена статуса приходит с инкрементальным обновлением");
+
+        String renamed = "Переименован в БД";
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE customers SET name = ? WHERE id = (SELECT customer_id FROM bookings WHERE id = ?)")) {
+            stmt.setString(1, renamed);
+            stmt.setInt(2, added.getId());
+            stmt.executeUpdate();
+        }
+        checks.that(await(second, secondThread, added.getId(), b -> b != null && renamed.equals(b.getCustomerName())),
+                "изменение клиента доходит до сетки через триггер на customers");
+
+        first.deleteBooking(added);
+        checks.that(isTombstone(venue, added.getId()), "удаление оставляет надгробие в booking_grid");
+        checks.that(await(second, secondThread, added.getId(), b -> b == null),
+                "удаленное бронирование исчезает у другого терминала");
+
+        first.deleteBooking(existing);
+        checks.exit();
+    }
+
+    private static MainController start(Venue venue, ExecutorService uiThread) throws Exception {
+        MainController controller = MainController.openHeadless(venue, uiThread);
+        controller.initialLoad().join();
+        uiThread.submit(() -> { }).get();
+        return controller;
+    }
+
+    // Ждет, пока бронирование с этим id в списке терминала (null — нет в списке) удовлетворит условию
+    private static boolean await(MainController controller, ExecutorService uiThread, int bookingId,
+                                 Predicate<Booking> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            Booking booking = CompletableFuture.supplyAsync(() -> controller.getBookings().stream()
+                    .filter(b -> b.getId() == bookingId).findFirst().orElse(null), uiThread).join();
+            if (condition.test(booking)) {
+                return true;
+            }
+            Thread.sleep(200);
+        }
+        return false;
+    }
+
+    private static boolean isTombstone(Venue venue, int bookingId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(venue);
+             PreparedStatement stmt = conn.prepareStatement("SELECT deleted FROM booking_grid WHERE id = ?")) {
+            stmt.setInt(1, bookingId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static Reservation request(String name, String phone, LocalDateTime dateTime) {
+        return new Reservation(0, name, phone, 2, dateTime, 0, BookingStatus.PENDING, "");
+    }
+}
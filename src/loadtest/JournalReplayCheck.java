@@ -0,0 +1,97 @@
+package loadtest;
+
+import database.BookingJournal;
+import database.InMemoryBookingStore;
+import database.JournalingBookingStore;
+import model.BookingStatus;
+import model.Reservation;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Самопроверка отправки локального журнала: повтор бронирования, вставленного в БД до сбоя,
+// не создает дубликат и ложный конфликт; настоящий конфликт попадает в список; записи
+// старого формата (без ключа) читаются и отправляются. Запуск: java loadtest.JournalReplayCheck
+public class JournalReplayCheck {
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        InMemoryBookingStore db = new InMemoryBookingStore(LoadGenerator.sampleTables(4), 0);
+        LocalDateTime dateTime = LocalDate.now().plusDays(1).atTime(19, 0);
+        db.saveBooking(reservation(0, "Занявший стол", 1, dateTime));
+
+        // Записи, сделанные без связи с БД
+        Path file = Files.createTempFile("journal-check", ".log");
+        BookingJournal journal = new BookingJournal(file);
+        BookingJournal.Entry inserted = BookingJournal.Entry.add(reservation(-1, "Вставлен до сбоя", 2, dateTime));
+        journal.append(inserted);
+        journal.append(BookingJournal.Entry.status(-1, BookingStatus.PENDING, BookingStatus.CONFIRMED));
+        journal.append(BookingJournal.Entry.add(reservation(-2, "Конфликт", 1, dateTime.plusHours(1))));
+        BookingJournal.await(journal.append(BookingJournal.Entry.add(reservation(-3, "Обычный", 3, dateTime))));
+        journal.close();
+
+        // Сбой: первое бронирование вставлено, отметка MAPPED на диск не попала
+        db.saveJournaledBooking(inserted.booking(), inserted.key());
+
+        BookingJournal reopened = new BookingJournal(file);
+        checks.that(inserted.key().equals(reopened.peekPending(1).get(0).key()), "ключ записи сохраняется в журнале");
+        List<JournalingBookingStore.Conflict> conflicts = replay(reopened, db);
+
+        checks.that(conflicts.size() == 1 && conflicts.get(0).bookingId() == -2,
+                "конфликт только у бронирования на занятый стол");
+        List<Reservation> saved = db.loadActiveReservations().stream()
+                .filter(r -> r.customerName().equals("Вставлен до сбоя")).toList();
+        checks.that(saved.size() == 1, "повторная отправка не создала дубликат");
+        checks.that(saved.size() == 1 && saved.get(0).status() == BookingStatus.CONFIRMED,
+                "следующие записи применены к сохраненному бронированию");
+        checks.that(db.loadActiveReservations().stream().anyMatch(r -> r.customerName().equals("Обычный")),
+                "остальные бронирования отправлены");
+        checks.that(Files.size(file) == 0, "журнал обнулен после отправки");
+        reopened.close();
+
+        // Журнал, записанный до появления ключей
+        Path legacy = Files.createTempFile("journal-legacy", ".log");
+        Files.writeString(legacy, "1\tADD\t-1\tСтарый формат\t+70000000000\t2\t" + dateTime.plusDays(1) +
+                "\t4\tPENDING\t\n", StandardCharsets.UTF_8);
+        BookingJournal legacyJournal = new BookingJournal(legacy);
+        checks.that(legacyJournal.peekPending(1).get(0).key() == null, "запись без ключа читается");
+        checks.that(replay(legacyJournal, db).isEmpty() && db.loadActiveReservations().stream()
+                        .anyMatch(r -> r.customerName().equals("Старый формат")),
+                "запись без ключа отправляется как раньше");
+        legacyJournal.close();
+
+        checks.exit();
+    }
+
+    // Отправляет журнал (хранилище с неотправленным журналом стартует офлайн) и ждет возврата в онлайн
+    private static List<JournalingBookingStore.Conflict> replay(BookingJournal journal, InMemoryBookingStore db)
+            throws InterruptedException {
+        List<JournalingBookingStore.Conflict> conflicts = new CopyOnWriteArrayList<>();
+        JournalingBookingStore store = new JournalingBookingStore(db, journal, 2);
+        store.start(new JournalingBookingStore.Listener() {
+            @Override
+            public void onStateChanged(boolean online, int pendingCount) {
+            }
+
+            @Override
+            public void onConflicts(List<JournalingBookingStore.Conflict> found) {
+                conflicts.addAll(found);
+            }
+        }, Duration.ofMillis(50));
+        for (int i = 0; i < 100 && !store.isOnline(); i++) {
+            Thread.sleep(20);
+        }
+        store.stop();
+        return conflicts;
+    }
+
+    private static Reservation reservation(int id, String name, int tableNumber, LocalDateTime dateTime) {
+        return new Reservation(id, name, "+70000000000", 2, dateTime, tableNumber, BookingStatus.PENDING, "");
+    }
+}
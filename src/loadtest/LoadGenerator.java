@@ -0,0 +1,423 @@
+package loadtest;
+
+import controller.MainController;
+import database.BookingRepository;
+import database.BookingStore;
+import database.DatabaseConnection;
+import database.InMemoryBookingStore;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.Booking;
+import model.BookingStatus;
+import model.Reservation;
+import model.Table;
+import model.TableInfo;
+import service.Availability;
+import service.SlotTakenException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Нагрузочный прогон сценария бронирования через публичный API MainController.
+// N администраторов параллельно принимают гостей с заданной суммарной интенсивностью
+// (пуассоновский поток), размеры компаний и часы распределены как в обычный вечер.
+// Запуск:
+//   java loadtest.LoadGenerator --store=memory --hosts=8 --rate=200 --duration=30
+//   java loadtest.LoadGenerator --store=postgres --hosts=4 --rate=20 --duration=60
+// Параметры: store (memory|postgres), hosts, rate (операций/с на всех), duration (с),
+// days (на сколько дней вперед бронировать), tables и dbLatencyMicros (только для memory),
+// cleanup (удалить созданные бронирования после прогона, по умолчанию true).
+// После отчета проверяется согласованность; код выхода 1, если проверка не прошла
+public class LoadGenerator {
+
+    enum Operation { AVAILABILITY, ADD, UPDATE, CONFIRM, CANCEL, DELETE, FILTER }
+
+    // Доли операций в смеси, в процентах
+    private static final Map<Operation, Integer> MIX = new EnumMap<>(Map.of(
+            Operation.AVAILABILITY, 35,
+            Operation.ADD, 35,
+            Operation.UPDATE, 10,
+            Operation.CONFIRM, 8,
+            Operation.CANCEL, 5,
+            Operation.DELETE, 4,
+            Operation.FILTER, 3
+    ));
+
+    // Веса размеров компании 1..20 (спиннер формы) и часов 8..23 (обед и ужин — пики)
+    private static final int[] PARTY_WEIGHTS = {8, 35, 15, 20, 7, 7, 3, 3, 1, 1, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1};
+    private static final int[] HOUR_WEIGHTS = {2, 2, 3, 4, 9, 10, 8, 4, 3, 4, 9, 12, 12, 10, 6, 3};
+
+    private final MainController controller;
+    private final ExecutorService uiThread;
+    private final int hosts;
+    private final double rate;
+    private final long durationNanos;
+    private final int days;
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder addAttempts = new LongAdder();
+    private final LongAdder conflictsInMemory = new LongAdder();
+    private final LongAdder conflictsInDatabase = new LongAdder();
+    private final LongAdder noTableAvailable = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final List<List<Booking>> createdByHost = new ArrayList<>();
+
+    LoadGenerator(MainController controller, ExecutorService uiThread, int hosts, double rate,
+                  long durationSeconds, int days) {
+        this.controller = controller;
+        this.uiThread = uiThread;
+        this.hosts = hosts;
+        this.rate = rate;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.days = days;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String storeName = options.getOrDefault("store", "memory");
+        int hosts = Integer.parseInt(options.getOrDefault("hosts", "8"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+        int days = Integer.parseInt(options.getOrDefault("days", "14"));
+        boolean cleanup = Boolean.parseBoolean(options.getOrDefault("cleanup", "true"));
+
+        BookingStore store;
+        if ("postgres".equals(storeName)) {
+            DatabaseConnection.ensureSchema();
+            store = new BookingRepository();
+        } else {
+            int tableCount = Integer.parseInt(options.getOrDefault("tables", "12"));
+            long latencyMicros = Long.parseLong(options.getOrDefault("dbLatencyMicros", "1000"));
+            store = new InMemoryBookingStore(sampleTables(tableCount), latencyMicros);
+        }
+
+        // Однопоточный исполнитель играет роль потока JavaFX
+        ExecutorService uiThread = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ui-thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MainController controller = MainController.open(store, uiThread::execute);
+
+        LoadGenerator generator = new LoadGenerator(controller, uiThread, hosts, rate, duration, days);
+        System.out.printf(Locale.ROOT, "Прогон: хранилище=%s, администраторов=%d, интенсивность=%.1f оп/с, %d с%n",
+                storeName, hosts, rate, duration);
+        long elapsed = generator.run();
+        generator.report(elapsed);
+        Checks checks = new Checks();
+        generator.verify(store, "memory".equals(storeName), checks);
+
+        if (cleanup && "postgres".equals(storeName)) {
+            generator.cleanup();
+        }
+        uiThread.shutdown();
+        DatabaseConnection.closeConnection();
+        checks.exit();
+    }
+
+    long run() throws InterruptedException {
+        Thread[] threads = new Thread[hosts];
+        long start = System.nanoTime();
+        for (int i = 0; i < hosts; i++) {
+            List<Booking> created = new ArrayList<>();
+            createdByHost.add(created);
+            threads[i] = new Thread(() -> host(start, created), "host-" + (i + 1));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Открытая модель нагрузки: следующий гость приходит по расписанию,
+    // даже если предыдущая операция задержалась; отставание учитывается отдельно
+    private void host(long start, List<Booking> created) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double perHostRate = rate / hosts;
+        long next = start;
+        long end = start + durationNanos;
+
+        while (true) {
+            next += (long) (-Math.log(1 - random.nextDouble()) / perHostRate * 1_000_000_000L);
+            if (next >= end) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (next > now) {
+                LockSupport.parkNanos(next - now);
+            } else {
+                maxLagNanos.accumulateAndGet(now - next, Math::max);
+            }
+
+            Operation operation = pickOperation(random, created);
+            long opStart = System.nanoTime();
+            try {
+                execute(operation, random, created);
+            } catch (RuntimeException e) {
+                errors.get(operation).increment();
+            } finally {
+                latencies.get(operation).recordSince(opStart);
+            }
+        }
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random, List<Booking> created) {
+        switch (operation) {
+            case AVAILABILITY:
+                controller.getAvailableTables(randomPartySize(random), randomDateTime(random));
+                break;
+            case ADD:
+                addBooking(random, created);
+                break;
+            case UPDATE: {
+                Booking existing = created.get(random.nextInt(created.size()));
+                LocalDateTime moved = randomDateTime(random);
+                List<Table> free = controller.getAvailableTables(existing.getGuests(), moved);
+                if (free.isEmpty()) {
+                    noTableAvailable.increment();
+                    break;
+                }
+                Booking updated = new Booking(existing.getId(), existing.getCustomerName(), existing.getPhone(),
+                        existing.getGuests(), moved, free.get(0), existing.getSpecialRequests());
+                updated.setStatus(existing.getStatus());
+                try {
+                    // Контроллер правит existing на месте, он и остается в списке хоста
+                    controller.updateBooking(existing, updated);
+                } catch (SlotTakenException e) {
+                    countConflict(e);
+                }
+                break;
+            }
+            case CONFIRM:
+                changeStatus(random, created, BookingStatus.CONFIRMED);
+                break;
+            case CANCEL:
+                changeStatus(random, created, BookingStatus.CANCELLED);
+                break;
+            case DELETE: {
+                Booking existing = created.remove(random.nextInt(created.size()));
+                controller.deleteBooking(existing);
+                break;
+            }
+            case FILTER: {
+                LocalDateTime date = randomDateTime(random);
+                awaitUi(() -> {
+                    controller.applyFilter(date);
+                    controller.getFilteredBookings().size();
+                    controller.clearFilter();
+                });
+                break;
+            }
+        }
+    }
+
+    private void addBooking(ThreadLocalRandom random, List<Booking> created) {
+        int guests = randomPartySize(random);
+        LocalDateTime dateTime = randomDateTime(random);
+        List<Table> free = controller.getAvailableTables(guests, dateTime);
+        if (free.isEmpty()) {
+            noTableAvailable.increment();
+            return;
+        }
+        // Как администратор: обычно самый маленький подходящий стол, иногда любой
+        Table table = random.nextInt(4) == 0 ? free.get(random.nextInt(free.size())) : free.get(0);
+        Booking booking = new Booking(0, "Гость " + random.nextInt(100_000),
+                "+7916" + (1_000_000 + random.nextInt(9_000_000)), guests, dateTime, table, "");
+
+        addAttempts.increment();
+        try {
+            controller.addBooking(booking);
+            created.add(booking);
+        } catch (SlotTakenException e) {
+            countConflict(e);
+        }
+    }
+
+    private void changeStatus(ThreadLocalRandom random, List<Booking> created, BookingStatus status) {
+        Booking booking = created.get(random.nextInt(created.size()));
+        if (booking.getStatus() == status) {
+            return;
+        }
+        try {
+            controller.changeBookingStatus(booking, status);
+        } catch (SlotTakenException e) {
+            countConflict(e);
+        }
+    }
+
+    private void countConflict(SlotTakenException e) {
+        // Без причины — конфликт пойман в памяти (ReservationEngine), с причиной — ограничением БД
+        if (e.getCause() == null) {
+            conflictsInMemory.increment();
+        } else {
+            conflictsInDatabase.increment();
+        }
+    }
+
+    private Operation pickOperation(ThreadLocalRandom random, List<Booking> created) {
+        while (true) {
+            int roll = random.nextInt(100);
+            for (Map.Entry<Operation, Integer> entry : MIX.entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    Operation operation = entry.getKey();
+                    boolean needsBooking = operation == Operation.UPDATE || operation == Operation.CONFIRM ||
+                            operation == Operation.CANCEL || operation == Operation.DELETE;
+                    if (needsBooking && created.isEmpty()) {
+                        break;
+                    }
+                    return operation;
+                }
+            }
+        }
+    }
+
+    private int randomPartySize(ThreadLocalRandom random) {
+        return 1 + weighted(random, PARTY_WEIGHTS);
+    }
+
+    private LocalDateTime randomDateTime(ThreadLocalRandom random) {
+        LocalDate date = LocalDate.now().plusDays(1 + random.nextInt(days));
+        return date.atTime(Availability.FIRST_HOUR + weighted(random, HOUR_WEIGHTS), 0);
+    }
+
+    private static int weighted(ThreadLocalRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private void awaitUi(Runnable action) {
+        try {
+            uiThread.submit(action).get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        long total = 0;
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-14s %8s %10s %10s %10s %8s%n", "операция", "кол-во", "p50, мс", "p99, мс", "max, мс", "ошибки");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            total += histogram.getCount();
+            System.out.printf(Locale.ROOT, "%-14s %8d %10.2f %10.2f %10.2f %8d%n", operation, histogram.getCount(),
+                    histogram.getP50Millis(), histogram.getP99Millis(), histogram.getMaxMillis(),
+                    errors.get(operation).sum());
+        }
+
+        long attempts = addAttempts.sum();
+        long conflicts = conflictsInMemory.sum() + conflictsInDatabase.sum();
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Пропускная способность: %.1f оп/с (%d операций за %.1f с)%n", total / seconds, total, seconds);
+        System.out.printf(Locale.ROOT, "Конфликты: %d (в памяти %d, в БД %d), %.2f%% попыток добавления%n",
+                conflicts, conflictsInMemory.sum(), conflictsInDatabase.sum(),
+                attempts == 0 ? 0.0 : 100.0 * conflicts / attempts);
+        System.out.printf(Locale.ROOT, "Нет свободного стола: %d, максимальное отставание от расписания: %.1f мс%n",
+                noTableAvailable.sum(), maxLagNanos.get() / 1_000_000.0);
+        System.out.println();
+        System.out.println(Metrics.summary());
+    }
+
+    // Согласованность после прогона: ни один стол не занят дважды, операции не падали,
+    // а в памяти столько же активных бронирований, сколько в хранилище (только для memory:
+    // в настоящей БД могут быть и чужие бронирования)
+    void verify(BookingStore store, boolean exclusiveStore, Checks checks) throws Exception {
+        long failedOperations = 0;
+        for (LongAdder adder : errors.values()) {
+            failedOperations += adder.sum();
+        }
+        checks.that(failedOperations == 0, "операции выполнены без ошибок");
+
+        List<Reservation> active = store.loadActiveReservations();
+        Map<Integer, List<Reservation>> byTable = new HashMap<>();
+        for (Reservation reservation : active) {
+            byTable.computeIfAbsent(reservation.tableNumber(), table -> new ArrayList<>()).add(reservation);
+        }
+        int overlaps = 0;
+        for (List<Reservation> tableBookings : byTable.values()) {
+            tableBookings.sort(Comparator.comparing(Reservation::bookingDateTime));
+            for (int i = 1; i < tableBookings.size(); i++) {
+                Reservation previous = tableBookings.get(i - 1);
+                if (Availability.blocks(previous.status(), previous.bookingDateTime(),
+                        tableBookings.get(i).bookingDateTime())) {
+                    overlaps++;
+                }
+            }
+        }
+        checks.that(overlaps == 0, "ни один стол не занят дважды (активных бронирований: " + active.size() + ")");
+
+        if (exclusiveStore) {
+            long inMemory = uiThread.submit(() -> controller.getBookings().stream()
+                    .filter(booking -> booking.getStatus() != BookingStatus.CANCELLED).count()).get();
+            checks.that(inMemory == active.size(), "список контроллера совпадает с хранилищем");
+        }
+    }
+
+    void cleanup() {
+        int deleted = 0;
+        for (List<Booking> created : createdByHost) {
+            for (Booking booking : created) {
+                try {
+                    controller.deleteBooking(booking);
+                    deleted++;
+                } catch (RuntimeException e) {
+                    // бронирование уже удалено или недоступно — пропускаем
+                }
+            }
+        }
+        System.out.println("Удалено созданных бронирований: " + deleted);
+    }
+
+    static List<TableInfo> sampleTables(int count) {
+        String[] locations = {"У окна", "Центр зала", "VIP зона", "Терраса", "Банкетный зал", "Барная стойка"};
+        int[] capacities = {2, 4, 6, 2, 8, 4};
+        List<TableInfo> tables = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tables.add(new TableInfo(i + 1, capacities[i % capacities.length], locations[i % locations.length]));
+        }
+        return tables;
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
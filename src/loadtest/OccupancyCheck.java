@@ -0,0 +1,58 @@
+package loadtest;
+
+import database.InMemoryBookingStore;
+import model.BookingStatus;
+import model.Reservation;
+import service.OccupancyAnalytics;
+import service.OccupancyHeatmap;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Самопроверка тепловой карты занятости: слот занимает два часа, отмененные не считаются,
+// слот после полуночи не ломает карту, доля делится на число дней недели и столов,
+// прошлые дни кэшируются, а сегодняшние бронирования берутся из памяти. Запуск: java loadtest.OccupancyCheck
+public class OccupancyCheck {
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        InMemoryBookingStore store = new InMemoryBookingStore(LoadGenerator.sampleTables(2), 0);
+        // Понедельник; в периоде [19.09, 20.10) пять понедельников
+        LocalDate today = LocalDate.of(2026, 10, 19);
+        LocalDate from = today.minusMonths(1);
+        store.saveBooking(reservation(1, today.minusDays(7).atTime(19, 0), BookingStatus.COMPLETED));
+        store.saveBooking(reservation(1, today.minusDays(14).atTime(19, 0), BookingStatus.CANCELLED));
+        store.saveBooking(reservation(2, today.minusDays(7).atTime(23, 0), BookingStatus.COMPLETED));
+
+        OccupancyAnalytics analytics = new OccupancyAnalytics(store);
+        List<Reservation> todays = List.of(reservation(2, today.atTime(19, 0), BookingStatus.CONFIRMED));
+        OccupancyHeatmap heatmap = analytics.load(from, today, todays).get();
+        checks.that(heatmap.getCount(null, DayOfWeek.MONDAY, 19) == 2
+                        && heatmap.getCount(null, DayOfWeek.MONDAY, 20) == 2
+                        && heatmap.getCount(null, DayOfWeek.MONDAY, 21) == 0,
+                "бронирование занимает два часа, отмененное не считается");
+        checks.that(heatmap.getCount(1, DayOfWeek.MONDAY, 19) == 1 && heatmap.getCount(2, DayOfWeek.MONDAY, 19) == 1,
+                "занятость по отдельным столам");
+        checks.that(heatmap.getCount(2, DayOfWeek.MONDAY, 23) == 1,
+                "слот в 23:00 учтен, его продолжение после полуночи отброшено");
+        checks.that(Math.abs(heatmap.getRate(null, DayOfWeek.MONDAY, 19, 2) - 0.2) < 1e-9
+                        && Math.abs(heatmap.getRate(1, DayOfWeek.MONDAY, 19, 2) - 0.2) < 1e-9,
+                "доля: 2 из 5 понедельников × 2 стола, 1 из 5 для стола");
+
+        // Прошлые дни не перечитываются, сегодняшние правки видны сразу
+        store.saveBooking(reservation(1, today.minusDays(21).atTime(19, 0), BookingStatus.COMPLETED));
+        OccupancyHeatmap cached = analytics.load(from, today, List.of()).get();
+        checks.that(cached.getCount(null, DayOfWeek.MONDAY, 19) == 1,
+                "прошлые дни взяты из кэша, сегодняшние — из переданного списка");
+        analytics.invalidate();
+        OccupancyHeatmap reloaded = analytics.load(from, today, List.of()).get();
+        checks.that(reloaded.getCount(null, DayOfWeek.MONDAY, 19) == 2, "после сброса кэша прошлые дни перечитаны");
+        checks.exit();
+    }
+
+    private static Reservation reservation(int tableNumber, LocalDateTime dateTime, BookingStatus status) {
+        return new Reservation(0, "Гость", "+70000000000", 2, dateTime, tableNumber, status, "");
+    }
+}
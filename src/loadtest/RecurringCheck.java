@@ -0,0 +1,108 @@
+package loadtest;
+
+import controller.MainController;
+import database.InMemoryBookingStore;
+import model.Booking;
+import model.RecurrenceRule;
+import model.Table;
+import service.RecurrenceConflictException;
+import service.SlotTakenException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+// Самопроверка регулярных броней: даты повторений (недели, 31-е число, исключения, конец правила),
+// конфликт с разовой бронью и с другим правилом, занятость стола в любую дату без развернутых
+// повторений, пропуск одного повторения и удаление правила. Запуск: java loadtest.RecurringCheck
+public class RecurringCheck {
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+
+        RecurrenceRule monthly = new RecurrenceRule(1, "Ежемесячно", "+70000000001", 2, 2, 12,
+                RecurrenceRule.Frequency.MONTHLY, LocalDate.of(2025, 1, 31), LocalDate.of(2025, 12, 31),
+                Set.of(LocalDate.of(2025, 5, 31)), "");
+        checks.that(monthly.occurrences(LocalDate.of(2025, 1, 1), LocalDate.of(2026, 6, 1)).equals(List.of(
+                        LocalDate.of(2025, 1, 31), LocalDate.of(2025, 3, 31), LocalDate.of(2025, 7, 31),
+                        LocalDate.of(2025, 8, 31), LocalDate.of(2025, 10, 31), LocalDate.of(2025, 12, 31))),
+                "31-е число: месяцы без него и исключения пропущены, последний день правила включен");
+        RecurrenceRule weekly = new RecurrenceRule(2, "Еженедельно", "+70000000002", 2, 2, 12,
+                RecurrenceRule.Frequency.WEEKLY, LocalDate.of(2025, 1, 6), LocalDate.of(2025, 2, 3), Set.of(), "");
+        checks.that(weekly.occurrences(LocalDate.of(2025, 1, 8), LocalDate.of(2025, 3, 1)).equals(List.of(
+                        LocalDate.of(2025, 1, 13), LocalDate.of(2025, 1, 20), LocalDate.of(2025, 1, 27),
+                        LocalDate.of(2025, 2, 3))),
+                "окно с середины недели начинается со следующего повторения");
+
+        InMemoryBookingStore store = new InMemoryBookingStore(LoadGenerator.sampleTables(5), 0);
+        ExecutorService uiThread = Checks.uiThread();
+        MainController controller = MainController.open(store, uiThread::execute);
+        uiThread.submit(() -> { }).get();
+        Table table = uiThread.submit(() -> controller.getTables().get(0)).get();
+        LocalDate start = LocalDate.now().plusDays(1);
+
+        controller.addBooking(booking(table, start.plusWeeks(2).atTime(19, 0)));
+        RecurrenceRule rule = new RecurrenceRule(0, "Корпоратив", "+70000000003", 2, table.getTableNumber(), 19,
+                RecurrenceRule.Frequency.WEEKLY, start, null, Set.of(), "");
+        List<LocalDate> conflicts = List.of();
+        try {
+            controller.addRecurrenceRule(rule);
+        } catch (RecurrenceConflictException e) {
+            conflicts = e.getDates();
+        }
+        checks.that(conflicts.equals(List.of(start.plusWeeks(2))), "конфликт только в дату разовой брони");
+        RecurrenceRule saved = controller.addRecurrenceRule(rule.withExceptions(new HashSet<>(conflicts)));
+        uiThread.submit(() -> { }).get();
+        checks.that(store.loadRecurrenceRules(LocalDate.now()).size() == 1, "правило с исключением сохранено");
+
+        RecurrenceRule overlapping = new RecurrenceRule(0, "Соседи", "+70000000004", 2, table.getTableNumber(), 20,
+                RecurrenceRule.Frequency.WEEKLY, start, start.plusMonths(3), Set.of(), "");
+        boolean rejected = false;
+        try {
+            controller.addRecurrenceRule(overlapping);
+        } catch (RecurrenceConflictException e) {
+            rejected = !e.getDates().isEmpty();
+        }
+        checks.that(rejected, "правило, пересекающееся с другим правилом, не сохраняется");
+
+        checks.that(rejects(controller, booking(table, start.plusWeeks(5).atTime(20, 0))),
+                "разовая бронь на время повторения отклоняется");
+        checks.that(!availableFarAhead(controller, table), "через 500 недель стол тоже занят правилом");
+        checks.that(!rejects(controller, booking(table, start.plusDays(1).atTime(19, 0))),
+                "в другие дни стол свободен");
+        checks.that(controller.getOccurrences(start, start.plusWeeks(4)).size() == 3,
+                "в окне четырех недель три повторения (одно в исключениях)");
+
+        controller.skipOccurrence(saved, start.plusWeeks(5));
+        uiThread.submit(() -> { }).get();
+        checks.that(!rejects(controller, booking(table, start.plusWeeks(5).atTime(20, 0))),
+                "после пропуска повторения стол можно забронировать");
+
+        controller.removeRecurrenceRule(saved);
+        uiThread.submit(() -> { }).get();
+        checks.that(availableFarAhead(controller, table) && store.loadRecurrenceRules(LocalDate.now()).isEmpty(),
+                "после удаления правила стол свободен");
+        checks.exit();
+    }
+
+    private static Booking booking(Table table, LocalDateTime dateTime) {
+        return new Booking(0, "Гость", "+70000000000", 2, dateTime, table, "");
+    }
+
+    private static boolean rejects(MainController controller, Booking booking) {
+        try {
+            controller.addBooking(booking);
+            return false;
+        } catch (SlotTakenException e) {
+            return true;
+        }
+    }
+
+    private static boolean availableFarAhead(MainController controller, Table table) {
+        LocalDateTime farAhead = LocalDate.now().plusDays(1).plusWeeks(500).atTime(19, 0);
+        return controller.getAvailableTables(2, farAhead).contains(table);
+    }
+}
@@ -0,0 +1,92 @@
+package loadtest;
+
+import model.BookingStatus;
+import model.Reservation;
+import service.OutboxFileSink;
+import service.ReminderScheduler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Самопроверка напоминаний: срабатывание по отступам, отсутствие повторов после правки
+// бронирования и перезапуска (отправленные читаются из файла), повтор после переноса
+// и стоимость постановки/отмены на сотнях тысяч таймеров. Запуск: java loadtest.ReminderCheck
+public class ReminderCheck {
+    private static final long TICK_MS = 10;
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        Path outbox = Files.createTempFile("reminders-check", ".jsonl");
+        List<Duration> offsets = List.of(Duration.ofMinutes(1440), Duration.ofMinutes(60));
+
+        // Начало через 30 минут: оба отступа просрочены, отправляется только 60-минутный
+        Reservation booking = reservation(1, LocalDateTime.now().withNano(0).plusMinutes(30));
+        ReminderScheduler scheduler = started(outbox, offsets);
+        scheduler.schedule(booking);
+        Thread.sleep(TICK_MS * 10);
+        checks.that(lines(outbox) == 1, "просроченное напоминание отправлено один раз");
+
+        scheduler.schedule(booking.withStatus(BookingStatus.CONFIRMED));
+        Thread.sleep(TICK_MS * 10);
+        checks.that(lines(outbox) == 1, "подтверждение бронирования не отправляет его снова");
+        scheduler.stop();
+
+        ReminderScheduler restarted = started(outbox, offsets);
+        restarted.schedule(booking);
+        Thread.sleep(TICK_MS * 10);
+        checks.that(lines(outbox) == 1, "после перезапуска напоминание не повторяется");
+
+        restarted.schedule(reservation(1, booking.bookingDateTime().plusMinutes(15)));
+        Thread.sleep(TICK_MS * 10);
+        checks.that(lines(outbox) == 2, "после переноса на другое время напоминание отправляется снова");
+        restarted.stop();
+
+        // Будущие отступы срабатывают в свой момент
+        ReminderScheduler precise = started(outbox, List.of(Duration.ofMillis(300), Duration.ofMillis(150)));
+        precise.schedule(reservation(2, LocalDateTime.now().plusNanos(450_000_000L)));
+        Thread.sleep(50);
+        checks.that(lines(outbox) == 2, "до срока напоминания не отправляются");
+        Thread.sleep(500);
+        checks.that(lines(outbox) == 4, "оба будущих напоминания отправлены");
+        precise.stop();
+
+        // Постановка и отмена большого числа таймеров
+        ReminderScheduler large = new ReminderScheduler(reminders -> { }, offsets, 1000);
+        int count = 300_000;
+        LocalDateTime base = LocalDateTime.now().plusDays(2);
+        long started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            large.schedule(reservation(100 + i, base.plusMinutes(i % 20_000)));
+        }
+        long scheduledNs = System.nanoTime() - started;
+        checks.that(large.getPendingCount() == count * offsets.size(), "поставлено " + large.getPendingCount() + " таймеров");
+        started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            large.cancel(100 + i);
+        }
+        long cancelledNs = System.nanoTime() - started;
+        checks.that(large.getPendingCount() == 0, "все таймеры отменены");
+        System.out.println("Постановка: " + scheduledNs / count + " нс на бронирование, отмена: " +
+                cancelledNs / count + " нс");
+
+        Files.deleteIfExists(outbox);
+        checks.exit();
+    }
+
+    private static ReminderScheduler started(Path outbox, List<Duration> offsets) {
+        ReminderScheduler scheduler = new ReminderScheduler(new OutboxFileSink(outbox), offsets, TICK_MS);
+        scheduler.start();
+        return scheduler;
+    }
+
+    private static Reservation reservation(int id, LocalDateTime dateTime) {
+        return new Reservation(id, "Гость " + id, "+7900000" + id, 2, dateTime, 1, BookingStatus.PENDING, "");
+    }
+
+    private static long lines(Path outbox) throws Exception {
+        return Files.readAllLines(outbox).size();
+    }
+}
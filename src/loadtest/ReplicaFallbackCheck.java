@@ -0,0 +1,67 @@
+package loadtest;
+
+import database.DatabaseConnection;
+import metrics.Counter;
+import metrics.Metrics;
+import model.Venue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Самопроверка чтения с реплики: недоступная реплика не ломает чтение — запрос уходит на основную БД,
+// а следующие запросы в течение cafe.db.replica.retrySeconds реплику не трогают. Реплика задается
+// cafe.db.replica (по умолчанию — закрытый порт); основная БД для проверки не нужна: ошибка
+// соединения с ней тоже означает, что чтение ушло туда. Запуск: java loadtest.ReplicaFallbackCheck
+public class ReplicaFallbackCheck {
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        System.setProperty("cafe.db.replica",
+                System.getProperty("cafe.db.replica", "jdbc:postgresql://127.0.0.1:1/cafe_booking"));
+        Counter replicaReads = Metrics.counter("db.replica.reads");
+        Counter fallbacks = Metrics.counter("db.replica.fallbacks");
+
+        AtomicInteger replicaErrors = new AtomicInteger();
+        Logger routerLogger = Logger.getLogger("database.ReplicaRouter");
+        routerLogger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
+                    replicaErrors.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        Venue venue = DatabaseConnection.getDefaultVenue();
+        read(venue);
+        checks.that(fallbacks.getCount() == 1 && replicaReads.getCount() == 0 && replicaErrors.get() == 1,
+                "недоступная реплика — чтение с основной БД");
+        read(venue);
+        read(venue);
+        checks.that(fallbacks.getCount() == 3 && replicaErrors.get() == 1,
+                "в течение интервала повтора реплика не запрашивается");
+        checks.exit();
+    }
+
+    // Соединение с основной БД закрывается сразу; ее недоступность здесь не ошибка
+    private static void read(Venue venue) {
+        try (Connection conn = DatabaseConnection.getReadConnection(venue)) {
+            System.out.println("Чтение через " + conn.getMetaData().getURL());
+        } catch (SQLException e) {
+            System.out.println("Основная БД недоступна: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package loadtest;
+
+import service.Availability;
+import service.ReservationEngine;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Стресс-проверка ReservationEngine: потоки одновременно бронируют, переносят и освобождают
+// слоты на небольшом числе столов и дней, после чего все занятые слоты попарно проверяются
+// на пересечение. Запуск:
+//   java loadtest.ReservationEngineStress --threads=32 --operations=200000
+public class ReservationEngineStress {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadGenerator.parseOptions(args);
+        int threads = Integer.parseInt(options.getOrDefault("threads", "32"));
+        int operations = Integer.parseInt(options.getOrDefault("operations", "200000"));
+        int tables = Integer.parseInt(options.getOrDefault("tables", "6"));
+        int days = Integer.parseInt(options.getOrDefault("days", "3"));
+
+        ReservationEngine engine = new ReservationEngine();
+        AtomicInteger nextId = new AtomicInteger(1);
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        List<List<ReservationEngine.Slot>> heldByThread = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            List<ReservationEngine.Slot> held = new ArrayList<>();
+            heldByThread.add(held);
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < operations; i++) {
+                    int table = 1 + random.nextInt(tables);
+                    LocalDateTime dateTime = firstDay.plusDays(random.nextInt(days))
+                            .atTime(Availability.FIRST_HOUR + random.nextInt(Availability.LAST_HOUR - Availability.FIRST_HOUR + 1), 0);
+                    int action = random.nextInt(10);
+                    if (action < 5 || held.isEmpty()) {
+                        ReservationEngine.Slot slot = engine.tryReserve(nextId.getAndIncrement(), table, dateTime);
+                        if (slot != null) {
+                            held.add(slot);
+                        }
+                    } else if (action < 8) {
+                        int index = random.nextInt(held.size());
+                        ReservationEngine.Slot moved = engine.tryMove(held.get(index), table, dateTime);
+                        if (moved != null) {
+                            held.set(index, moved);
+                        }
+                    } else {
+                        int index = random.nextInt(held.size());
+                        engine.release(held.remove(index));
+                    }
+                }
+            }, "stress-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        List<ReservationEngine.Slot> live = new ArrayList<>();
+        heldByThread.forEach(live::addAll);
+        int overlaps = 0;
+        for (int i = 0; i < live.size(); i++) {
+            for (int j = i + 1; j < live.size(); j++) {
+                ReservationEngine.Slot a = live.get(i);
+                ReservationEngine.Slot b = live.get(j);
+                if (a.getTableNumber() == b.getTableNumber() && Availability.overlaps(a.getDateTime(), b.getDateTime())) {
+                    overlaps++;
+                }
+            }
+        }
+
+        System.out.println("Потоков: " + threads + ", операций на поток: " + operations + ", за " + elapsedMs + " мс");
+        Checks checks = new Checks();
+        checks.that(overlaps == 0, "нет пересекающихся слотов одного стола (занято " + live.size() + ")");
+        checks.that(engine.size() == live.size(), "в движке ровно столько слотов, сколько удерживают потоки");
+        int stillFree = 0;
+        for (ReservationEngine.Slot slot : live) {
+            if (engine.isFree(slot.getTableNumber(), slot.getDateTime())) {
+                stillFree++;
+            }
+        }
+        checks.that(stillFree == 0, "все удерживаемые слоты заняты в движке");
+        checks.exit();
+    }
+}
@@ -0,0 +1,56 @@
+package loadtest;
+
+import database.DatabaseConnection;
+import model.Venue;
+
+import java.util.List;
+
+// Самопроверка настройки заведений (cafe.venues): разбор списка, в том числе с полным JDBC URL,
+// имена файлов и метрик заведения, отдельный пул у каждого заведения. БД не нужна — пулы
+// открывают соединения только по запросу. Запуск: java loadtest.VenueCheck
+public class VenueCheck {
+
+    public static void main(String[] args) {
+        Checks checks = new Checks();
+        System.setProperty("cafe.venues",
+                "main:Центр:cafe_booking, park:Парк:cafe_park,mall:ТЦ:jdbc:postgresql://db2:5432/cafe_mall");
+
+        List<Venue> venues = DatabaseConnection.getVenues();
+        checks.that(venues.size() == 3 && venues.get(1).equals(new Venue("park", "Парк", "cafe_park")),
+                "список заведений разобран, пробелы отброшены");
+        checks.that(venues.get(2).database().equals("jdbc:postgresql://db2:5432/cafe_mall"),
+                "двоеточия в JDBC URL не разбивают описание");
+        checks.that(DatabaseConnection.getDefaultVenue().id().equals(Venue.MAIN_ID),
+                "заведение по умолчанию — первое в списке");
+        checks.that(DatabaseConnection.findVenue("mall") == venues.get(2), "заведение находится по id");
+        checks.that(throwsIllegalArgument(() -> DatabaseConnection.findVenue("nope")),
+                "неизвестный id — ошибка");
+        checks.that(throwsIllegalArgument(() -> Venue.parseList(" , "))
+                        && throwsIllegalArgument(() -> Venue.parseList("park:Парк")),
+                "пустой список и описание без базы — ошибка");
+
+        Venue main = venues.get(0);
+        Venue park = venues.get(1);
+        checks.that(main.scopedPath("booking-journal.log").equals("booking-journal.log")
+                        && main.scopedName("db.pool.active").equals("db.pool.active"),
+                "у основного заведения прежние имена файлов и метрик");
+        checks.that(park.scopedPath("booking-journal.log").equals("booking-journal-park.log")
+                        && park.scopedPath("outbox").equals("outbox-park")
+                        && park.scopedName("db.pool.active").equals("park.db.pool.active"),
+                "файлы и метрики остальных заведений помечены их id");
+
+        checks.that(DatabaseConnection.getPool(park) != DatabaseConnection.getPool()
+                        && DatabaseConnection.getPool(park) == DatabaseConnection.getPool(park),
+                "у каждого заведения свой пул, он создается один раз");
+        checks.exit();
+    }
+
+    private static boolean throwsIllegalArgument(Runnable action) {
+        try {
+            action.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package loadtest;
+
+import controller.MainController;
+import database.InMemoryBookingStore;
+import model.Booking;
+import model.BookingStatus;
+import model.Table;
+import model.WaitlistEntry;
+import service.Waitlist;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+// Самопроверка листа ожидания: подбор — самая большая подходящая компания, из равных — первая
+// по времени постановки; после волны отмен каждый освободившийся стол предложен ровно одной
+// компании, которая за него помещается, без двойной занятости, предложенные убраны из листа
+// (и в хранилище), а не помещающаяся никуда компания остается. Запуск: java loadtest.WaitlistCheck
+public class WaitlistCheck {
+    private static final int TABLES = 60;
+    private static final long TIMEOUT_MS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        Checks checks = new Checks();
+        LocalDate date = LocalDate.now().plusDays(1);
+
+        Waitlist waitlist = new Waitlist();
+        LocalDateTime now = LocalDateTime.now();
+        waitlist.add(new WaitlistEntry(1, "Двое раньше", "1", 2, date, 19, 19, now));
+        waitlist.add(new WaitlistEntry(2, "Двое позже", "2", 2, date, 19, 19, now.plusSeconds(1)));
+        waitlist.add(new WaitlistEntry(3, "Шестеро", "3", 6, date, 18, 20, now.plusSeconds(2)));
+        checks.that(waitlist.poll(date, 19, 4).id() == 1 && waitlist.poll(date, 19, 4).id() == 2,
+                "столу на четверых — компании по двое в порядке постановки");
+        checks.that(waitlist.poll(date, 19, 8).id() == 3 && waitlist.poll(date, 19, 8) == null,
+                "большому столу — самая большая подходящая компания");
+
+        // Все столы заняты на 19:00, лист ожидания длиннее числа столов
+        InMemoryBookingStore store = new InMemoryBookingStore(LoadGenerator.sampleTables(TABLES), 0);
+        ExecutorService uiThread = Checks.uiThread();
+        MainController controller = MainController.open(store, uiThread::execute);
+        uiThread.submit(() -> { }).get();
+        List<Booking> booked = new ArrayList<>();
+        for (Table table : uiThread.submit(() -> List.copyOf(controller.getTables())).get()) {
+            Booking booking = new Booking(0, "Гость", "+70000000000", 2, date.atTime(19, 0), table, "");
+            controller.addBooking(booking);
+            booked.add(booking);
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            int from = 17 + random.nextInt(3);
+            controller.addToWaitlist("Компания " + i, "+7" + i, 1 + random.nextInt(8), date, from,
+                    from + random.nextInt(3));
+        }
+        controller.addToWaitlist("Банкет", "+79990000000", 20, date, 19, 19);
+
+        long start = System.nanoTime();
+        for (Booking booking : booked) {
+            controller.changeBookingStatus(booking, BookingStatus.CANCELLED);
+        }
+        System.out.println("Отмена " + TABLES + " бронирований: " + (System.nanoTime() - start) / 1_000_000 + " мс");
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        List<Booking> offers = offers(controller, uiThread);
+        while (offers.size() < TABLES && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            offers = offers(controller, uiThread);
+        }
+        Thread.sleep(200);
+        offers = offers(controller, uiThread);
+        Set<Integer> offeredTables = new HashSet<>();
+        offers.forEach(offer -> offeredTables.add(offer.getTable().getTableNumber()));
+        checks.that(offers.size() == TABLES && offeredTables.size() == TABLES,
+                "каждый освободившийся стол предложен одной компании (" + offers.size() + ")");
+        checks.that(offers.stream().allMatch(offer -> offer.getGuests() <= offer.getTable().getCapacity()),
+                "каждая компания помещается за предложенный стол");
+
+        int remaining = uiThread.submit(() -> controller.getWaitlist().size()).get();
+        checks.that(remaining == 201 - offers.size() && store.loadWaitlist(date).size() == remaining,
+                "предложенные компании убраны из листа и из хранилища");
+        checks.that(uiThread.submit(() -> controller.getWaitlist().stream()
+                        .anyMatch(entry -> entry.guests() == 20)).get(),
+                "компания, которой не подходит ни один стол, остается в листе");
+        checks.exit();
+    }
+
+    private static List<Booking> offers(MainController controller, ExecutorService uiThread) throws Exception {
+        return uiThread.submit(() -> controller.getBookings().stream()
+                .filter(booking -> booking.getStatus() != BookingStatus.CANCELLED
+                        && booking.getSpecialRequests().startsWith("Из листа ожидания"))
+                .toList()).get();
+    }
+}
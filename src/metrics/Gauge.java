@@ -0,0 +1,17 @@
+package metrics;
+
+import java.util.function.LongSupplier;
+
+// Значение вычисляется при чтении (размер пула, длина очереди и т.п.)
+public class Gauge implements GaugeMXBean {
+    private final LongSupplier supplier;
+
+    public Gauge(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public long getValue() {
+        return supplier.getAsLong();
+    }
+}
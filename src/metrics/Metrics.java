@@ -0,0 +1,96 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Реестр метрик приложения. Каждая метрика регистрируется как MXBean
+// (домен cafe.booking, видно в JConsole/VisualVM) и попадает в периодическую сводку в лог.
+// Метрики создаются один раз (обычно в static final полях), на горячем пути только запись
+public final class Metrics {
+    private static final Logger logger = Logger.getLogger(Metrics.class.getName());
+    private static final String DOMAIN = "cafe.booking";
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService reporter;
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> register("Counter", n, new Counter()));
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> register("Latency", n, new LatencyHistogram()));
+    }
+
+    // Повторная регистрация с тем же именем заменяет источник значения
+    public static Gauge gauge(String name, LongSupplier supplier) {
+        Gauge gauge = register("Gauge", name, new Gauge(supplier));
+        gauges.put(name, gauge);
+        return gauge;
+    }
+
+    public static synchronized void startReporter(Duration interval) {
+        if (reporter != null || interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> logger.info(summary()),
+                interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static String summary() {
+        StringBuilder sb = new StringBuilder("Метрики:");
+        new TreeMap<>(histograms).forEach((name, h) -> {
+            if (h.getCount() > 0) {
+                sb.append(String.format(Locale.ROOT, "%n  %s: n=%d p50=%.2fms p99=%.2fms max=%.2fms",
+                        name, h.getCount(), h.getP50Millis(), h.getP99Millis(), h.getMaxMillis()));
+            }
+        });
+        new TreeMap<>(counters).forEach((name, c) -> {
+            if (c.getCount() > 0) {
+                sb.append(String.format(Locale.ROOT, "%n  %s: %d", name, c.getCount()));
+            }
+        });
+        new TreeMap<>(gauges).forEach((name, g) -> sb.append(String.format(Locale.ROOT, "%n  %s = %d", name, g.getValue())));
+        return sb.toString();
+    }
+
+    private static <T> T register(String type, String name, T metric) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(type, name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(metric, objectName);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Не удалось зарегистрировать метрику в JMX: " + name, e);
+        }
+        return metric;
+    }
+
+    private static ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+}
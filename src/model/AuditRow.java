@@ -0,0 +1,8 @@
+package model;
+
+import java.time.LocalDateTime;
+
+// Неотмененное бронирование для аудита занятости вместе с вместимостью стола
+public record AuditRow(int bookingId, int tableNumber, int capacity, int guests,
+                       LocalDateTime bookingDateTime, boolean archived) {
+}
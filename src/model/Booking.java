@@ -2,6 +2,7 @@ package model;
 
 import javafx.beans.property.*;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 public class Booking {
     private final IntegerProperty id;
@@ -51,6 +52,23 @@ public class Booking {
 
     public void setStatus(BookingStatus status) { this.status.set(status); }
 
+    // Переносит данные из source (id не меняется). Свойства выставляются только при
+    // изменении значения, поэтому таблица перерисовывает лишь изменившиеся ячейки
+    public void update(Booking source) {
+        if (!Objects.equals(getCustomerName(), source.getCustomerName())) customerName.set(source.getCustomerName());
+        if (!Objects.equals(getPhone(), source.getPhone())) phone.set(source.getPhone());
+        if (getGuests() != source.getGuests()) guests.set(source.getGuests());
+        if (!Objects.equals(getBookingDateTime(), source.getBookingDateTime())) bookingDateTime.set(source.getBookingDateTime());
+        if (getTable() != source.getTable()) table.set(source.getTable());
+        if (getStatus() != source.getStatus()) status.set(source.getStatus());
+        if (!Objects.equals(getSpecialRequests(), source.getSpecialRequests())) specialRequests.set(source.getSpecialRequests());
+    }
+
+    public Reservation toReservation() {
+        return new Reservation(getId(), getCustomerName(), getPhone(), getGuests(),
+                getBookingDateTime(), getTable().getTableNumber(), getStatus(), getSpecialRequests());
+    }
+
     @Override
     public String toString() {
         return customerName.get() + " - " + bookingDateTime.get().toLocalDate() + " " +
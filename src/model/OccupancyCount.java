@@ -0,0 +1,6 @@
+package model;
+
+// Сколько раз стол был занят в данный час данного дня недели за период
+// (dayOfWeek: 1 — понедельник … 7 — воскресенье)
+public record OccupancyCount(int tableNumber, int dayOfWeek, int hour, int bookings) {
+}
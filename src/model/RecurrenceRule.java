@@ -0,0 +1,107 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Регулярная бронь: стол tableNumber на hour:00 каждую неделю (в день недели startDate)
+// или каждый месяц (в число startDate) с startDate по endDate включительно (null — бессрочно).
+// Даты из exceptions пропускаются. Повторения не хранятся, а вычисляются для нужного окна
+public record RecurrenceRule(int id, String customerName, String phone, int guests, int tableNumber,
+                             int hour, Frequency frequency, LocalDate startDate, LocalDate endDate,
+                             Set<LocalDate> exceptions, String specialRequests) {
+
+    public enum Frequency {
+        WEEKLY("Каждую неделю"),
+        MONTHLY("Каждый месяц");
+
+        private final String displayName;
+
+        Frequency(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    public RecurrenceRule {
+        exceptions = Set.copyOf(exceptions);
+    }
+
+    public boolean occursOn(LocalDate date) {
+        if (date.isBefore(startDate) || (endDate != null && date.isAfter(endDate)) || exceptions.contains(date)) {
+            return false;
+        }
+        return switch (frequency) {
+            case WEEKLY -> date.getDayOfWeek() == startDate.getDayOfWeek();
+            case MONTHLY -> date.getDayOfMonth() == startDate.getDayOfMonth();
+        };
+    }
+
+    // Даты повторений в [from, to): шагаем по неделям или месяцам, а не по дням.
+    // В месяцах без нужного числа (31-е, 30 февраля) повторения нет
+    public List<LocalDate> occurrences(LocalDate from, LocalDate to) {
+        LocalDate start = from.isAfter(startDate) ? from : startDate;
+        LocalDate end = endDate != null && endDate.isBefore(to) ? endDate.plusDays(1) : to;
+        List<LocalDate> result = new ArrayList<>();
+        if (!start.isBefore(end)) {
+            return result;
+        }
+        if (frequency == Frequency.WEEKLY) {
+            for (LocalDate date = start.with(TemporalAdjusters.nextOrSame(startDate.getDayOfWeek()));
+                 date.isBefore(end); date = date.plusWeeks(1)) {
+                if (!exceptions.contains(date)) {
+                    result.add(date);
+                }
+            }
+        } else {
+            int day = startDate.getDayOfMonth();
+            for (YearMonth month = YearMonth.from(start); !month.atDay(1).isAfter(end); month = month.plusMonths(1)) {
+                if (!month.isValidDay(day)) {
+                    continue;
+                }
+                LocalDate date = month.atDay(day);
+                if (!date.isBefore(start) && date.isBefore(end) && !exceptions.contains(date)) {
+                    result.add(date);
+                }
+            }
+        }
+        return result;
+    }
+
+    public LocalDateTime dateTimeOn(LocalDate date) {
+        return date.atTime(hour, 0);
+    }
+
+    // Повторение как бронирование: для проверок занятости и показа в списках
+    public Reservation toReservation(LocalDate date) {
+        return new Reservation(0, customerName, phone, guests, dateTimeOn(date), tableNumber,
+                BookingStatus.CONFIRMED, specialRequests);
+    }
+
+    public RecurrenceRule withId(int newId) {
+        return new RecurrenceRule(newId, customerName, phone, guests, tableNumber, hour, frequency,
+                startDate, endDate, exceptions, specialRequests);
+    }
+
+    public RecurrenceRule withExceptions(Set<LocalDate> added) {
+        Set<LocalDate> merged = new HashSet<>(exceptions);
+        merged.addAll(added);
+        return new RecurrenceRule(id, customerName, phone, guests, tableNumber, hour, frequency,
+                startDate, endDate, merged, specialRequests);
+    }
+
+    @Override
+    public String toString() {
+        return customerName + ", стол №" + tableNumber + ", " + hour + ":00, " +
+                frequency.toString().toLowerCase() + " с " + startDate + (endDate != null ? " по " + endDate : "");
+    }
+}
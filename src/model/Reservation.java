@@ -0,0 +1,25 @@
+package model;
+
+import java.time.LocalDateTime;
+
+// Неизменяемое представление бронирования без зависимостей от JavaFX.
+// Используется слоем доступа к БД и headless-режимом
+public record Reservation(int id, String customerName, String phone, int guests,
+                          LocalDateTime bookingDateTime, int tableNumber,
+                          BookingStatus status, String specialRequests) {
+
+    public Reservation withId(int newId) {
+        return new Reservation(newId, customerName, phone, guests, bookingDateTime,
+                tableNumber, status, specialRequests);
+    }
+
+    public Reservation withStatus(BookingStatus newStatus) {
+        return new Reservation(id, customerName, phone, guests, bookingDateTime,
+                tableNumber, newStatus, specialRequests);
+    }
+
+    public Reservation withTableNumber(int newTableNumber) {
+        return new Reservation(id, customerName, phone, guests, bookingDateTime,
+                newTableNumber, status, specialRequests);
+    }
+}
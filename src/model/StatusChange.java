@@ -0,0 +1,5 @@
+package model;
+
+// Переход статуса бронирования; from — ожидаемый текущий статус
+public record StatusChange(int bookingId, BookingStatus from, BookingStatus to) {
+}
@@ -29,6 +29,10 @@ public class Table {
 
     public void setIsAvailable(boolean isAvailable) { this.isAvailable.set(isAvailable); }
 
+    public TableInfo toTableInfo() {
+        return new TableInfo(getTableNumber(), getCapacity(), getLocation());
+    }
+
     @Override
     public String toString() {
         return "Стол №" + tableNumber.get() + " (" + capacity.get() + " персон) - " + location.get();
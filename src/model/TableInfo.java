@@ -0,0 +1,5 @@
+package model;
+
+// Описание стола без зависимостей от JavaFX
+public record TableInfo(int tableNumber, int capacity, String location) {
+}
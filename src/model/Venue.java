@@ -0,0 +1,50 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Заведение сети. У каждого своя база (database — имя БД на сервере по умолчанию
+// или полный JDBC URL), свой пул соединений и свое состояние в памяти
+public record Venue(String id, String name, String database) {
+    // Заведение с этим id сохраняет прежние имена файлов и метрик
+    public static final String MAIN_ID = "main";
+
+    // Формат: id:Название:база через запятую, например
+    // main:Центр:cafe_booking,park:Парк:cafe_park
+    public static List<Venue> parseList(String value) {
+        List<Venue> result = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (part.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = part.trim().split(":", 3);
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Некорректное описание заведения: " + part);
+            }
+            result.add(new Venue(fields[0].trim(), fields[1].trim(), fields[2].trim()));
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("Не задано ни одного заведения");
+        }
+        return result;
+    }
+
+    // Имя метрики заведения: park.bookings.loaded
+    public String scopedName(String name) {
+        return MAIN_ID.equals(id) ? name : id + "." + name;
+    }
+
+    // Путь к локальному файлу заведения: booking-journal-park.log
+    public String scopedPath(String path) {
+        if (MAIN_ID.equals(id)) {
+            return path;
+        }
+        int dot = path.lastIndexOf('.');
+        return dot > 0 ? path.substring(0, dot) + "-" + id + path.substring(dot) : path + "-" + id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
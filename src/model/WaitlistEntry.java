@@ -0,0 +1,18 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Компания в листе ожидания: подойдет любой стол на date с началом в часы [fromHour, toHour]
+public record WaitlistEntry(int id, String customerName, String phone, int guests,
+                            LocalDate date, int fromHour, int toHour, LocalDateTime createdAt) {
+
+    public WaitlistEntry withId(int newId) {
+        return new WaitlistEntry(newId, customerName, phone, guests, date, fromHour, toHour, createdAt);
+    }
+
+    @Override
+    public String toString() {
+        return customerName + " (" + guests + " чел.) " + date + " " + fromHour + ":00–" + toHour + ":00";
+    }
+}
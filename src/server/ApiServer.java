@@ -0,0 +1,348 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import controller.MainController;
+import database.DatabaseConnection;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.BookingStatus;
+import model.Reservation;
+import model.Table;
+import model.TableInfo;
+import model.Venue;
+import service.Alternative;
+import service.Availability;
+import service.SlotTakenException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Headless-режим: HTTP API для онлайн-бронирований с сайта.
+// Бронированиями ведает тот же MainController, что и на рабочих местах (без интерфейса):
+// правила, регулярные брони и обновление из booking_grid у них общие. Из-за этого нужен
+// javafx-base (списки и свойства контроллера); графическая часть JavaFX не загружается.
+// Каждый запрос обрабатывается в виртуальном потоке; число одновременно
+// выполняемых запросов ограничено, лишние ждут недолго и получают 503,
+// а обращения к БД дополнительно ограничены размером пула соединений
+public class ApiServer {
+    private static final Logger logger = Logger.getLogger(ApiServer.class.getName());
+
+    // Те же границы, что и у спиннеров формы бронирования
+    private static final int MAX_GUESTS = 20;
+
+    private static final LatencyHistogram REQUEST_LATENCY = Metrics.histogram("api.requests");
+    private static final Counter REJECTED = Metrics.counter("api.rejected");
+
+    private final MainController controller;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore admission;
+    private final long queueTimeoutMs;
+    private final int maxBodyBytes;
+
+    public ApiServer(MainController controller, int port) throws IOException {
+        this.controller = controller;
+        this.admission = new Semaphore(Integer.getInteger("cafe.api.maxInFlight", 64));
+        this.queueTimeoutMs = Long.getLong("cafe.api.queueTimeoutMs", 250L);
+        this.maxBodyBytes = Integer.getInteger("cafe.api.maxBodyBytes", 16 * 1024);
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), Integer.getInteger("cafe.api.backlog", 256));
+        this.server.setExecutor(executor);
+        Metrics.gauge("api.inFlightAvailable", admission::availablePermits);
+
+        this.server.createContext("/api/health", admitted(this::handleHealth));
+        this.server.createContext("/api/availability", admitted(this::handleAvailability));
+        this.server.createContext("/api/bookings", admitted(this::handleBookings));
+    }
+
+    public void start() {
+        server.start();
+        logger.info("HTTP API запущен на порту " + server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        DatabaseConnection.closeConnection();
+    }
+
+    // Контроль допуска: запрос ждет свободного места не дольше queueTimeoutMs
+    private HttpHandler admitted(Endpoint handler) {
+        return exchange -> {
+            long start = System.nanoTime();
+            boolean acquired = false;
+            try {
+                acquired = admission.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+                if (!acquired) {
+                    REJECTED.increment();
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, 503, Json.error("Сервер перегружен, повторите запрос позже"));
+                    return;
+                }
+                handler.handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                send(exchange, 503, Json.error("Запрос прерван"));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                send(exchange, 400, Json.error(e.getMessage()));
+            } catch (SQLTransientException e) {
+                // Пул соединений исчерпан: просим клиента повторить позже
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, Json.error("База данных перегружена, повторите запрос позже"));
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "Ошибка БД при обработке " + exchange.getRequestURI(), e);
+                send(exchange, 500, Json.error("Ошибка базы данных"));
+            } catch (Exception e) {
+                // Контроллер оборачивает ошибки БД в RuntimeException
+                if (e.getCause() instanceof SQLTransientException) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    send(exchange, 503, Json.error("База данных перегружена, повторите запрос позже"));
+                    return;
+                }
+                logger.log(Level.SEVERE, "Ошибка при обработке " + exchange.getRequestURI(), e);
+                send(exchange, 500, Json.error("Внутренняя ошибка сервера"));
+            } finally {
+                if (acquired) {
+                    admission.release();
+                }
+                exchange.close();
+                REQUEST_LATENCY.recordSince(start);
+            }
+        };
+    }
+
+    private interface Endpoint {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        send(exchange, 200, "{\"status\":\"ok\",\"inFlightAvailable\":" + admission.availablePermits() + "}");
+    }
+
+    // GET /api/availability?date=2025-01-31&hour=19&guests=4
+    private void handleAvailability(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, Json.error("Метод не поддерживается"));
+            return;
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        LocalDateTime dateTime = parseDateTime(query.get("date"), query.get("hour"));
+        int guests = parseGuests(query.get("guests"));
+
+        // От меньших столов к большим
+        List<Table> tables = new ArrayList<>(controller.findAvailableTables(guests, dateTime));
+        tables.sort(Comparator.comparingInt(Table::getCapacity));
+        StringBuilder json = new StringBuilder("{\"dateTime\":").append(Json.quote(dateTime.toString()))
+                .append(",\"tables\":[");
+        for (int i = 0; i < tables.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendTable(json, tables.get(i).toTableInfo());
+        }
+        send(exchange, 200, json.append("]}").toString());
+    }
+
+    // POST /api/bookings, DELETE /api/bookings/{id}
+    private void handleBookings(HttpExchange exchange) throws Exception {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+
+        if ("/api/bookings".equals(path) || "/api/bookings/".equals(path)) {
+            if ("POST".equals(method)) {
+                createBooking(exchange);
+            } else {
+                send(exchange, 405, Json.error("Метод не поддерживается"));
+            }
+            return;
+        }
+
+        int bookingId;
+        try {
+            bookingId = Integer.parseInt(path.substring("/api/bookings/".length()));
+        } catch (NumberFormatException e) {
+            send(exchange, 404, Json.error("Не найдено"));
+            return;
+        }
+        if ("DELETE".equals(method)) {
+            if (controller.cancelBookingById(bookingId)) {
+                send(exchange, 200, "{\"id\":" + bookingId + ",\"status\":\"CANCELLED\"}");
+            } else {
+                send(exchange, 404, Json.error("Бронирование с ID " + bookingId + " не найдено"));
+            }
+        } else {
+            send(exchange, 405, Json.error("Метод не поддерживается"));
+        }
+    }
+
+    private void createBooking(HttpExchange exchange) throws Exception {
+        Map<String, String> body = Json.parseObject(readBody(exchange));
+
+        String name = require(body, "customerName");
+        String phone = require(body, "phone");
+        int guests = parseGuests(body.get("guests"));
+        LocalDateTime dateTime = parseDateTime(body.get("date"), body.get("hour"));
+        if (dateTime.toLocalDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Нельзя выбрать прошедшую дату");
+        }
+        String tableNumber = body.get("tableNumber");
+
+        Reservation request = new Reservation(0, name, phone, guests, dateTime,
+                tableNumber == null ? 0 : Integer.parseInt(tableNumber),
+                BookingStatus.PENDING, body.getOrDefault("specialRequests", ""));
+
+        Reservation booking;
+        try {
+            booking = controller.addBooking(request).toReservation();
+        } catch (SlotTakenException e) {
+            send(exchange, 409, slotTakenJson(e));
+            return;
+        }
+        send(exchange, 201, "{\"id\":" + booking.id() +
+                ",\"tableNumber\":" + booking.tableNumber() +
+                ",\"dateTime\":" + Json.quote(booking.bookingDateTime().toString()) +
+                ",\"status\":" + Json.quote(booking.status().name()) + "}");
+    }
+
+    private static String slotTakenJson(SlotTakenException e) {
+        StringBuilder json = new StringBuilder("{\"error\":\"SLOT_TAKEN\",\"message\":")
+                .append(Json.quote(e.getMessage()))
+                .append(",\"alternatives\":[");
+        List<Alternative> alternatives = e.getAlternatives();
+        for (int i = 0; i < alternatives.size(); i++) {
+            Alternative alternative = alternatives.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"tableNumber\":").append(alternative.tableNumber())
+                    .append(",\"capacity\":").append(alternative.capacity())
+                    .append(",\"dateTime\":").append(Json.quote(alternative.dateTime().toString()))
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(maxBodyBytes + 1);
+            if (body.length > maxBodyBytes) {
+                throw new IllegalArgumentException("Слишком большой запрос");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void appendTable(StringBuilder json, TableInfo table) {
+        json.append("{\"tableNumber\":").append(table.tableNumber())
+                .append(",\"capacity\":").append(table.capacity())
+                .append(",\"location\":").append(Json.quote(table.location()))
+                .append('}');
+    }
+
+    private static LocalDateTime parseDateTime(String date, String hour) {
+        if (date == null || hour == null) {
+            throw new IllegalArgumentException("Не указаны дата или час");
+        }
+        int h = Integer.parseInt(hour);
+        if (h < Availability.FIRST_HOUR || h > Availability.LAST_HOUR) {
+            throw new IllegalArgumentException("Час должен быть от " + Availability.FIRST_HOUR + " до " + Availability.LAST_HOUR);
+        }
+        return LocalDateTime.of(LocalDate.parse(date), LocalTime.of(h, 0));
+    }
+
+    private static int parseGuests(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Не указано количество гостей");
+        }
+        int guests = Integer.parseInt(value);
+        if (guests < 1 || guests > MAX_GUESTS) {
+            throw new IllegalArgumentException("Количество гостей должно быть от 1 до " + MAX_GUESTS);
+        }
+        return guests;
+    }
+
+    private static String require(Map<String, String> body, String field) {
+        String value = body.get(field);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Не заполнено поле " + field);
+        }
+        return value.trim();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> result = new HashMap<>();
+        if (rawQuery == null) {
+            return result;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                result.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return result;
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("cafe.api.port", 8080);
+        // Один процесс API обслуживает одно заведение (по умолчанию первое из cafe.venues)
+        Venue venue = DatabaseConnection.getDefaultVenue();
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--port".equals(args[i])) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if ("--venue".equals(args[i])) {
+                venue = DatabaseConnection.findVenue(args[i + 1]);
+            }
+        }
+
+        // Один поток применяет изменения к спискам контроллера, как поток JavaFX на рабочем месте
+        ExecutorService controllerThread = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "api-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MainController controller = MainController.openHeadless(venue, controllerThread);
+        controller.initialLoad().join();
+        // Загрузка передана в поток контроллера; запросы принимаются после ее применения
+        controllerThread.submit(() -> { }).get();
+
+        ApiServer apiServer = new ApiServer(controller, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(apiServer::stop, "api-shutdown"));
+        apiServer.start();
+    }
+}
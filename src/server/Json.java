@@ -0,0 +1,133 @@
+package server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Минимальный JSON для API: разбор плоского объекта и экранирование строк.
+// Вложенные объекты и массивы в запросах не нужны, поэтому не поддерживаются
+final class Json {
+
+    private Json() {
+    }
+
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> result = new LinkedHashMap<>();
+        int[] pos = {skipWhitespace(json, 0)};
+        expect(json, pos, '{');
+        pos[0] = skipWhitespace(json, pos[0]);
+        if (peek(json, pos) == '}') {
+            return result;
+        }
+        while (true) {
+            pos[0] = skipWhitespace(json, pos[0]);
+            String key = readString(json, pos);
+            pos[0] = skipWhitespace(json, pos[0]);
+            expect(json, pos, ':');
+            pos[0] = skipWhitespace(json, pos[0]);
+            result.put(key, readValue(json, pos));
+            pos[0] = skipWhitespace(json, pos[0]);
+            char c = peek(json, pos);
+            pos[0]++;
+            if (c == '}') {
+                return result;
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("Ожидалась ',' или '}' в позиции " + (pos[0] - 1));
+            }
+        }
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    private static String readValue(String json, int[] pos) {
+        char c = peek(json, pos);
+        if (c == '"') {
+            return readString(json, pos);
+        }
+        int start = pos[0];
+        while (pos[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(pos[0])) < 0) {
+            pos[0]++;
+        }
+        String literal = json.substring(start, pos[0]);
+        if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("[")) {
+            throw new IllegalArgumentException("Неподдерживаемое значение в позиции " + start);
+        }
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private static String readString(String json, int[] pos) {
+        expect(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < json.length()) {
+            char c = json.charAt(pos[0]++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c == '\\') {
+                char e = json.charAt(pos[0]++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                        pos[0] += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        throw new IllegalArgumentException("Незакрытая строка");
+    }
+
+    private static void expect(String json, int[] pos, char expected) {
+        if (peek(json, pos) != expected) {
+            throw new IllegalArgumentException("Ожидался символ '" + expected + "' в позиции " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    private static char peek(String json, int[] pos) {
+        if (pos[0] >= json.length()) {
+            throw new IllegalArgumentException("Неожиданный конец JSON");
+        }
+        return json.charAt(pos[0]);
+    }
+
+    private static int skipWhitespace(String json, int pos) {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+}
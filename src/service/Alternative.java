@@ -0,0 +1,13 @@
+package service;
+
+import java.time.LocalDateTime;
+
+// Свободный вариант, предлагаемый вместо занятого слота
+public record Alternative(int tableNumber, int capacity, LocalDateTime dateTime) {
+
+    @Override
+    public String toString() {
+        return "Стол №" + tableNumber + " (" + capacity + " персон) — " +
+                dateTime.toLocalDate() + " " + dateTime.getHour() + ":00";
+    }
+}
@@ -0,0 +1,66 @@
+package service;
+
+import model.BookingStatus;
+
+import model.TableInfo;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+// Правило занятости стола: бронирование занимает стол на два часа,
+// отмененные бронирования стол не занимают
+public final class Availability {
+    public static final int SLOT_HOURS = 2;
+    // Часы, доступные для бронирования (как в спиннере формы)
+    public static final int FIRST_HOUR = 8;
+    public static final int LAST_HOUR = 23;
+
+    private Availability() {
+    }
+
+    public static boolean overlaps(LocalDateTime existing, LocalDateTime requested) {
+        return existing.toLocalDate().equals(requested.toLocalDate()) &&
+                Math.abs(existing.getHour() - requested.getHour()) < SLOT_HOURS;
+    }
+
+    public static boolean blocks(BookingStatus status, LocalDateTime existing, LocalDateTime requested) {
+        return status != BookingStatus.CANCELLED && overlaps(existing, requested);
+    }
+
+    // Альтернативы занятому слоту: сначала другие столы в то же время,
+    // затем ближайшие часы того же дня
+    public static List<Alternative> alternatives(List<TableInfo> tables, int guests, LocalDateTime requested,
+                                                 BiPredicate<Integer, LocalDateTime> isFree, int limit) {
+        List<TableInfo> fitting = new ArrayList<>();
+        for (TableInfo table : tables) {
+            if (table.capacity() >= guests) {
+                fitting.add(table);
+            }
+        }
+        fitting.sort(Comparator.comparingInt(TableInfo::capacity));
+
+        List<Alternative> result = new ArrayList<>();
+        LocalDateTime start = requested.withMinute(0).withSecond(0).withNano(0);
+        for (int shift = 0; shift <= LAST_HOUR - FIRST_HOUR && result.size() < limit; shift++) {
+            for (int sign : shift == 0 ? new int[]{1} : new int[]{-1, 1}) {
+                int hour = start.getHour() + sign * shift;
+                if (hour < FIRST_HOUR || hour > LAST_HOUR) {
+                    continue;
+                }
+                LocalDateTime candidate = start.withHour(hour);
+                for (TableInfo table : fitting) {
+                    if (result.size() >= limit) {
+                        return result;
+                    }
+                    if (isFree.test(table.tableNumber(), candidate)) {
+                        result.add(new Alternative(table.tableNumber(), table.capacity(), candidate));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
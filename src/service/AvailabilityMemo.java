@@ -0,0 +1,46 @@
+package service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Мемоизация результата поиска свободных столов по (дата, час, гости).
+// Записи дня действительны, пока не изменились версия дня в ReservationEngine и общее
+// поколение (столы, регулярные брони): бронирование на другой день кэш этого дня не сбрасывает.
+// Хранится не больше MAX_DAYS дней, при переполнении кэш очищается целиком
+public class AvailabilityMemo<T> {
+    private static final int MAX_DAYS = 64;
+
+    private record Day<T>(long version, long generation, Map<Integer, T> values) {
+    }
+
+    private final Map<LocalDate, Day<T>> days = new ConcurrentHashMap<>();
+
+    // null — значения нет или оно устарело
+    public T get(LocalDate date, long version, long generation, int hour, int guests) {
+        Day<T> day = days.get(date);
+        if (day == null || day.version() != version || day.generation() != generation) {
+            return null;
+        }
+        return day.values().get(key(hour, guests));
+    }
+
+    // version и generation нужно прочитать до расчета value
+    public void put(LocalDate date, long version, long generation, int hour, int guests, T value) {
+        if (days.size() >= MAX_DAYS && !days.containsKey(date)) {
+            days.clear();
+        }
+        Day<T> day = days.compute(date, (d, existing) ->
+                existing != null && (existing.version() > version || existing.generation() > generation ||
+                        (existing.version() == version && existing.generation() == generation))
+                        ? existing
+                        : new Day<>(version, generation, new ConcurrentHashMap<>()));
+        if (day.version() == version && day.generation() == generation) {
+            day.values().put(key(hour, guests), value);
+        }
+    }
+
+    private static int key(int hour, int guests) {
+        return hour << 16 | guests;
+    }
+}
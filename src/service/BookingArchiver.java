@@ -0,0 +1,94 @@
+package service;
+
+import database.BookingStore;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Периодический перенос завершенных и отмененных бронирований старше срока хранения
+// из рабочей таблицы в архив. Переносит небольшими пачками, чтобы не держать
+// долгих блокировок на bookings; id перенесенных отдаются слушателю
+public class BookingArchiver {
+    private static final Logger logger = Logger.getLogger(BookingArchiver.class.getName());
+    private static final LatencyHistogram ARCHIVE_LATENCY = Metrics.histogram("db.archiveBookings");
+    private static final Counter ARCHIVED = Metrics.counter("archive.moved");
+
+    private final BookingStore repository;
+    private final int retentionDays;
+    private final int batchSize;
+    private Consumer<List<Integer>> listener;
+    private ScheduledExecutorService executor;
+
+    public BookingArchiver(BookingStore repository, int retentionDays, int batchSize) {
+        this.repository = repository;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    // Слушатель получает id перенесенных бронирований в фоновом потоке
+    public void start(Duration interval, Consumer<List<Integer>> listener) {
+        if (executor != null || retentionDays <= 0) {
+            return;
+        }
+        this.listener = listener;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "booking-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::archive, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Первый день, который еще хранится в рабочей таблице целиком
+    public LocalDate getHorizon() {
+        return LocalDate.now().minusDays(retentionDays);
+    }
+
+    // Даты до горизонта могут быть только в архиве (кроме незавершенных бронирований)
+    public boolean isArchived(LocalDate date) {
+        return retentionDays > 0 && date.isBefore(getHorizon());
+    }
+
+    private void archive() {
+        LocalDateTime cutoff = getHorizon().atStartOfDay();
+        int total = 0;
+        try {
+            List<Integer> moved;
+            do {
+                long start = System.nanoTime();
+                moved = repository.archiveFinishedBookings(cutoff, batchSize);
+                ARCHIVE_LATENCY.recordSince(start);
+                if (!moved.isEmpty()) {
+                    total += moved.size();
+                    ARCHIVED.add(moved.size());
+                    listener.accept(moved);
+                }
+            } while (moved.size() >= batchSize && !Thread.currentThread().isInterrupted());
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Не удалось перенести бронирования в архив (перенесено: " + total + ")", e);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Ошибка архивации бронирований", e);
+        }
+        if (total > 0) {
+            logger.info("Перенесено в архив бронирований: " + total + " (раньше " + cutoff.toLocalDate() + ")");
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package service;
+
+import database.BookingRepository;
+import database.BookingStore;
+import database.DatabaseConnection;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.AuditRow;
+import model.Venue;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Logger;
+
+// Аудит занятости по всей истории: пересечения неотмененных бронирований одного стола
+// (по правилу Availability) и компании больше вместимости стола. Строки из БД раскладываются
+// по столам в примитивные массивы, затем в ForkJoinPool каждый стол сортируется и проверяется
+// одним проходом: для бронирования смотрятся только следующие за ним в пределах SLOT_HOURS.
+// Инкрементальный режим читает лишь дни столов, где бронирования менялись после прошлого аудита.
+// Запуск: java App --audit [--incremental] [--venue id]
+public class BookingAudit {
+    private static final Logger logger = Logger.getLogger(BookingAudit.class.getName());
+    private static final LatencyHistogram AUDIT_LATENCY = Metrics.histogram("audit.run");
+    // Транзакции, начатые до снимка, могут зафиксироваться после него с более ранним updated_at
+    private static final Duration WATERMARK_OVERLAP = Duration.ofMinutes(1);
+
+    public record Overlap(int tableNumber, int firstId, LocalDateTime first, int secondId, LocalDateTime second) {
+
+        @Override
+        public String toString() {
+            return "Стол №" + tableNumber + ": бронирования " + firstId + " (" + first + ") и " +
+                    secondId + " (" + second + ") пересекаются";
+        }
+    }
+
+    public record Report(boolean incremental, LocalDateTime snapshot, int rowsChecked, int tablesChecked,
+                         List<Overlap> overlaps, List<AuditRow> overCapacity, long elapsedMs) {
+
+        @Override
+        public String toString() {
+            return (incremental ? "Инкрементальный" : "Полный") + " аудит на " + snapshot + ": проверено " +
+                    rowsChecked + " бронирований на " + tablesChecked + " столах за " + elapsedMs +
+                    " мс, пересечений: " + overlaps.size() + ", больше вместимости: " + overCapacity.size();
+        }
+    }
+
+    private final BookingStore store;
+    private final ForkJoinPool pool;
+
+    public BookingAudit(BookingStore store, ForkJoinPool pool) {
+        this.store = store;
+        this.pool = pool;
+    }
+
+    // Инкрементальный аудит без предыдущего запуска выполняется полностью
+    public Report run(boolean incremental) throws SQLException {
+        long start = System.nanoTime();
+        LocalDateTime changedSince = null;
+        if (incremental) {
+            LocalDateTime lastSnapshot = store.loadLastAuditSnapshot();
+            if (lastSnapshot != null) {
+                changedSince = lastSnapshot.minus(WATERMARK_OVERLAP);
+            }
+        }
+
+        Map<Integer, TableRows> byTable = new HashMap<>();
+        List<AuditRow> overCapacity = new ArrayList<>();
+        int[] rowCount = new int[1];
+        LocalDateTime snapshot = store.streamAuditRows(changedSince, row -> {
+            rowCount[0]++;
+            byTable.computeIfAbsent(row.tableNumber(), TableRows::new).add(row);
+            if (row.guests() > row.capacity()) {
+                overCapacity.add(row);
+            }
+        });
+
+        TableRows[] tables = byTable.values().toArray(new TableRows[0]);
+        List<Overlap> overlaps = tables.length == 0 ? List.of() : pool.invoke(new SweepTask(tables, 0, tables.length));
+
+        boolean ranIncrementally = changedSince != null;
+        store.saveAuditRun(snapshot, ranIncrementally, rowCount[0], overlaps.size(), overCapacity.size());
+        AUDIT_LATENCY.recordSince(start);
+        Report report = new Report(ranIncrementally, snapshot, rowCount[0], tables.length, overlaps,
+                overCapacity, (System.nanoTime() - start) / 1_000_000);
+        logger.info(report.toString());
+        return report;
+    }
+
+    // Бронирования одного стола. Ключ — минута от эпохи (время без часового пояса, как в БД)
+    // в старших 32 битах и номер строки в младших: сортировка примитивного массива
+    // упорядочивает по времени без объектов на каждую строку
+    private static final class TableRows {
+        private final int tableNumber;
+        private long[] keys = new long[16];
+        private int[] ids = new int[16];
+        private int size;
+
+        TableRows(int tableNumber) {
+            this.tableNumber = tableNumber;
+        }
+
+        void add(AuditRow row) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            long minute = row.bookingDateTime().toEpochSecond(ZoneOffset.UTC) / 60;
+            keys[size] = (minute << 32) | size;
+            ids[size] = row.bookingId();
+            size++;
+        }
+
+        // Пересечение — тот же день и разница часов меньше SLOT_HOURS (Availability.overlaps).
+        // После сортировки для каждой строки проверяются только ближайшие следующие
+        List<Overlap> sweep() {
+            Arrays.sort(keys, 0, size);
+            List<Overlap> overlaps = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                long minute = keys[i] >> 32;
+                long day = Math.floorDiv(minute, 1440);
+                long hour = Math.floorDiv(minute, 60);
+                for (int j = i + 1; j < size; j++) {
+                    long other = keys[j] >> 32;
+                    if (Math.floorDiv(other, 1440) != day ||
+                            Math.floorDiv(other, 60) - hour >= Availability.SLOT_HOURS) {
+                        break;
+                    }
+                    overlaps.add(new Overlap(tableNumber, ids[(int) keys[i]], toDateTime(minute),
+                            ids[(int) keys[j]], toDateTime(other)));
+                }
+            }
+            return overlaps;
+        }
+
+        private static LocalDateTime toDateTime(long minute) {
+            return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+        }
+    }
+
+    // Столы независимы: диапазон делится пополам, пока не останется один стол
+    private static final class SweepTask extends RecursiveTask<List<Overlap>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient TableRows[] tables;
+        private final int from;
+        private final int to;
+
+        SweepTask(TableRows[] tables, int from, int to) {
+            this.tables = tables;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Overlap> compute() {
+            if (to - from == 1) {
+                return tables[from].sweep();
+            }
+            int middle = (from + to) >>> 1;
+            SweepTask left = new SweepTask(tables, from, middle);
+            left.fork();
+            List<Overlap> right = new SweepTask(tables, middle, to).compute();
+            List<Overlap> result = new ArrayList<>(left.join());
+            result.addAll(right);
+            return result;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Venue venue = DatabaseConnection.getDefaultVenue();
+        boolean incremental = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--incremental".equals(args[i])) {
+                incremental = true;
+            } else if ("--venue".equals(args[i]) && i + 1 < args.length) {
+                venue = DatabaseConnection.findVenue(args[i + 1]);
+            }
+        }
+
+        DatabaseConnection.ensureSchema(venue);
+        Report report = new BookingAudit(new BookingRepository(venue), ForkJoinPool.commonPool()).run(incremental);
+        report.overlaps().forEach(System.out::println);
+        for (AuditRow row : report.overCapacity()) {
+            System.out.println("Стол №" + row.tableNumber() + " (" + row.capacity() + " персон): бронирование " +
+                    row.bookingId() + " на " + row.bookingDateTime() + " — " + row.guests() + " гостей" +
+                    (row.archived() ? " (архив)" : ""));
+        }
+        System.out.println(report);
+        DatabaseConnection.closeConnection();
+        System.exit(report.overlaps().isEmpty() && report.overCapacity().isEmpty() ? 0 : 1);
+    }
+}
@@ -0,0 +1,165 @@
+package service;
+
+import database.BookingStore;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.BookingStatus;
+import model.Reservation;
+import model.StatusChange;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Автоматические переходы статусов:
+// PENDING, не подтвержденное к сроку (начало + pendingDeadline), становится CANCELLED;
+// CONFIRMED после окончания слота становится COMPLETED.
+// Сроки лежат в DelayQueue; фоновый поток забирает все наступившие переходы разом,
+// сохраняет их одним пакетом UPDATE и отдает слушателю одним списком
+public class BookingLifecycle {
+    private static final Logger logger = Logger.getLogger(BookingLifecycle.class.getName());
+    private static final int MAX_BATCH = 500;
+    private static final LatencyHistogram FLUSH_LATENCY = Metrics.histogram("db.updateStatuses");
+    private static final Counter TRANSITIONS = Metrics.counter("lifecycle.transitions");
+
+    private final BookingStore repository;
+    private final Duration pendingDeadline;
+    private Consumer<List<StatusChange>> listener;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final DelayQueue<Transition> queue = new DelayQueue<>();
+    // Актуальный переход для каждого бронирования; устаревшие элементы очереди
+    // не удаляются (это O(n)), а пропускаются при извлечении
+    private final Map<Integer, Transition> current = new ConcurrentHashMap<>();
+    private Thread worker;
+
+    public BookingLifecycle(BookingStore repository, Duration pendingDeadline) {
+        this.repository = repository;
+        this.pendingDeadline = pendingDeadline;
+    }
+
+    private static final class Transition implements Delayed {
+        private final StatusChange change;
+        private final long dueAtMs;
+
+        private Transition(StatusChange change, long dueAtMs) {
+            this.change = change;
+            this.dueAtMs = dueAtMs;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMs, ((Transition) other).dueAtMs);
+        }
+    }
+
+    // Слушатель получает примененные переходы в фоновом потоке
+    public void start(Consumer<List<StatusChange>> listener) {
+        this.listener = listener;
+        worker = new Thread(this::run, "booking-lifecycle");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    // Ставит следующий автоматический переход для бронирования (или снимает его)
+    public void track(Reservation booking) {
+        long startMs = booking.bookingDateTime().atZone(zone).toInstant().toEpochMilli();
+        Transition transition;
+        switch (booking.status()) {
+            case PENDING:
+                transition = new Transition(
+                        new StatusChange(booking.id(), BookingStatus.PENDING, BookingStatus.CANCELLED),
+                        startMs + pendingDeadline.toMillis());
+                break;
+            case CONFIRMED:
+                transition = new Transition(
+                        new StatusChange(booking.id(), BookingStatus.CONFIRMED, BookingStatus.COMPLETED),
+                        startMs + TimeUnit.HOURS.toMillis(Availability.SLOT_HOURS));
+                break;
+            default:
+                current.remove(booking.id());
+                return;
+        }
+        current.put(booking.id(), transition);
+        queue.put(transition);
+    }
+
+    public void untrack(int bookingId) {
+        current.remove(bookingId);
+    }
+
+    public int getTrackedCount() {
+        return current.size();
+    }
+
+    private void run() {
+        List<Transition> due = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                due.add(queue.take());
+                queue.drainTo(due, MAX_BATCH - 1);
+
+                List<StatusChange> changes = new ArrayList<>(due.size());
+                for (Transition transition : due) {
+                    if (current.remove(transition.change.bookingId(), transition)) {
+                        changes.add(transition.change);
+                    }
+                }
+                due.clear();
+                if (!changes.isEmpty()) {
+                    flush(changes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Ошибка в обработчике автоматических статусов", e);
+            }
+        }
+    }
+
+    private void flush(List<StatusChange> changes) throws InterruptedException {
+        List<StatusChange> applied;
+        long start = System.nanoTime();
+        try {
+            applied = repository.updateStatuses(changes);
+            FLUSH_LATENCY.recordSince(start);
+        } catch (SQLException e) {
+            // Повторим позже; более новые ручные изменения при этом не затираются
+            logger.log(Level.WARNING, "Не удалось сохранить автоматические статусы: " + changes.size(), e);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            for (StatusChange change : changes) {
+                Transition retry = new Transition(change, System.currentTimeMillis());
+                if (current.putIfAbsent(change.bookingId(), retry) == null) {
+                    queue.put(retry);
+                }
+            }
+            return;
+        }
+        TRANSITIONS.add(applied.size());
+        logger.info("Автоматически изменено статусов: " + applied.size() + " из " + changes.size());
+        if (!applied.isEmpty()) {
+            listener.accept(applied);
+        }
+    }
+}
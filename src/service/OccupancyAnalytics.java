@@ -0,0 +1,88 @@
+package service;
+
+import database.BookingStore;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.BookingStatus;
+import model.OccupancyCount;
+import model.Reservation;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Тепловая карта занятости. Прошедшие дни агрегирует PostgreSQL (BookingStore.loadOccupancy),
+// результат кэшируется на период и не меняется в течение дня. Сегодняшний день
+// досчитывается из бронирований в памяти, поэтому правки за сегодня видны сразу
+// без повторного запроса к БД. Все вычисления — в отдельном потоке
+public class OccupancyAnalytics {
+    private static final LatencyHistogram QUERY_LATENCY = Metrics.histogram("db.loadOccupancy");
+
+    private record Period(LocalDate from, LocalDate to) {
+    }
+
+    private final BookingStore store;
+    private final Map<Period, CompletableFuture<List<OccupancyCount>>> cache = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "occupancy-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OccupancyAnalytics(BookingStore store) {
+        this.store = store;
+    }
+
+    // today — снимок сегодняшних бронирований из памяти
+    public CompletableFuture<OccupancyHeatmap> load(LocalDate from, LocalDate today, List<Reservation> todays) {
+        // Кэш прошлых суток больше не понадобится
+        cache.keySet().removeIf(period -> !period.to().equals(today));
+
+        CompletableFuture<List<OccupancyCount>> past = cache.computeIfAbsent(new Period(from, today), this::query);
+        return past.thenApplyAsync(counts -> {
+            OccupancyHeatmap heatmap = new OccupancyHeatmap(from, today.plusDays(1));
+            counts.forEach(heatmap::add);
+            for (Reservation booking : todays) {
+                if (booking.status() == BookingStatus.CANCELLED) {
+                    continue;
+                }
+                for (int shift = 0; shift < Availability.SLOT_HOURS; shift++) {
+                    heatmap.add(new OccupancyCount(booking.tableNumber(), today.getDayOfWeek().getValue(),
+                            booking.bookingDateTime().getHour() + shift, 1));
+                }
+            }
+            return heatmap;
+        }, executor);
+    }
+
+    // Сбросить кэш (например, после правки прошедших бронирований)
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private CompletableFuture<List<OccupancyCount>> query(Period period) {
+        CompletableFuture<List<OccupancyCount>> future = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                return store.loadOccupancy(period.from(), period.to(), Availability.SLOT_HOURS);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                QUERY_LATENCY.recordSince(start);
+            }
+        }, executor);
+        // Ошибку не кэшируем: следующий запрос повторит обращение к БД
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                cache.remove(period, future);
+            }
+        });
+        return future;
+    }
+}
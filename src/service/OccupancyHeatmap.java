@@ -0,0 +1,61 @@
+package service;
+
+import model.OccupancyCount;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Занятость столов по дням недели и часам за период [from, to).
+// Доля занятости — сколько раз стол был занят в этот час, деленное на число
+// таких дней недели в периоде (для всех столов — еще и на число столов)
+public final class OccupancyHeatmap {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int[] daysPerWeekday = new int[8];
+    private final Map<Integer, int[][]> countsByTable = new HashMap<>();
+    private final int[][] totals = new int[8][24];
+
+    OccupancyHeatmap(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            daysPerWeekday[day.getDayOfWeek().getValue()]++;
+        }
+    }
+
+    void add(OccupancyCount count) {
+        // Слот, начатый в 23:00, заканчивается уже на следующие сутки
+        if (count.hour() > 23) {
+            return;
+        }
+        countsByTable.computeIfAbsent(count.tableNumber(), t -> new int[8][24])
+                [count.dayOfWeek()][count.hour()] += count.bookings();
+        totals[count.dayOfWeek()][count.hour()] += count.bookings();
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Set<Integer> getTableNumbers() {
+        return countsByTable.keySet();
+    }
+
+    // tableNumber == null — по всем столам
+    public int getCount(Integer tableNumber, DayOfWeek dayOfWeek, int hour) {
+        int[][] counts = tableNumber == null ? totals : countsByTable.get(tableNumber);
+        return counts == null ? 0 : counts[dayOfWeek.getValue()][hour];
+    }
+
+    public double getRate(Integer tableNumber, DayOfWeek dayOfWeek, int hour, int tableCount) {
+        int slots = daysPerWeekday[dayOfWeek.getValue()] * (tableNumber == null ? Math.max(tableCount, 1) : 1);
+        return slots == 0 ? 0 : Math.min(1.0, (double) getCount(tableNumber, dayOfWeek, hour) / slots);
+    }
+}
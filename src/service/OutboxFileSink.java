@@ -0,0 +1,84 @@
+package service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Напоминания дописываются в локальный файл (по одному JSON на строку),
+// откуда их забирает внешняя рассылка
+public class OutboxFileSink implements ReminderSink {
+    // Поля ключа отправленного напоминания в строке файла (формат пишет deliver)
+    private static final Pattern KEY = Pattern.compile(
+            "\\{\"bookingId\":(-?\\d+),.*\"bookingDateTime\":\"([^\"]+)\",\"minutesBefore\":(\\d+),");
+
+    private final Path file;
+
+    public OutboxFileSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void deliver(List<Reminder> reminders) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Reminder reminder : reminders) {
+                writer.write("{\"bookingId\":" + reminder.bookingId() +
+                        ",\"customerName\":" + quote(reminder.customerName()) +
+                        ",\"phone\":" + quote(reminder.phone()) +
+                        ",\"tableNumber\":" + reminder.tableNumber() +
+                        ",\"bookingDateTime\":" + quote(reminder.bookingDateTime().toString()) +
+                        ",\"minutesBefore\":" + reminder.minutesBefore() +
+                        ",\"createdAt\":" + quote(LocalDateTime.now().toString()) + "}");
+                writer.newLine();
+            }
+        }
+    }
+
+    // Отправленные напоминания о еще не начавшихся бронированиях
+    @Override
+    public synchronized Set<Reminder.Key> loadDelivered() throws IOException {
+        Set<Reminder.Key> delivered = new HashSet<>();
+        if (!Files.exists(file)) {
+            return delivered;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            Matcher matcher = KEY.matcher(line);
+            if (matcher.find()) {
+                LocalDateTime bookingDateTime = LocalDateTime.parse(matcher.group(2));
+                if (bookingDateTime.isAfter(now)) {
+                    delivered.add(new Reminder.Key(Integer.parseInt(matcher.group(1)), bookingDateTime,
+                            Long.parseLong(matcher.group(3))));
+                }
+            }
+        }
+        return delivered;
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,21 @@
+package service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Повторения нового правила попадают на занятый стол: разовой бронью или другим правилом.
+// Содержит даты конфликтующих повторений в проверенном окне
+public class RecurrenceConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<LocalDate> dates;
+
+    public RecurrenceConflictException(int tableNumber, List<LocalDate> dates) {
+        super("Стол №" + tableNumber + " занят в " + dates.size() + " из дат повторения");
+        this.dates = List.copyOf(dates);
+    }
+
+    public List<LocalDate> getDates() {
+        return dates;
+    }
+}
@@ -0,0 +1,119 @@
+package service;
+
+import model.BookingStatus;
+import model.RecurrenceRule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Регулярные брони заведения. Повторения заранее не разворачиваются: занятость стола
+// на конкретное время проверяется по правилам этого стола, а список повторений
+// строится только для запрошенного окна дат. Потокобезопасен
+public class RecurringSchedule {
+    private final Map<Integer, RecurrenceRule> rulesById = new HashMap<>();
+    private final Map<Integer, List<RecurrenceRule>> rulesByTable = new HashMap<>();
+    // Растет после каждого изменения правил (для кэшей занятости)
+    private volatile long version;
+
+    // Повторение правила в конкретный день
+    public record Occurrence(RecurrenceRule rule, LocalDateTime dateTime) {
+    }
+
+    public synchronized void setAll(Collection<RecurrenceRule> rules) {
+        rulesById.clear();
+        rulesByTable.clear();
+        rules.forEach(this::put);
+        version++;
+    }
+
+    // Добавляет правило или заменяет правило с тем же id
+    public synchronized void put(RecurrenceRule rule) {
+        remove(rule.id());
+        rulesById.put(rule.id(), rule);
+        rulesByTable.computeIfAbsent(rule.tableNumber(), table -> new ArrayList<>()).add(rule);
+        version++;
+    }
+
+    public synchronized void remove(int ruleId) {
+        RecurrenceRule removed = rulesById.remove(ruleId);
+        if (removed != null) {
+            List<RecurrenceRule> tableRules = rulesByTable.get(removed.tableNumber());
+            tableRules.removeIf(rule -> rule.id() == ruleId);
+            if (tableRules.isEmpty()) {
+                rulesByTable.remove(removed.tableNumber());
+            }
+            version++;
+        }
+    }
+
+    // Заменяет сохраненные правила (id > 0) прочитанными из БД, если набор отличается.
+    // Правила, которые еще проверяются перед сохранением (отрицательный id), остаются.
+    // Возвращает true, если правила изменились
+    public synchronized boolean replaceSaved(Collection<RecurrenceRule> rules) {
+        Map<Integer, RecurrenceRule> saved = new HashMap<>();
+        rulesById.forEach((id, rule) -> {
+            if (id > 0) {
+                saved.put(id, rule);
+            }
+        });
+        Map<Integer, RecurrenceRule> loaded = new HashMap<>();
+        rules.forEach(rule -> loaded.put(rule.id(), rule));
+        if (saved.equals(loaded)) {
+            return false;
+        }
+        saved.keySet().forEach(this::remove);
+        loaded.values().forEach(this::put);
+        return true;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public synchronized RecurrenceRule find(int ruleId) {
+        return rulesById.get(ruleId);
+    }
+
+    // Правило, чье повторение занимает стол в dateTime (кроме правила excludeRuleId), или null
+    public synchronized RecurrenceRule findBlocking(int tableNumber, LocalDateTime dateTime, int excludeRuleId) {
+        List<RecurrenceRule> tableRules = rulesByTable.get(tableNumber);
+        if (tableRules == null) {
+            return null;
+        }
+        LocalDate date = dateTime.toLocalDate();
+        for (RecurrenceRule rule : tableRules) {
+            if (rule.id() != excludeRuleId && rule.occursOn(date) &&
+                    Availability.blocks(BookingStatus.CONFIRMED, rule.dateTimeOn(date), dateTime)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    public boolean blocks(int tableNumber, LocalDateTime dateTime) {
+        return findBlocking(tableNumber, dateTime, 0) != null;
+    }
+
+    // Повторения всех правил в [from, to) по времени и номеру стола
+    public synchronized List<Occurrence> expand(LocalDate from, LocalDate to) {
+        List<Occurrence> result = new ArrayList<>();
+        for (RecurrenceRule rule : rulesById.values()) {
+            for (LocalDate date : rule.occurrences(from, to)) {
+                result.add(new Occurrence(rule, rule.dateTimeOn(date)));
+            }
+        }
+        result.sort(Comparator.comparing(Occurrence::dateTime)
+                .thenComparingInt(occurrence -> occurrence.rule().tableNumber()));
+        return result;
+    }
+
+    public synchronized int size() {
+        return rulesById.size();
+    }
+}
@@ -0,0 +1,15 @@
+package service;
+
+import java.time.LocalDateTime;
+
+// Напоминание о предстоящем бронировании
+public record Reminder(int bookingId, String customerName, String phone, int tableNumber,
+                       LocalDateTime bookingDateTime, long minutesBefore) {
+    // Отправленное напоминание: после переноса бронирования на другое время оно отправляется снова
+    public record Key(int bookingId, LocalDateTime bookingDateTime, long minutesBefore) {
+    }
+
+    public Key key() {
+        return new Key(bookingId, bookingDateTime, minutesBefore);
+    }
+}
@@ -0,0 +1,197 @@
+package service;
+
+import model.BookingStatus;
+import model.Reservation;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Планировщик напоминаний о бронированиях на колесе таймеров.
+// Для каждого бронирования ставится по таймеру на каждый отступ до начала;
+// изменение или удаление бронирования отменяет его таймеры за O(1).
+// После перезапуска состояние восстанавливается из загруженных бронирований;
+// уже отправленные напоминания (их хранит получатель) повторно не ставятся
+public class ReminderScheduler {
+    private static final Logger logger = Logger.getLogger(ReminderScheduler.class.getName());
+
+    private final ReminderSink sink;
+    private final List<Duration> offsets;
+    private final long tickMs;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TimingWheel<Reminder> wheel;
+    private final Map<Integer, List<TimingWheel.Timeout<Reminder>>> timeoutsByBooking = new HashMap<>();
+    // Отправленные (или отправляемые прямо сейчас) напоминания; ключи прошедших бронирований
+    // удаляются раз в час
+    private final Set<Reminder.Key> delivered = new HashSet<>();
+    private long prunedAt;
+    private ScheduledExecutorService ticker;
+
+    // offsets — за сколько до начала бронирования напоминать, от большего к меньшему
+    public ReminderScheduler(ReminderSink sink, List<Duration> offsets, long tickMs) {
+        this.sink = sink;
+        this.offsets = new ArrayList<>(offsets);
+        this.offsets.sort((a, b) -> b.compareTo(a));
+        this.tickMs = tickMs;
+        this.wheel = new TimingWheel<>(tickMs, System.currentTimeMillis());
+        try {
+            delivered.addAll(sink.loadDelivered());
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Не удалось прочитать отправленные напоминания", e);
+        }
+    }
+
+    // Отступы в минутах через запятую, например "1440,60"
+    public static List<Duration> parseOffsets(String minutes) {
+        List<Duration> result = new ArrayList<>();
+        for (String part : minutes.split(",")) {
+            if (!part.trim().isEmpty()) {
+                result.add(Duration.ofMinutes(Long.parseLong(part.trim())));
+            }
+        }
+        return result;
+    }
+
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reminder-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    // Ставит (или переставляет) напоминания для бронирования.
+    // Отмененные, завершенные и уже начавшиеся бронирования напоминаний не получают
+    public void schedule(Reservation booking) {
+        long now = System.currentTimeMillis();
+        long startMs = booking.bookingDateTime().atZone(zone).toInstant().toEpochMilli();
+
+        lock.lock();
+        try {
+            cancelLocked(booking.id());
+            if (booking.status() == BookingStatus.CANCELLED || booking.status() == BookingStatus.COMPLETED ||
+                    startMs <= now) {
+                return;
+            }
+
+            List<TimingWheel.Timeout<Reminder>> timeouts = new ArrayList<>(offsets.size());
+            Reminder overdue = null;
+            for (Duration offset : offsets) {
+                long fireAt = startMs - offset.toMillis();
+                Reminder reminder = reminder(booking, offset);
+                if (fireAt <= now) {
+                    // Из просроченных напоминаний отправляется только самое близкое к началу
+                    overdue = reminder;
+                } else if (!delivered.contains(reminder.key())) {
+                    timeouts.add(wheel.schedule(fireAt, reminder));
+                }
+            }
+            // Если оно уже отправлено (до перезапуска или до правки бронирования), более ранние не нужны
+            if (overdue != null && !delivered.contains(overdue.key())) {
+                timeouts.add(wheel.schedule(now, overdue));
+            }
+            if (!timeouts.isEmpty()) {
+                timeoutsByBooking.put(booking.id(), timeouts);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel(int bookingId) {
+        lock.lock();
+        try {
+            cancelLocked(bookingId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancelLocked(int bookingId) {
+        List<TimingWheel.Timeout<Reminder>> timeouts = timeoutsByBooking.remove(bookingId);
+        if (timeouts != null) {
+            for (TimingWheel.Timeout<Reminder> timeout : timeouts) {
+                wheel.cancel(timeout);
+            }
+        }
+    }
+
+    private void tick() {
+        List<Reminder> fired = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            wheel.advanceTo(now, fired::add);
+            if (now - prunedAt >= TimeUnit.HOURS.toMillis(1)) {
+                LocalDateTime current = LocalDateTime.now(zone);
+                delivered.removeIf(key -> key.bookingDateTime().isBefore(current));
+                prunedAt = now;
+            }
+            for (Reminder reminder : fired) {
+                // Отмечается до отправки, чтобы параллельный schedule() не поставил его снова
+                delivered.add(reminder.key());
+                List<TimingWheel.Timeout<Reminder>> timeouts = timeoutsByBooking.get(reminder.bookingId());
+                if (timeouts != null) {
+                    timeouts.removeIf(timeout -> !timeout.isPending());
+                    if (timeouts.isEmpty()) {
+                        timeoutsByBooking.remove(reminder.bookingId());
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (fired.isEmpty()) {
+            return;
+        }
+        try {
+            sink.deliver(fired);
+            logger.info("Отправлено напоминаний: " + fired.size());
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Не удалось отправить напоминания: " + fired.size(), e);
+            // Неотправленные можно поставить снова при следующей перестановке бронирования
+            lock.lock();
+            try {
+                fired.forEach(reminder -> delivered.remove(reminder.key()));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static Reminder reminder(Reservation booking, Duration offset) {
+        return new Reminder(booking.id(), booking.customerName(), booking.phone(), booking.tableNumber(),
+                booking.bookingDateTime(), offset.toMinutes());
+    }
+}
@@ -0,0 +1,15 @@
+package service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+// Получатель сработавших напоминаний (файл, SMS-шлюз, почта и т.п.)
+public interface ReminderSink {
+    void deliver(List<Reminder> reminders) throws IOException;
+
+    // Уже отправленные напоминания — чтобы после перезапуска не отправлять их повторно
+    default Set<Reminder.Key> loadDelivered() throws IOException {
+        return Set.of();
+    }
+}
@@ -0,0 +1,234 @@
+package service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Потокобезопасный индекс занятости столов.
+// Пересекаться могут только бронирования одного стола в один день (см. Availability),
+// поэтому проверка и вставка атомарны под блокировкой полосы (стол, день):
+// попытки забронировать разные столы или разные дни почти никогда не конкурируют.
+// Хранит только бронирования, которые занимают стол (без отмененных)
+public class ReservationEngine {
+    private static final int STRIPES = 256;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    // (стол, день) -> занятые слоты; список меняется только под блокировкой своей полосы
+    private final Map<Long, List<Slot>> slotsByTableDay = new ConcurrentHashMap<>();
+    private final Map<Integer, Slot> slotsById = new ConcurrentHashMap<>();
+    // Версии дней для кэшей поверх движка: номер последнего изменения слотов дня
+    // (эпохальный день -> номер). clear() меняет версию всех дней сразу
+    private final Map<Long, Long> dayVersions = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile long clearedAt;
+
+    public ReservationEngine() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public static final class Slot {
+        private final int tableNumber;
+        private final LocalDateTime dateTime;
+        // ID появляется после сохранения в БД
+        private volatile int id;
+
+        private Slot(int id, int tableNumber, LocalDateTime dateTime) {
+            this.id = id;
+            this.tableNumber = tableNumber;
+            this.dateTime = dateTime;
+        }
+
+        public int getId() { return id; }
+        public int getTableNumber() { return tableNumber; }
+        public LocalDateTime getDateTime() { return dateTime; }
+    }
+
+    // Атомарно занимает стол, если он свободен. Возвращает null, если слот занят
+    public Slot tryReserve(int tableNumber, LocalDateTime dateTime) {
+        return tryReserve(0, tableNumber, dateTime);
+    }
+
+    public Slot tryReserve(int id, int tableNumber, LocalDateTime dateTime) {
+        long key = key(tableNumber, dateTime.toLocalDate());
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            List<Slot> slots = slotsByTableDay.get(key);
+            if (slots != null && conflicts(slots, dateTime, 0)) {
+                return null;
+            }
+            Slot slot = new Slot(id, tableNumber, dateTime);
+            insert(key, slot);
+            return slot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Загрузка существующих бронирований без проверки: данные в БД уже такие, какие есть
+    public void add(int id, int tableNumber, LocalDateTime dateTime) {
+        long key = key(tableNumber, dateTime.toLocalDate());
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            insert(key, new Slot(id, tableNumber, dateTime));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void assignId(Slot slot, int id) {
+        slot.id = id;
+        slotsById.put(id, slot);
+    }
+
+    public Slot findById(int id) {
+        return slotsById.get(id);
+    }
+
+    public boolean release(int id) {
+        Slot slot = slotsById.get(id);
+        return slot != null && release(slot);
+    }
+
+    public boolean release(Slot slot) {
+        long key = key(slot.tableNumber, slot.dateTime.toLocalDate());
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return remove(key, slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Атомарный перенос слота на другой стол/время. Блокируются обе полосы
+    // в порядке номеров, чтобы встречные переносы не приводили к взаимоблокировке.
+    // Возвращает новый слот или null, если целевое время занято
+    public Slot tryMove(Slot slot, int newTableNumber, LocalDateTime newDateTime) {
+        long oldKey = key(slot.tableNumber, slot.dateTime.toLocalDate());
+        long newKey = key(newTableNumber, newDateTime.toLocalDate());
+        int first = Math.min(stripe(oldKey), stripe(newKey));
+        int second = Math.max(stripe(oldKey), stripe(newKey));
+
+        locks[first].lock();
+        if (second != first) {
+            locks[second].lock();
+        }
+        try {
+            List<Slot> target = slotsByTableDay.get(newKey);
+            if (target != null && conflicts(target, newDateTime, slot.id)) {
+                return null;
+            }
+            remove(oldKey, slot);
+            Slot moved = new Slot(slot.id, newTableNumber, newDateTime);
+            insert(newKey, moved);
+            return moved;
+        } finally {
+            if (second != first) {
+                locks[second].unlock();
+            }
+            locks[first].unlock();
+        }
+    }
+
+    public boolean isFree(int tableNumber, LocalDateTime dateTime) {
+        return isFree(tableNumber, dateTime, 0);
+    }
+
+    // excludeId позволяет не учитывать само редактируемое бронирование
+    public boolean isFree(int tableNumber, LocalDateTime dateTime, int excludeId) {
+        long key = key(tableNumber, dateTime.toLocalDate());
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            List<Slot> slots = slotsByTableDay.get(key);
+            return slots == null || !conflicts(slots, dateTime, excludeId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return slotsById.size();
+    }
+
+    // Меняется после каждого изменения слотов этого дня (на любом столе)
+    public long dayVersion(LocalDate date) {
+        return Math.max(dayVersions.getOrDefault(date.toEpochDay(), 0L), clearedAt);
+    }
+
+    public void clear() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            slotsByTableDay.clear();
+            slotsById.clear();
+            dayVersions.clear();
+            clearedAt = modifications.incrementAndGet();
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean conflicts(List<Slot> slots, LocalDateTime dateTime, int excludeId) {
+        for (Slot existing : slots) {
+            if ((excludeId == 0 || existing.id != excludeId) && Availability.overlaps(existing.dateTime, dateTime)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(long key, Slot slot) {
+        slotsByTableDay.computeIfAbsent(key, k -> new ArrayList<>(4)).add(slot);
+        if (slot.id != 0) {
+            slotsById.put(slot.id, slot);
+        }
+        touch(slot);
+    }
+
+    private boolean remove(long key, Slot slot) {
+        List<Slot> slots = slotsByTableDay.get(key);
+        if (slots == null || !slots.remove(slot)) {
+            return false;
+        }
+        if (slots.isEmpty()) {
+            slotsByTableDay.remove(key);
+        }
+        if (slot.id != 0) {
+            slotsById.remove(slot.id, slot);
+        }
+        touch(slot);
+        return true;
+    }
+
+    // Версия дня повышается после изменения списка: кэш, прочитавший версию до расчета,
+    // при следующем обращении увидит новую
+    private void touch(Slot slot) {
+        dayVersions.merge(slot.dateTime.toLocalDate().toEpochDay(), modifications.incrementAndGet(), Math::max);
+    }
+
+    private ReentrantLock lockFor(long key) {
+        return locks[stripe(key)];
+    }
+
+    private static int stripe(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 56) & (STRIPES - 1);
+    }
+
+    private static long key(int tableNumber, LocalDate date) {
+        return ((long) tableNumber << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,37 @@
+package service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Слот занят: либо по данным в памяти, либо по ограничению bookings_no_overlap в БД
+// (бронирование с другого терминала). Содержит свободные альтернативы
+public class SlotTakenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int tableNumber;
+    private final LocalDateTime dateTime;
+    // Исключение не сериализуется за пределы процесса, альтернативы нужны только форме
+    private final transient List<Alternative> alternatives;
+
+    public SlotTakenException(int tableNumber, LocalDateTime dateTime, List<Alternative> alternatives, Throwable cause) {
+        super(tableNumber == 0
+                ? "Нет свободного стола на " + dateTime.toLocalDate() + " " + dateTime.getHour() + ":00"
+                : "Стол №" + tableNumber + " уже занят на " + dateTime.toLocalDate() + " " + dateTime.getHour() + ":00",
+                cause);
+        this.tableNumber = tableNumber;
+        this.dateTime = dateTime;
+        this.alternatives = List.copyOf(alternatives);
+    }
+
+    public int getTableNumber() {
+        return tableNumber;
+    }
+
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    public List<Alternative> getAlternatives() {
+        return alternatives;
+    }
+}
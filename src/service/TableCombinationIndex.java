@@ -0,0 +1,205 @@
+package service;
+
+import model.TableInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+// Сочетания сдвигаемых столов для компаний, которым не хватает одного стола.
+// Граф смежности: явные пары из настройки или, если их нет, столы одной зоны (location)
+// с соседними номерами. Сочетание — связный набор из 2..maxTables столов одной зоны.
+// Индекс строится один раз при загрузке столов: для каждого числа гостей хранится список
+// минимальных сочетаний (ни одна связная часть сочетания не вмещает компанию) по возрастанию
+// вместимости, поэтому поиск — короткий проход с проверкой занятости, как для одного стола
+public class TableCombinationIndex {
+
+    public record Combination(List<Integer> tableNumbers, int capacity, String location) {
+
+        // Номера столов через «+», например 3+4+5
+        public String numbers() {
+            StringBuilder numbers = new StringBuilder();
+            for (int tableNumber : tableNumbers) {
+                numbers.append(numbers.length() == 0 ? "" : "+").append(tableNumber);
+            }
+            return numbers.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "Столы №" + numbers() + " (" + capacity + " персон) - " + location;
+        }
+    }
+
+    private static final List<Combination> NONE = List.of();
+
+    // byGuests[g] — минимальные сочетания для компании из g гостей
+    private final List<List<Combination>> byGuests;
+    private final int combinationCount;
+
+    private TableCombinationIndex(List<List<Combination>> byGuests, int combinationCount) {
+        this.byGuests = byGuests;
+        this.combinationCount = combinationCount;
+    }
+
+    // adjacency — пары «номер-номер» через запятую (например, "1-2,2-3,7-8");
+    // пустая строка или null — соседние номера в одной зоне
+    public static TableCombinationIndex build(List<TableInfo> tables, String adjacency, int maxTables) {
+        Map<Integer, TableInfo> byNumber = new HashMap<>();
+        for (TableInfo table : tables) {
+            byNumber.put(table.tableNumber(), table);
+        }
+        Map<Integer, Set<Integer>> graph = adjacency == null || adjacency.isBlank()
+                ? neighboursByNumber(tables)
+                : parseAdjacency(adjacency, byNumber);
+
+        // Все связные наборы до maxTables столов: наращиваем каждый набор соседями
+        Map<List<Integer>, Integer> capacities = new HashMap<>();
+        Set<Set<Integer>> level = new HashSet<>();
+        for (TableInfo table : tables) {
+            level.add(Set.of(table.tableNumber()));
+            capacities.put(List.of(table.tableNumber()), table.capacity());
+        }
+        List<List<Integer>> combinations = new ArrayList<>();
+        for (int size = 2; size <= maxTables && !level.isEmpty(); size++) {
+            Set<Set<Integer>> next = new HashSet<>();
+            for (Set<Integer> set : level) {
+                for (int member : set) {
+                    for (int neighbour : graph.getOrDefault(member, Set.of())) {
+                        if (!set.contains(neighbour)) {
+                            Set<Integer> grown = new HashSet<>(set);
+                            grown.add(neighbour);
+                            next.add(grown);
+                        }
+                    }
+                }
+            }
+            for (Set<Integer> set : next) {
+                List<Integer> sorted = new ArrayList<>(new TreeSet<>(set));
+                int capacity = 0;
+                for (int tableNumber : sorted) {
+                    capacity += byNumber.get(tableNumber).capacity();
+                }
+                capacities.put(sorted, capacity);
+                combinations.add(sorted);
+            }
+            level = next;
+        }
+
+        // Сочетание минимально для g гостей, если g больше вместимости любой его связной части.
+        // Любую связную часть можно дорастить до связного набора без одного стола, поэтому
+        // достаточно проверить наборы на один стол меньше
+        int maxCapacity = 0;
+        List<Combination> entries = new ArrayList<>();
+        List<Integer> minGuests = new ArrayList<>();
+        for (List<Integer> numbers : combinations) {
+            int largestPart = 0;
+            for (int i = 0; i < numbers.size(); i++) {
+                List<Integer> part = new ArrayList<>(numbers);
+                part.remove(i);
+                Integer partCapacity = capacities.get(part);
+                if (partCapacity != null) {
+                    largestPart = Math.max(largestPart, partCapacity);
+                }
+            }
+            int capacity = capacities.get(numbers);
+            entries.add(new Combination(List.copyOf(numbers), capacity, byNumber.get(numbers.get(0)).location()));
+            minGuests.add(largestPart + 1);
+            maxCapacity = Math.max(maxCapacity, capacity);
+        }
+
+        List<List<Combination>> byGuests = new ArrayList<>(maxCapacity + 1);
+        for (int guests = 0; guests <= maxCapacity; guests++) {
+            byGuests.add(new ArrayList<>());
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            Combination combination = entries.get(i);
+            for (int guests = minGuests.get(i); guests <= combination.capacity(); guests++) {
+                byGuests.get(guests).add(combination);
+            }
+        }
+        Comparator<Combination> order = Comparator.comparingInt(Combination::capacity)
+                .thenComparingInt(combination -> combination.tableNumbers().size())
+                .thenComparingInt(combination -> combination.tableNumbers().get(0));
+        for (int guests = 0; guests <= maxCapacity; guests++) {
+            List<Combination> list = byGuests.get(guests);
+            list.sort(order);
+            byGuests.set(guests, Collections.unmodifiableList(list));
+        }
+        return new TableCombinationIndex(byGuests, entries.size());
+    }
+
+    // Сочетания, вмещающие компанию, по возрастанию вместимости (без проверки занятости)
+    public List<Combination> candidates(int guests) {
+        return guests > 0 && guests < byGuests.size() ? byGuests.get(guests) : NONE;
+    }
+
+    // Сочетания, все столы которых свободны по isFree
+    public List<Combination> findFree(int guests, IntPredicate isFree) {
+        List<Combination> result = new ArrayList<>();
+        for (Combination combination : candidates(guests)) {
+            boolean free = true;
+            for (int tableNumber : combination.tableNumbers()) {
+                if (!isFree.test(tableNumber)) {
+                    free = false;
+                    break;
+                }
+            }
+            if (free) {
+                result.add(combination);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return combinationCount;
+    }
+
+    private static Map<Integer, Set<Integer>> neighboursByNumber(List<TableInfo> tables) {
+        List<TableInfo> sorted = new ArrayList<>(tables);
+        sorted.sort(Comparator.comparingInt(TableInfo::tableNumber));
+        Map<Integer, Set<Integer>> graph = new HashMap<>();
+        for (int i = 1; i < sorted.size(); i++) {
+            TableInfo previous = sorted.get(i - 1);
+            TableInfo current = sorted.get(i);
+            if (current.tableNumber() == previous.tableNumber() + 1 && sameLocation(previous, current)) {
+                link(graph, previous.tableNumber(), current.tableNumber());
+            }
+        }
+        return graph;
+    }
+
+    // Пары между разными зонами и с неизвестными столами пропускаются
+    private static Map<Integer, Set<Integer>> parseAdjacency(String adjacency, Map<Integer, TableInfo> byNumber) {
+        Map<Integer, Set<Integer>> graph = new HashMap<>();
+        for (String pair : adjacency.split(",")) {
+            String[] ends = pair.trim().split("-");
+            if (ends.length != 2) {
+                throw new IllegalArgumentException("Неверная пара соседних столов: " + pair);
+            }
+            TableInfo first = byNumber.get(Integer.parseInt(ends[0].trim()));
+            TableInfo second = byNumber.get(Integer.parseInt(ends[1].trim()));
+            if (first != null && second != null && first != second && sameLocation(first, second)) {
+                link(graph, first.tableNumber(), second.tableNumber());
+            }
+        }
+        return graph;
+    }
+
+    private static boolean sameLocation(TableInfo first, TableInfo second) {
+        return first.location() != null && first.location().equals(second.location());
+    }
+
+    private static void link(Map<Integer, Set<Integer>> graph, int first, int second) {
+        graph.computeIfAbsent(first, table -> new HashSet<>()).add(second);
+        graph.computeIfAbsent(second, table -> new HashSet<>()).add(first);
+    }
+}
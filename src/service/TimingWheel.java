@@ -0,0 +1,146 @@
+package service;
+
+import java.util.function.Consumer;
+
+// Иерархическое колесо таймеров: LEVELS уровней по WHEEL_SIZE ячеек.
+// Постановка и отмена — O(1) (вставка/удаление из двусвязного списка ячейки),
+// продвижение на один тик обрабатывает только одну ячейку нижнего уровня и
+// изредка переносит ячейку верхнего уровня вниз.
+// Класс не потокобезопасен: синхронизацию обеспечивает владелец
+public class TimingWheel<T> {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    // Дальше этого горизонта таймер временно кладется в последнюю ячейку
+    // и пересчитывается при каскадировании
+    private static final long MAX_DELTA = 1L << (WHEEL_BITS * LEVELS);
+
+    private final long tickMs;
+    private final Timeout<T>[][] buckets;
+    private long currentTick;
+    private int size;
+
+    public static final class Timeout<T> {
+        private final long deadlineTick;
+        private final T payload;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int level = -1;
+        private int index;
+
+        private Timeout(long deadlineTick, T payload) {
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        public T getPayload() { return payload; }
+        public boolean isPending() { return level >= 0; }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, long startMs) {
+        this.tickMs = tickMs;
+        this.buckets = (Timeout<T>[][]) new Timeout<?>[LEVELS][WHEEL_SIZE];
+        this.currentTick = Math.floorDiv(startMs, tickMs);
+    }
+
+    // Таймеры с прошедшим сроком сработают на ближайшем тике
+    public Timeout<T> schedule(long deadlineMs, T payload) {
+        long deadlineTick = Math.max(Math.floorDiv(deadlineMs + tickMs - 1, tickMs), currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(deadlineTick, payload);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        if (!timeout.isPending()) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    // Продвигает колесо до момента nowMs и передает сработавшие таймеры в expired
+    public void advanceTo(long nowMs, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMs, tickMs);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+
+            int index = (int) (currentTick & WHEEL_MASK);
+            Timeout<T> timeout = buckets[0][index];
+            buckets[0][index] = null;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.level = -1;
+                size--;
+                expired.accept(timeout.payload);
+                timeout = next;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // На границе оборота уровня L ячейка уровня L+1 переносится вниз
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (level * WHEEL_BITS)) - 1)) != 0) {
+                return;
+            }
+            int index = (int) ((currentTick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+            Timeout<T> timeout = buckets[level][index];
+            buckets[level][index] = null;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        long tick = delta < MAX_DELTA ? timeout.deadlineTick : currentTick + MAX_DELTA - 1;
+        delta = tick - currentTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << ((level + 1) * WHEEL_BITS))) {
+            level++;
+        }
+        int index = (int) ((tick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+
+        Timeout<T> head = buckets[level][index];
+        timeout.next = head;
+        timeout.prev = null;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[level][index] = timeout;
+        timeout.level = level;
+        timeout.index = index;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.level][timeout.index] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+}
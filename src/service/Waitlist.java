@@ -0,0 +1,102 @@
+package service;
+
+import model.WaitlistEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Лист ожидания в памяти. Запись индексируется по каждому часу своего окна:
+// (дата, час) -> размер компании -> очередь в порядке постановки.
+// Подбор для освободившегося стола — floorEntry по вместимости и первый в очереди,
+// то есть O(log n) независимо от длины листа. Потокобезопасен
+public class Waitlist {
+    private static final Comparator<WaitlistEntry> BY_ARRIVAL =
+            Comparator.comparing(WaitlistEntry::createdAt).thenComparingInt(WaitlistEntry::id);
+
+    private record HourKey(LocalDate date, int hour) {
+    }
+
+    private final Map<HourKey, NavigableMap<Integer, NavigableSet<WaitlistEntry>>> index = new HashMap<>();
+    private final Map<Integer, WaitlistEntry> entriesById = new HashMap<>();
+
+    public synchronized void add(WaitlistEntry entry) {
+        if (entriesById.putIfAbsent(entry.id(), entry) != null) {
+            return;
+        }
+        for (int hour = entry.fromHour(); hour <= entry.toHour(); hour++) {
+            index.computeIfAbsent(new HourKey(entry.date(), hour), key -> new TreeMap<>())
+                    .computeIfAbsent(entry.guests(), guests -> new TreeSet<>(BY_ARRIVAL))
+                    .add(entry);
+        }
+    }
+
+    public synchronized boolean remove(int entryId) {
+        WaitlistEntry entry = entriesById.remove(entryId);
+        if (entry == null) {
+            return false;
+        }
+        for (int hour = entry.fromHour(); hour <= entry.toHour(); hour++) {
+            HourKey key = new HourKey(entry.date(), hour);
+            NavigableMap<Integer, NavigableSet<WaitlistEntry>> bySize = index.get(key);
+            NavigableSet<WaitlistEntry> queue = bySize.get(entry.guests());
+            queue.remove(entry);
+            // Пустые узлы удаляются сразу, иначе floorEntry пришлось бы пропускать их
+            if (queue.isEmpty()) {
+                bySize.remove(entry.guests());
+                if (bySize.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+        return true;
+    }
+
+    // Забирает из листа компанию для стола вместимостью capacity на date в hour:
+    // самую большую из помещающихся, среди равных — дольше всех ждущую. null — подходящих нет
+    public synchronized WaitlistEntry poll(LocalDate date, int hour, int capacity) {
+        NavigableMap<Integer, NavigableSet<WaitlistEntry>> bySize = index.get(new HourKey(date, hour));
+        if (bySize == null) {
+            return null;
+        }
+        Map.Entry<Integer, NavigableSet<WaitlistEntry>> best = bySize.floorEntry(capacity);
+        if (best == null) {
+            return null;
+        }
+        WaitlistEntry entry = best.getValue().first();
+        remove(entry.id());
+        return entry;
+    }
+
+    // Удаляет записи на прошедшие дни; возвращает их id
+    public synchronized List<Integer> removeBefore(LocalDate date) {
+        List<Integer> expired = new ArrayList<>();
+        for (WaitlistEntry entry : entriesById.values()) {
+            if (entry.date().isBefore(date)) {
+                expired.add(entry.id());
+            }
+        }
+        expired.forEach(this::remove);
+        return expired;
+    }
+
+    public synchronized void clear() {
+        index.clear();
+        entriesById.clear();
+    }
+
+    public synchronized boolean isEmpty() {
+        return entriesById.isEmpty();
+    }
+
+    public synchronized int size() {
+        return entriesById.size();
+    }
+}
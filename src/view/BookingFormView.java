@@ -1,6 +1,9 @@
 package view;
 
 import controller.MainController;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -8,12 +11,22 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import model.Booking;
+import model.RecurrenceRule;
 import model.Table;
+import service.Alternative;
+import service.RecurrenceConflictException;
+import service.SlotTakenException;
+import service.TableCombinationIndex;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class BookingFormView extends VBox {
     private MainController controller;
@@ -26,7 +39,18 @@ public class BookingFormView extends VBox {
     private DatePicker datePicker;
     private Spinner<Integer> hourSpinner;
     private ComboBox<Table> tableComboBox;
+    // Сочетание сдвинутых столов, если компания не помещается ни за один свободный стол
+    private ComboBox<TableCombinationIndex.Combination> combinationComboBox;
     private TextArea specialRequestsArea;
+    // Повтор доступен только для нового бронирования: вместо брони сохраняется правило
+    private CheckBox repeatCheckBox;
+    private ComboBox<RecurrenceRule.Frequency> frequencyComboBox;
+    private DatePicker untilDatePicker;
+    // Свободные столы ищутся через 150 мс после последнего изменения полей и вне потока JavaFX;
+    // результат применяется, только если после запроса поля не менялись
+    private final PauseTransition availabilityDelay = new PauseTransition(Duration.millis(150));
+    private CompletableFuture<List<Table>> pendingAvailability;
+    private int availabilityRequest;
 
     public BookingFormView(MainController controller, Booking editingBooking, Stage stage) {
         this.controller = controller;
@@ -59,6 +83,9 @@ public class BookingFormView extends VBox {
         datePicker = new DatePicker();
         hourSpinner = new Spinner<>(8, 23, 18);
         tableComboBox = new ComboBox<>();
+        combinationComboBox = new ComboBox<>();
+        combinationComboBox.setPromptText("Сочетание столов");
+        showCombinations(false);
         specialRequestsArea = new TextArea();
         specialRequestsArea.setPrefRowCount(3);
 
@@ -99,10 +126,26 @@ public class BookingFormView extends VBox {
         formGrid.add(new Label("Время (час):"), 0, 4);
         formGrid.add(hourSpinner, 1, 4);
         formGrid.add(new Label("Стол:"), 0, 5);
-        formGrid.add(tableComboBox, 1, 5);
+        formGrid.add(new HBox(tableComboBox, combinationComboBox), 1, 5);
         formGrid.add(new Label("Особые пожелания:"), 0, 6);
         formGrid.add(specialRequestsArea, 1, 6);
 
+        if (editingBooking == null) {
+            repeatCheckBox = new CheckBox("Повторять");
+            frequencyComboBox = new ComboBox<>();
+            frequencyComboBox.getItems().setAll(RecurrenceRule.Frequency.values());
+            frequencyComboBox.setValue(RecurrenceRule.Frequency.WEEKLY);
+            untilDatePicker = new DatePicker();
+            untilDatePicker.setPromptText("без срока");
+            frequencyComboBox.disableProperty().bind(repeatCheckBox.selectedProperty().not());
+            untilDatePicker.disableProperty().bind(repeatCheckBox.selectedProperty().not());
+
+            HBox repeatBox = new HBox(10, repeatCheckBox, frequencyComboBox, new Label("до"), untilDatePicker);
+            repeatBox.setAlignment(Pos.CENTER_LEFT);
+            formGrid.add(new Label("Повтор:"), 0, 7);
+            formGrid.add(repeatBox, 1, 7);
+        }
+
         // Кнопки
         HBox buttonBox = new HBox(10);
         buttonBox.setAlignment(Pos.CENTER);
@@ -117,9 +160,10 @@ public class BookingFormView extends VBox {
         buttonBox.getChildren().addAll(saveButton, cancelButton);
 
         // Слушатели для обновления доступных столов
-        datePicker.valueProperty().addListener((obs, oldDate, newDate) -> updateAvailableTables());
-        hourSpinner.valueProperty().addListener((obs, oldHour, newHour) -> updateAvailableTables());
-        guestsSpinner.valueProperty().addListener((obs, oldGuests, newGuests) -> updateAvailableTables());
+        availabilityDelay.setOnFinished(e -> updateAvailableTables());
+        datePicker.valueProperty().addListener((obs, oldDate, newDate) -> availabilityDelay.playFromStart());
+        hourSpinner.valueProperty().addListener((obs, oldHour, newHour) -> availabilityDelay.playFromStart());
+        guestsSpinner.valueProperty().addListener((obs, oldGuests, newGuests) -> availabilityDelay.playFromStart());
 
         getChildren().addAll(titleLabel, formGrid, buttonBox);
     }
@@ -135,28 +179,69 @@ public class BookingFormView extends VBox {
     }
 
     private void updateAvailableTables() {
+        availabilityDelay.stop();
         if (datePicker.getValue() != null) {
             LocalDateTime selectedDateTime = LocalDateTime.of(
                     datePicker.getValue(),
                     LocalTime.of(hourSpinner.getValue(), 0)
             );
-            tableComboBox.setItems(controller.getAvailableTables(
-                    guestsSpinner.getValue(), selectedDateTime
-            ));
+            int guests = guestsSpinner.getValue();
+            int request = ++availabilityRequest;
+            if (pendingAvailability != null) {
+                pendingAvailability.cancel(false);
+            }
+            pendingAvailability = controller.findAvailableTablesAsync(guests, selectedDateTime);
+            pendingAvailability.whenComplete((available, error) -> Platform.runLater(() -> {
+                if (request != availabilityRequest || error != null) {
+                    return;
+                }
+                tableComboBox.setItems(FXCollections.observableArrayList(available));
+
+                // Групповая бронь — только для новых бронирований
+                List<TableCombinationIndex.Combination> combinations = editingBooking == null && available.isEmpty()
+                        ? controller.getAvailableCombinations(guests, selectedDateTime)
+                        : List.of();
+                combinationComboBox.getItems().setAll(combinations);
+                showCombinations(!combinations.isEmpty());
+            }));
         }
     }
 
+    private void showCombinations(boolean show) {
+        combinationComboBox.setVisible(show);
+        combinationComboBox.setManaged(show);
+        tableComboBox.setVisible(!show);
+        tableComboBox.setManaged(!show);
+    }
+
+    private boolean isGroupBooking() {
+        return combinationComboBox.isVisible();
+    }
+
     private void saveBooking() {
         if (!validateInput()) {
             return;
         }
 
         try {
+            if (isRepeating()) {
+                saveRecurrenceRule();
+                return;
+            }
+
             LocalDateTime bookingDateTime = LocalDateTime.of(
                     datePicker.getValue(),
                     LocalTime.of(hourSpinner.getValue(), 0)
             );
 
+            if (isGroupBooking()) {
+                controller.addGroupBooking(customerNameField.getText().trim(), phoneField.getText().trim(),
+                        guestsSpinner.getValue(), bookingDateTime, combinationComboBox.getValue(),
+                        specialRequestsArea.getText().trim());
+                stage.close();
+                return;
+            }
+
             Booking booking = new Booking(
                     editingBooking != null ? editingBooking.getId() : controller.getNextBookingId(),
                     customerNameField.getText().trim(),
@@ -176,12 +261,66 @@ public class BookingFormView extends VBox {
             }
 
             stage.close();
+        } catch (SlotTakenException e) {
+            showSlotTaken(e);
         } catch (Exception e) {
             showAlert("Ошибка", "Произошла ошибка при сохранении: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    private boolean isRepeating() {
+        return repeatCheckBox != null && repeatCheckBox.isSelected();
+    }
+
+    // Регулярная бронь: если повторения пересекаются с занятыми датами,
+    // правило можно сохранить, пропустив эти даты
+    private void saveRecurrenceRule() {
+        RecurrenceRule rule = new RecurrenceRule(
+                0,
+                customerNameField.getText().trim(),
+                phoneField.getText().trim(),
+                guestsSpinner.getValue(),
+                tableComboBox.getValue().getTableNumber(),
+                hourSpinner.getValue(),
+                frequencyComboBox.getValue(),
+                datePicker.getValue(),
+                untilDatePicker.getValue(),
+                Set.of(),
+                specialRequestsArea.getText().trim()
+        );
+        try {
+            controller.addRecurrenceRule(rule);
+            stage.close();
+        } catch (RecurrenceConflictException e) {
+            if (confirmSkipDates(e.getDates())) {
+                try {
+                    controller.addRecurrenceRule(rule.withExceptions(new HashSet<>(e.getDates())));
+                    stage.close();
+                } catch (RecurrenceConflictException again) {
+                    showAlert("Стол занят", again.getMessage() + "\n\nВыберите другой стол или время");
+                }
+            }
+        }
+    }
+
+    private boolean confirmSkipDates(List<LocalDate> dates) {
+        StringBuilder message = new StringBuilder("Стол уже занят в эти даты:");
+        int shown = Math.min(dates.size(), 10);
+        for (LocalDate date : dates.subList(0, shown)) {
+            message.append("\n• ").append(date);
+        }
+        if (dates.size() > shown) {
+            message.append("\n… и еще ").append(dates.size() - shown);
+        }
+        message.append("\n\nСохранить регулярную бронь без этих дат?");
+
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, message.toString());
+        alert.setTitle("Пересечение с бронированиями");
+        alert.setHeaderText(null);
+        return alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK;
+    }
+
     private boolean validateInput() {
         StringBuilder errors = new StringBuilder();
 
@@ -199,10 +338,22 @@ public class BookingFormView extends VBox {
             errors.append("• Нельзя выбрать прошедшую дату\n");
         }
 
-        if (tableComboBox.getValue() == null) {
+        if (isGroupBooking()) {
+            if (combinationComboBox.getValue() == null) {
+                errors.append("• Пожалуйста, выберите сочетание столов\n");
+            }
+            if (isRepeating()) {
+                errors.append("• Регулярная бронь возможна только на один стол\n");
+            }
+        } else if (tableComboBox.getValue() == null) {
             errors.append("• Пожалуйста, выберите стол\n");
         }
 
+        if (isRepeating() && untilDatePicker.getValue() != null && datePicker.getValue() != null &&
+                untilDatePicker.getValue().isBefore(datePicker.getValue())) {
+            errors.append("• Дата окончания повтора раньше даты бронирования\n");
+        }
+
         if (errors.length() > 0) {
             showAlert("Ошибка валидации", errors.toString());
             return false;
@@ -211,6 +362,21 @@ public class BookingFormView extends VBox {
         return true;
     }
 
+    // Стол успел занять другой терминал: показываем свободные варианты
+    private void showSlotTaken(SlotTakenException e) {
+        StringBuilder message = new StringBuilder(e.getMessage());
+        if (e.getAlternatives().isEmpty()) {
+            message.append("\n\nСвободных вариантов на этот день нет");
+        } else {
+            message.append("\n\nСвободные варианты:");
+            for (Alternative alternative : e.getAlternatives()) {
+                message.append("\n• ").append(alternative);
+            }
+        }
+        showAlert("Стол занят", message.toString());
+        updateAvailableTables();
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -1,23 +1,46 @@
 package view;
 
 import controller.MainController;
+import database.DatabaseConnection;
+import database.JournalingBookingStore;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import metrics.Metrics;
 import model.Booking;
 import model.BookingStatus;
 import model.Table;
+import model.Venue;
 
+import java.lang.management.ManagementFactory;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.logging.Logger;
 
 public class MainView extends Application {
+    private static final List<String> STATUS_STYLES = List.of(
+            "status-confirmed", "status-pending", "status-cancelled", "status-completed");
+    private static final Logger logger = Logger.getLogger(MainView.class.getName());
     private MainController controller;
     private TableView<Booking> bookingsTable;
     private TableView<Table> tablesTable;
@@ -25,19 +48,65 @@ public class MainView extends Application {
     private Label confirmedBookingsLabel;
     private Label pendingBookingsLabel;
     private DatePicker filterDatePicker;
+    private TabPane tabPane;
+    private Stage primaryStage;
+    // Поверх вкладок, пока идет начальная загрузка данных заведения
+    private final ProgressIndicator loadingIndicator = new ProgressIndicator();
+    private final VBox loadingOverlay = new VBox(10);
+    // Открытые заведения: контроллер и вкладки создаются при первом выборе и сохраняются,
+    // поэтому повторное переключение мгновенное и не перечитывает данные из БД
+    private final Map<String, Workspace> workspaces = new HashMap<>();
+
+    private Workspace workspace;
+    // Содержимое вкладок, которые еще ни разу не выбирались
+    private final Map<Tab, Function<Tab, Node>> pendingContent = new HashMap<>();
+    // При замене вкладок TabPane сам выбирает промежуточную вкладку — ее строить не нужно
+    private boolean switchingVenue;
+
+    // Состояние вкладок заведения. Поля заполняются по мере построения вкладок
+    // и сохраняются при переключении на другое заведение
+    private static final class Workspace {
+        private final MainController controller;
+        private final List<Tab> tabs;
+        private TableView<Booking> bookingsTable;
+        private TableView<Table> tablesTable;
+        private Label totalBookingsLabel;
+        private Label confirmedBookingsLabel;
+        private Label pendingBookingsLabel;
+        private DatePicker filterDatePicker;
+
+        private Workspace(MainController controller, List<Tab> tabs) {
+            this.controller = controller;
+            this.tabs = tabs;
+        }
+    }
 
     @Override
     public void start(Stage primaryStage) {
-        controller = new MainController();
-
-        TabPane tabPane = new TabPane();
-        tabPane.getTabs().addAll(
-                createBookingsTab(),
-                createTablesTab(),
-                createStatisticsTab()
-        );
+        long startEnteredMs = System.currentTimeMillis();
+        this.primaryStage = primaryStage;
+        tabPane = new TabPane();
+        Label loadingLabel = new Label("Загрузка данных…");
+        loadingOverlay.getChildren().addAll(loadingIndicator, loadingLabel);
+        loadingOverlay.setAlignment(Pos.CENTER);
+        loadingOverlay.setStyle("-fx-background-color: rgba(255, 255, 255, 0.85);");
+        BorderPane root = new BorderPane(new StackPane(tabPane, loadingOverlay));
+
+        // Выбор заведения показывается, только если их несколько (cafe.venues)
+        List<Venue> venues = DatabaseConnection.getVenues();
+        if (venues.size() > 1) {
+            ComboBox<Venue> venueComboBox = new ComboBox<>(FXCollections.observableArrayList(venues));
+            venueComboBox.setValue(venues.get(0));
+            venueComboBox.setOnAction(e -> switchVenue(venueComboBox.getValue()));
+
+            HBox venueBar = new HBox(10, new Label("Заведение:"), venueComboBox);
+            venueBar.setAlignment(Pos.CENTER_LEFT);
+            venueBar.setPadding(new Insets(10, 15, 0, 15));
+            root.setTop(venueBar);
+        }
+        switchVenue(venues.get(0));
 
-        Scene scene = new Scene(tabPane, 1000, 700);
+        Scene scene = new Scene(root, 1000, 700);
 
         // Загружаем CSS из classpath
         try {
@@ -46,15 +115,91 @@ public class MainView extends Application {
             System.out.println("CSS файл не найден, приложение запустится без стилей");
         }
 
-        primaryStage.setTitle("Менеджер бронирования кафе");
+        // Занятость столов «на сейчас» меняется и без правок бронирований
+        Timeline availabilityTicker = new Timeline(new KeyFrame(Duration.minutes(1),
+                e -> controller.refreshTableAvailability()));
+        availabilityTicker.setCycleCount(Animation.INDEFINITE);
+        availabilityTicker.play();
+
         primaryStage.setScene(scene);
         primaryStage.show();
+        reportFirstFrame(scene, startEnteredMs);
     }
 
-    private Tab createBookingsTab() {
-        Tab tab = new Tab("Бронирования");
-        tab.setClosable(false);
+    // Время от запуска JVM до первого импульса отрисовки после показа окна: разметка
+    // посчитана, кадр уходит на экран, окно отвечает на ввод. С -Dcafe.startup.exitAfterFirstFrame=true
+    // приложение после этого завершается (тренировочный запуск для архива классов, см. scripts/appcds.sh)
+    private void reportFirstFrame(Scene scene, long startEnteredMs) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            long launchedMs = ManagementFactory.getRuntimeMXBean().getStartTime();
+            long firstFrameMs = System.currentTimeMillis();
+            long totalMs = firstFrameMs - launchedMs;
+            Metrics.gauge("startup.firstFrameMs", () -> totalMs);
+            logger.info(String.format("Запуск до первого кадра: %d мс (JVM и JavaFX до start(): %d мс, интерфейс: %d мс)",
+                    totalMs, startEnteredMs - launchedMs, firstFrameMs - startEnteredMs));
+            if (Boolean.getBoolean("cafe.startup.exitAfterFirstFrame")) {
+                Platform.runLater(Platform::exit);
+            }
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    // Данные заведения загружаются при первом выборе; открытая вкладка сохраняется
+    private void switchVenue(Venue venue) {
+        int selectedTab = Math.max(tabPane.getSelectionModel().getSelectedIndex(), 0);
+        if (workspace != null) {
+            workspace.bookingsTable = bookingsTable;
+            workspace.tablesTable = tablesTable;
+            workspace.totalBookingsLabel = totalBookingsLabel;
+            workspace.confirmedBookingsLabel = confirmedBookingsLabel;
+            workspace.pendingBookingsLabel = pendingBookingsLabel;
+            workspace.filterDatePicker = filterDatePicker;
+        }
 
+        Workspace next = workspaces.get(venue.id());
+        if (next == null) {
+            controller = MainController.open(venue);
+            next = new Workspace(controller, List.of(
+                    lazyTab("Бронирования", tab -> createBookingsContent()),
+                    lazyTab("Столы", tab -> createTablesContent()),
+                    lazyTab("Статистика", tab -> createStatisticsContent()),
+                    lazyTab("Загрузка", this::createOccupancyContent),
+                    lazyTab("Лист ожидания", tab -> createWaitlistContent()),
+                    lazyTab("Регулярные брони", tab -> createRecurringContent())
+            ));
+            workspaces.put(venue.id(), next);
+            watchReplayConflicts();
+        }
+        workspace = next;
+        controller = next.controller;
+        bookingsTable = next.bookingsTable;
+        tablesTable = next.tablesTable;
+        totalBookingsLabel = next.totalBookingsLabel;
+        confirmedBookingsLabel = next.confirmedBookingsLabel;
+        pendingBookingsLabel = next.pendingBookingsLabel;
+        filterDatePicker = next.filterDatePicker;
+        loadingIndicator.progressProperty().bind(controller.loadProgressProperty());
+        loadingOverlay.visibleProperty().bind(controller.loadingProperty());
+        // Пока заведение было скрыто, время шло
+        controller.refreshTableAvailability();
+        updateStatistics();
+
+        switchingVenue = true;
+        try {
+            tabPane.getTabs().setAll(next.tabs);
+            tabPane.getSelectionModel().select(selectedTab);
+        } finally {
+            switchingVenue = false;
+        }
+        buildContent(tabPane.getSelectionModel().getSelectedItem());
+        primaryStage.setTitle(DatabaseConnection.getVenues().size() == 1
+                ? "Менеджер бронирования кафе"
+                : "Менеджер бронирования кафе — " + venue.name());
+    }
+
+    private Node createBookingsContent() {
         VBox mainLayout = new VBox(15);
         mainLayout.setPadding(new Insets(15));
 
@@ -72,7 +217,9 @@ public class MainView extends Application {
         Button editButton = new Button("Редактировать");
         editButton.setOnAction(e -> {
             Booking selected = bookingsTable.getSelectionModel().getSelectedItem();
-            if (selected != null) {
+            if (isArchiveShown()) {
+                showArchiveReadOnly();
+            } else if (selected != null) {
                 showBookingForm(selected);
             } else {
                 showAlert("Внимание", "Пожалуйста, выберите бронирование для редактирования");
@@ -119,14 +266,39 @@ public class MainView extends Application {
 
         filterBox.getChildren().addAll(filterLabel, filterDatePicker, applyFilterButton, clearFilterButton);
 
+        // Офлайн-режим: изменения принимаются в локальный журнал и уйдут в БД позже
+        Label syncLabel = new Label();
+        syncLabel.setStyle("-fx-text-fill: #c0392b; -fx-font-weight: bold;");
+        syncLabel.textProperty().bind(controller.syncStatusProperty());
+        syncLabel.visibleProperty().bind(controller.syncStatusProperty().isNotEmpty());
+        syncLabel.managedProperty().bind(syncLabel.visibleProperty());
+        filterBox.getChildren().add(syncLabel);
+
         // Таблица бронирований
         bookingsTable = createBookingsTable();
         VBox.setVgrow(bookingsTable, Priority.ALWAYS);
 
         mainLayout.getChildren().addAll(headerBox, filterBox, bookingsTable);
-        tab.setContent(mainLayout);
+        return mainLayout;
+    }
 
-        return tab;
+    // Конфликты отправки журнала показываются, даже если вкладка бронирований еще не открывалась
+    private void watchReplayConflicts() {
+        controller.getReplayConflicts().addListener((ListChangeListener<JournalingBookingStore.Conflict>) change -> {
+            StringBuilder text = new StringBuilder();
+            while (change.next()) {
+                for (JournalingBookingStore.Conflict conflict : change.getAddedSubList()) {
+                    text.append(conflict).append('\n');
+                }
+            }
+            if (text.length() > 0) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle("Конфликты синхронизации");
+                alert.setHeaderText("Часть изменений, сделанных без связи с БД, не сохранена");
+                alert.setContentText(text.toString());
+                alert.show();
+            }
+        });
     }
 
     private TableView<Booking> createBookingsTable() {
@@ -160,7 +332,9 @@ public class MainView extends Application {
         });
 
         TableColumn<Booking, Integer> tableCol = new TableColumn<>("Стол");
-        tableCol.setCellValueFactory(cellData -> cellData.getValue().getTable().tableNumberProperty().asObject());
+        // Зависит от свойства table, чтобы ячейка обновилась при переносе на другой стол
+        tableCol.setCellValueFactory(cellData -> Bindings.createObjectBinding(
+                () -> cellData.getValue().getTable().getTableNumber(), cellData.getValue().tableProperty()));
 
         TableColumn<Booking, String> statusCol = new TableColumn<>("Статус");
         statusCol.setCellValueFactory(cellData -> cellData.getValue().statusProperty().asString());
@@ -171,9 +345,11 @@ public class MainView extends Application {
                 if (empty || item == null) {
                     setText(null);
                     setStyle("");
+                    getStyleClass().removeAll(STATUS_STYLES);
                 } else {
                     setText(item);
-                    // Стилизация статусов
+                    // Стилизация статусов; ячейка переиспользуется, поэтому прежний класс снимаем
+                    getStyleClass().removeAll(STATUS_STYLES);
                     if ("Подтверждено".equals(item)) {
                         getStyleClass().add("status-confirmed");
                     } else if ("Ожидание".equals(item)) {
@@ -188,13 +364,12 @@ public class MainView extends Application {
         });
 
         table.getColumns().addAll(idCol, nameCol, phoneCol, guestsCol, dateCol, tableCol, statusCol);
+        // Ctrl/Shift — несколько бронирований для массовой смены статуса или удаления
+        table.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         return table;
     }
 
-    private Tab createTablesTab() {
-        Tab tab = new Tab("Столы");
-        tab.setClosable(false);
-
+    private Node createTablesContent() {
         VBox mainLayout = new VBox(15);
         mainLayout.setPadding(new Insets(15));
 
@@ -209,9 +384,7 @@ public class MainView extends Application {
         VBox.setVgrow(tablesTable, Priority.ALWAYS);
 
         mainLayout.getChildren().addAll(titleLabel, viewBookingsButton, tablesTable);
-        tab.setContent(mainLayout);
-
-        return tab;
+        return mainLayout;
     }
 
     private TableView<Table> createTablesTable() {
@@ -228,15 +401,9 @@ public class MainView extends Application {
         locationCol.setCellValueFactory(cellData -> cellData.getValue().locationProperty());
 
         TableColumn<Table, String> statusCol = new TableColumn<>("Статус");
-        statusCol.setCellValueFactory(cellData -> {
-            LocalDateTime now = LocalDateTime.now();
-            boolean isAvailable = controller.getBookings().stream()
-                    .filter(booking -> booking.getTable().equals(cellData.getValue()))
-                    .filter(booking -> booking.getStatus() != BookingStatus.CANCELLED)
-                    .noneMatch(booking -> booking.getBookingDateTime().toLocalDate().equals(now.toLocalDate()) &&
-                            Math.abs(booking.getBookingDateTime().getHour() - now.getHour()) < 2);
-            return new javafx.beans.property.SimpleStringProperty(isAvailable ? "Свободен" : "Занят");
-        });
+        // Занятость поддерживает контроллер, ячейка обновляется только при ее изменении
+        statusCol.setCellValueFactory(cellData -> Bindings.when(cellData.getValue().isAvailableProperty())
+                .then("Свободен").otherwise("Занят"));
         statusCol.setCellFactory(col -> new TableCell<Table, String>() {
             @Override
             protected void updateItem(String item, boolean empty) {
@@ -259,10 +426,7 @@ public class MainView extends Application {
         return table;
     }
 
-    private Tab createStatisticsTab() {
-        Tab tab = new Tab("Статистика");
-        tab.setClosable(false);
-
+    private Node createStatisticsContent() {
         GridPane grid = new GridPane();
         grid.setPadding(new Insets(20));
         grid.setHgap(15);
@@ -287,11 +451,53 @@ public class MainView extends Application {
 
         // Слушатель для автоматического обновления статистики
         controller.getBookings().addListener((ListChangeListener<Booking>) change -> updateStatistics());
+        // Автоматические переходы статусов приходят пачками
+        controller.statusRevisionProperty().addListener((obs, oldValue, newValue) -> updateStatistics());
+
+        return grid;
+    }
+
+    // Данные загружаются в фоне при каждом открытии вкладки
+    private Node createOccupancyContent(Tab tab) {
+        OccupancyHeatmapView heatmapView = new OccupancyHeatmapView(controller);
+        tab.setOnSelectionChanged(e -> {
+            if (tab.isSelected()) {
+                heatmapView.reload();
+            }
+        });
+        heatmapView.reload();
+        return new ScrollPane(heatmapView);
+    }
+
+    private Node createWaitlistContent() {
+        return new WaitlistView(controller);
+    }
 
-        tab.setContent(grid);
+    private Node createRecurringContent() {
+        return new RecurringBookingsView(controller);
+    }
+
+    // Вкладка, содержимое которой строится при первом выборе: при запуске создается
+    // только видимая вкладка, остальные — когда пользователь до них дойдет
+    private Tab lazyTab(String title, Function<Tab, Node> contentFactory) {
+        Tab tab = new Tab(title);
+        tab.setClosable(false);
+        pendingContent.put(tab, contentFactory);
+        tab.selectedProperty().addListener((obs, wasSelected, selected) -> {
+            if (selected && !switchingVenue) {
+                buildContent(tab);
+            }
+        });
         return tab;
     }
 
+    private void buildContent(Tab tab) {
+        Function<Tab, Node> contentFactory = pendingContent.remove(tab);
+        if (contentFactory != null) {
+            tab.setContent(contentFactory.apply(tab));
+        }
+    }
+
     private VBox createStatCard(String title, String value, String color) {
         VBox card = new VBox(10);
         card.setAlignment(Pos.CENTER);
@@ -310,6 +516,9 @@ public class MainView extends Application {
     }
 
     private void updateStatistics() {
+        if (totalBookingsLabel == null) {
+            return;
+        }
         totalBookingsLabel.setText(String.valueOf(controller.getTotalBookings()));
         confirmedBookingsLabel.setText(String.valueOf(controller.getConfirmedBookings()));
         pendingBookingsLabel.setText(String.valueOf(controller.getPendingBookings()));
@@ -332,10 +541,7 @@ public class MainView extends Application {
             stage.setTitle(booking == null ? "Новое бронирование" : "Редактирование бронирования");
             stage.initModality(javafx.stage.Modality.APPLICATION_MODAL);
             stage.showAndWait();
-
-            // Обновляем таблицу после закрытия формы
-            bookingsTable.refresh();
-            tablesTable.refresh();
+            updateStatistics();
         } catch (Exception e) {
             showAlert("Ошибка", "Не удалось открыть форму: " + e.getMessage());
             e.printStackTrace();
@@ -399,7 +605,12 @@ public class MainView extends Application {
 
     private void changeBookingStatus(BookingStatus newStatus) {
         Booking selected = bookingsTable.getSelectionModel().getSelectedItem();
-        if (selected != null) {
+        List<Booking> selection = new ArrayList<>(bookingsTable.getSelectionModel().getSelectedItems());
+        if (isArchiveShown()) {
+            showArchiveReadOnly();
+        } else if (selection.size() > 1) {
+            changeBookingStatuses(selection, newStatus);
+        } else if (selected != null) {
             String statusName = newStatus.toString();
             Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
             confirmation.setTitle("Изменение статуса");
@@ -408,9 +619,12 @@ public class MainView extends Application {
 
             Optional<ButtonType> result = confirmation.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                selected.setStatus(newStatus);
-                bookingsTable.refresh();
-                tablesTable.refresh();
+                try {
+                    controller.changeBookingStatus(selected, newStatus);
+                } catch (Exception e) {
+                    showAlert("Ошибка", "Не удалось изменить статус: " + e.getMessage());
+                    return;
+                }
                 updateStatistics();
 
                 Alert info = new Alert(Alert.AlertType.INFORMATION);
@@ -424,9 +638,54 @@ public class MainView extends Application {
         }
     }
 
+    // Несколько выделенных бронирований — одно подтверждение и один запрос к БД
+    private void changeBookingStatuses(List<Booking> selection, BookingStatus newStatus) {
+        String statusName = newStatus.toString();
+        Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmation.setTitle("Изменение статуса");
+        confirmation.setHeaderText("Изменить статус выделенных бронирований (" + selection.size() + ") на \"" + statusName + "\"?");
+        confirmation.setContentText(newStatus == BookingStatus.CANCELLED
+                ? "Уже отмененные бронирования пропускаются"
+                : "Отмененные бронирования пропускаются, их можно восстановить по одному");
+
+        Optional<ButtonType> result = confirmation.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            int changed;
+            try {
+                changed = controller.changeBookingStatuses(selection, newStatus);
+            } catch (Exception e) {
+                showAlert("Ошибка", "Не удалось изменить статус: " + e.getMessage());
+                return;
+            }
+            updateStatistics();
+
+            Alert info = new Alert(Alert.AlertType.INFORMATION);
+            info.setTitle("Статус изменен");
+            info.setHeaderText(null);
+            info.setContentText("Статус \"" + statusName + "\" установлен у " + changed + " из " + selection.size() +
+                    " бронирований");
+            info.showAndWait();
+        }
+    }
+
     private void deleteSelectedBooking() {
         Booking selected = bookingsTable.getSelectionModel().getSelectedItem();
-        if (selected != null) {
+        List<Booking> selection = new ArrayList<>(bookingsTable.getSelectionModel().getSelectedItems());
+        if (isArchiveShown()) {
+            showArchiveReadOnly();
+        } else if (selection.size() > 1) {
+            Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
+            confirmation.setTitle("Подтверждение удаления");
+            confirmation.setHeaderText("Удалить выделенные бронирования (" + selection.size() + ")?");
+
+            if (confirmation.showAndWait().get() == ButtonType.OK) {
+                try {
+                    controller.deleteBookings(selection);
+                } catch (Exception e) {
+                    showAlert("Ошибка", "Не удалось удалить бронирования: " + e.getMessage());
+                }
+            }
+        } else if (selected != null) {
             Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
             confirmation.setTitle("Подтверждение удаления");
             confirmation.setHeaderText("Вы уверены, что хотите удалить бронирование?");
@@ -434,24 +693,41 @@ public class MainView extends Application {
 
             if (confirmation.showAndWait().get() == ButtonType.OK) {
                 controller.deleteBooking(selected);
-                tablesTable.refresh();
             }
         } else {
             showAlert("Внимание", "Пожалуйста, выберите бронирование для удаления");
         }
     }
 
+    // Даты раньше горизонта архива показываются из отдельного списка, только для просмотра
     private void applyFilter() {
         if (filterDatePicker.getValue() != null) {
-            controller.applyFilter(filterDatePicker.getValue().atStartOfDay());
+            boolean archived = controller.applyFilter(filterDatePicker.getValue().atStartOfDay());
+            bookingsTable.setItems(archived ? controller.getArchivedBookings() : controller.getFilteredBookings());
+            // Архив дочитывается в фоне; ошибку показываем, когда чтение закончится
+            controller.archiveLoad().whenComplete((ignored, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    showAlert("Ошибка", cause.getMessage());
+                }
+            });
         }
     }
 
     private void clearFilter() {
         controller.clearFilter();
+        bookingsTable.setItems(controller.getFilteredBookings());
         filterDatePicker.setValue(null);
     }
 
+    private boolean isArchiveShown() {
+        return bookingsTable.getItems() == controller.getArchivedBookings();
+    }
+
+    private void showArchiveReadOnly() {
+        showAlert("Внимание", "Архивные бронирования доступны только для просмотра. Сбросьте фильтр, чтобы вернуться к текущим");
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.WARNING);
         alert.setTitle(title);
@@ -0,0 +1,181 @@
+package view;
+
+import controller.MainController;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+import model.Booking;
+import model.Table;
+import service.Availability;
+import service.OccupancyHeatmap;
+
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+// Тепловая карта: строки — дни недели, столбцы — часы работы,
+// цвет ячейки — доля занятости стола (или всех столов) за выбранный период
+public final class OccupancyHeatmapView extends VBox {
+    private static final Color EMPTY_COLOR = Color.web("#ecf0f1");
+    private static final Color FULL_COLOR = Color.web("#c0392b");
+    private static final Locale RU = Locale.forLanguageTag("ru");
+
+    private final MainController controller;
+    private final ComboBox<Integer> periodComboBox = new ComboBox<>();
+    private final ComboBox<Integer> tableComboBox = new ComboBox<>();
+    private final GridPane grid = new GridPane();
+    private final Label statusLabel = new Label();
+    private final ProgressIndicator progress = new ProgressIndicator();
+    // Правки сегодняшних бронирований пересчитываются не чаще раза в секунду
+    private final PauseTransition refreshDelay = new PauseTransition(Duration.seconds(1));
+    private OccupancyHeatmap heatmap;
+    private int requestNumber;
+
+    public OccupancyHeatmapView(MainController controller) {
+        super(15);
+        this.controller = controller;
+
+        setPadding(new Insets(15));
+
+        Label titleLabel = new Label("Загрузка столов по дням недели и часам");
+        titleLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
+
+        periodComboBox.getItems().addAll(1, 3, 6, 12);
+        periodComboBox.setValue(3);
+        periodComboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Integer months) {
+                return months == null ? "" : "Последние " + months + " мес.";
+            }
+
+            @Override
+            public Integer fromString(String text) {
+                return null;
+            }
+        });
+        periodComboBox.setOnAction(e -> reload());
+
+        // null — все столы
+        tableComboBox.getItems().add(null);
+        for (Table table : controller.getTables()) {
+            tableComboBox.getItems().add(table.getTableNumber());
+        }
+        tableComboBox.setValue(null);
+        tableComboBox.setButtonCell(new TableNumberCell());
+        tableComboBox.setCellFactory(list -> new TableNumberCell());
+        tableComboBox.setOnAction(e -> render());
+
+        Button refreshButton = new Button("Обновить");
+        refreshButton.setOnAction(e -> {
+            controller.invalidateOccupancy();
+            reload();
+        });
+
+        progress.setPrefSize(24, 24);
+        progress.setVisible(false);
+
+        HBox controls = new HBox(10, new Label("Период:"), periodComboBox,
+                new Label("Стол:"), tableComboBox, refreshButton, progress, statusLabel);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        grid.setHgap(2);
+        grid.setVgap(2);
+
+        getChildren().addAll(titleLabel, controls, grid);
+
+        refreshDelay.setOnFinished(e -> reload());
+        controller.getBookings().addListener((ListChangeListener<Booking>) change -> scheduleRefresh());
+        controller.statusRevisionProperty().addListener((obs, oldValue, newValue) -> scheduleRefresh());
+    }
+
+    public void reload() {
+        int request = ++requestNumber;
+        progress.setVisible(true);
+        statusLabel.setText("");
+        controller.loadOccupancy(periodComboBox.getValue()).whenComplete((result, error) -> Platform.runLater(() -> {
+            // Ответ на устаревший запрос не показываем
+            if (request != requestNumber) {
+                return;
+            }
+            progress.setVisible(false);
+            if (error != null) {
+                statusLabel.setText("Не удалось загрузить данные: " + rootMessage(error));
+                return;
+            }
+            heatmap = result;
+            render();
+        }));
+    }
+
+    private void scheduleRefresh() {
+        if (heatmap != null && isVisible() && getScene() != null) {
+            refreshDelay.playFromStart();
+        }
+    }
+
+    private void render() {
+        grid.getChildren().clear();
+        if (heatmap == null) {
+            return;
+        }
+        Integer tableNumber = tableComboBox.getValue();
+        int tableCount = controller.getTables().size();
+
+        for (int hour = Availability.FIRST_HOUR; hour <= Availability.LAST_HOUR; hour++) {
+            Label header = new Label(hour + ":00");
+            header.setMinWidth(44);
+            header.setAlignment(Pos.CENTER);
+            grid.add(header, hour - Availability.FIRST_HOUR + 1, 0);
+        }
+
+        for (DayOfWeek day : DayOfWeek.values()) {
+            Label dayLabel = new Label(day.getDisplayName(TextStyle.SHORT_STANDALONE, RU));
+            dayLabel.setMinWidth(30);
+            grid.add(dayLabel, 0, day.getValue());
+
+            for (int hour = Availability.FIRST_HOUR; hour <= Availability.LAST_HOUR; hour++) {
+                double rate = heatmap.getRate(tableNumber, day, hour, tableCount);
+                Label cell = new Label(rate == 0 ? "" : Math.round(rate * 100) + "%");
+                cell.setMinSize(44, 28);
+                cell.setAlignment(Pos.CENTER);
+                Color color = EMPTY_COLOR.interpolate(FULL_COLOR, rate);
+                cell.setStyle("-fx-background-color: " + toWeb(color) + "; -fx-font-size: 10px;" +
+                        (rate > 0.5 ? " -fx-text-fill: white;" : ""));
+                cell.setTooltip(new Tooltip(day.getDisplayName(TextStyle.FULL_STANDALONE, RU) + ", " + hour + ":00 — " +
+                        "занят " + heatmap.getCount(tableNumber, day, hour) + " раз"));
+                grid.add(cell, hour - Availability.FIRST_HOUR + 1, day.getValue());
+            }
+        }
+        statusLabel.setText("Период: " + heatmap.getFrom() + " — " + heatmap.getTo().minusDays(1));
+    }
+
+    private static String toWeb(Color color) {
+        return String.format("#%02x%02x%02x", (int) Math.round(color.getRed() * 255),
+                (int) Math.round(color.getGreen() * 255), (int) Math.round(color.getBlue() * 255));
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static class TableNumberCell extends ListCell<Integer> {
+        @Override
+        protected void updateItem(Integer item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(empty ? null : item == null ? "Все столы" : "Стол №" + item);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package view;
+
+import controller.MainController;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import model.RecurrenceRule;
+import service.RecurringSchedule;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.List;
+import java.util.Locale;
+
+// Регулярные брони: правила и их повторения в выбранном окне дат.
+// Новые правила создаются в форме бронирования (поле «Повтор»)
+public final class RecurringBookingsView extends VBox {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final Locale RUSSIAN = Locale.forLanguageTag("ru");
+
+    private final MainController controller;
+    private final TableView<RecurrenceRule> rulesTable = new TableView<>();
+    private final TableView<RecurringSchedule.Occurrence> occurrencesTable = new TableView<>();
+    private final DatePicker fromPicker = new DatePicker(LocalDate.now());
+    private final Spinner<Integer> weeksSpinner = new Spinner<>(1, 12, 2);
+
+    public RecurringBookingsView(MainController controller) {
+        super(15);
+        this.controller = controller;
+
+        setPadding(new Insets(15));
+
+        Label titleLabel = new Label("Регулярные брони");
+        titleLabel.getStyleClass().add("title");
+
+        Button removeButton = new Button("Удалить правило");
+        removeButton.setOnAction(e -> removeSelectedRule());
+        Label hint = new Label("Новая регулярная бронь создается в форме бронирования, поле «Повтор»");
+        hint.setStyle("-fx-text-fill: #7f8c8d;");
+        HBox ruleActions = new HBox(10, removeButton, hint);
+        ruleActions.setAlignment(Pos.CENTER_LEFT);
+
+        weeksSpinner.setPrefWidth(70);
+        Button skipButton = new Button("Пропустить дату");
+        skipButton.setOnAction(e -> skipSelectedOccurrence());
+        HBox occurrenceActions = new HBox(10, new Label("Повторения с"), fromPicker,
+                new Label("недель:"), weeksSpinner, skipButton);
+        occurrenceActions.setAlignment(Pos.CENTER_LEFT);
+
+        createRulesTable();
+        createOccurrencesTable();
+        VBox.setVgrow(rulesTable, Priority.ALWAYS);
+        VBox.setVgrow(occurrencesTable, Priority.ALWAYS);
+
+        // Повторения разворачиваются только для показанного окна
+        InvalidationListener reload = obs -> reloadOccurrences();
+        fromPicker.valueProperty().addListener(reload);
+        weeksSpinner.valueProperty().addListener(reload);
+        controller.getRecurrenceRules().addListener(reload);
+        reloadOccurrences();
+
+        getChildren().addAll(titleLabel, ruleActions, rulesTable, occurrenceActions, occurrencesTable);
+    }
+
+    private void createRulesTable() {
+        rulesTable.setItems(controller.getRecurrenceRules());
+
+        TableColumn<RecurrenceRule, String> nameCol = new TableColumn<>("Клиент");
+        nameCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().customerName()));
+
+        TableColumn<RecurrenceRule, String> phoneCol = new TableColumn<>("Телефон");
+        phoneCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().phone()));
+
+        TableColumn<RecurrenceRule, Integer> guestsCol = new TableColumn<>("Гостей");
+        guestsCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().guests()));
+
+        TableColumn<RecurrenceRule, Integer> tableCol = new TableColumn<>("Стол");
+        tableCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().tableNumber()));
+
+        TableColumn<RecurrenceRule, String> hourCol = new TableColumn<>("Время");
+        hourCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().hour() + ":00"));
+
+        TableColumn<RecurrenceRule, String> frequencyCol = new TableColumn<>("Повтор");
+        frequencyCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                cellData.getValue().frequency().toString()));
+
+        TableColumn<RecurrenceRule, String> periodCol = new TableColumn<>("Период");
+        periodCol.setCellValueFactory(cellData -> {
+            RecurrenceRule rule = cellData.getValue();
+            return new ReadOnlyStringWrapper("с " + rule.startDate().format(DATE_FORMAT) +
+                    (rule.endDate() != null ? " по " + rule.endDate().format(DATE_FORMAT) : ""));
+        });
+
+        TableColumn<RecurrenceRule, Integer> exceptionsCol = new TableColumn<>("Пропусков");
+        exceptionsCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(
+                cellData.getValue().exceptions().size()));
+
+        rulesTable.getColumns().addAll(List.of(nameCol, phoneCol, guestsCol, tableCol, hourCol, frequencyCol,
+                periodCol, exceptionsCol));
+    }
+
+    private void createOccurrencesTable() {
+        TableColumn<RecurringSchedule.Occurrence, String> dateCol = new TableColumn<>("Дата");
+        dateCol.setCellValueFactory(cellData -> {
+            LocalDate date = cellData.getValue().dateTime().toLocalDate();
+            return new ReadOnlyStringWrapper(date.format(DATE_FORMAT) + ", " +
+                    date.getDayOfWeek().getDisplayName(TextStyle.SHORT, RUSSIAN));
+        });
+
+        TableColumn<RecurringSchedule.Occurrence, String> hourCol = new TableColumn<>("Время");
+        hourCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                cellData.getValue().dateTime().getHour() + ":00"));
+
+        TableColumn<RecurringSchedule.Occurrence, Integer> tableCol = new TableColumn<>("Стол");
+        tableCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(
+                cellData.getValue().rule().tableNumber()));
+
+        TableColumn<RecurringSchedule.Occurrence, String> nameCol = new TableColumn<>("Клиент");
+        nameCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                cellData.getValue().rule().customerName()));
+
+        TableColumn<RecurringSchedule.Occurrence, String> phoneCol = new TableColumn<>("Телефон");
+        phoneCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().rule().phone()));
+
+        TableColumn<RecurringSchedule.Occurrence, Integer> guestsCol = new TableColumn<>("Гостей");
+        guestsCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().rule().guests()));
+
+        occurrencesTable.getColumns().addAll(List.of(dateCol, hourCol, tableCol, nameCol, phoneCol, guestsCol));
+    }
+
+    private void reloadOccurrences() {
+        LocalDate from = fromPicker.getValue() != null ? fromPicker.getValue() : LocalDate.now();
+        occurrencesTable.getItems().setAll(controller.getOccurrences(from, from.plusWeeks(weeksSpinner.getValue())));
+    }
+
+    private void removeSelectedRule() {
+        RecurrenceRule selected = rulesTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showAlert("Ошибка", "Выберите правило для удаления");
+            return;
+        }
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                "Удалить регулярную бронь «" + selected + "» со всеми будущими повторениями?");
+        confirm.setHeaderText(null);
+        if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+        try {
+            controller.removeRecurrenceRule(selected);
+        } catch (Exception e) {
+            showAlert("Ошибка", e.getMessage());
+        }
+    }
+
+    // Отмена одного визита: дата становится исключением правила, стол на это время освобождается
+    private void skipSelectedOccurrence() {
+        RecurringSchedule.Occurrence selected = occurrencesTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showAlert("Ошибка", "Выберите повторение");
+            return;
+        }
+        try {
+            controller.skipOccurrence(selected.rule(), selected.dateTime().toLocalDate());
+        } catch (Exception e) {
+            showAlert("Ошибка", e.getMessage());
+        }
+    }
+
+    private void showAlert(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,147 @@
+package view;
+
+import controller.MainController;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import model.WaitlistEntry;
+import service.Availability;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Лист ожидания: компании, которым предлагается стол, как только он освободится
+public final class WaitlistView extends VBox {
+    private static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("dd.MM HH:mm");
+
+    private final MainController controller;
+    private final TextField customerNameField = new TextField();
+    private final TextField phoneField = new TextField();
+    private final Spinner<Integer> guestsSpinner = new Spinner<>(1, 20, 2);
+    private final DatePicker datePicker = new DatePicker(LocalDate.now());
+    private final Spinner<Integer> fromHourSpinner = new Spinner<>(Availability.FIRST_HOUR, Availability.LAST_HOUR, 18);
+    private final Spinner<Integer> toHourSpinner = new Spinner<>(Availability.FIRST_HOUR, Availability.LAST_HOUR, 21);
+    private final TableView<WaitlistEntry> table = new TableView<>();
+
+    public WaitlistView(MainController controller) {
+        super(15);
+        this.controller = controller;
+
+        setPadding(new Insets(15));
+
+        Label titleLabel = new Label("Лист ожидания");
+        titleLabel.getStyleClass().add("title");
+
+        customerNameField.setPromptText("Имя клиента");
+        phoneField.setPromptText("Телефон");
+        guestsSpinner.setPrefWidth(70);
+        fromHourSpinner.setPrefWidth(70);
+        toHourSpinner.setPrefWidth(70);
+
+        Button addButton = new Button("Добавить");
+        addButton.setOnAction(e -> addEntry());
+
+        HBox form = new HBox(10, customerNameField, phoneField, new Label("Гостей:"), guestsSpinner,
+                datePicker, new Label("с"), fromHourSpinner, new Label("до"), toHourSpinner, addButton);
+        form.setAlignment(Pos.CENTER_LEFT);
+
+        Button removeButton = new Button("Удалить из листа");
+        removeButton.setOnAction(e -> removeSelected());
+
+        // Последний стол, предложенный автоматически при отмене или удалении бронирования
+        Label offerLabel = new Label();
+        offerLabel.textProperty().bind(controller.waitlistStatusProperty());
+        offerLabel.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold;");
+
+        HBox actions = new HBox(10, removeButton, offerLabel);
+        actions.setAlignment(Pos.CENTER_LEFT);
+
+        createTable();
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        getChildren().addAll(titleLabel, form, actions, table);
+    }
+
+    private void createTable() {
+        table.setItems(controller.getWaitlist());
+
+        TableColumn<WaitlistEntry, LocalDate> dateCol = new TableColumn<>("Дата");
+        dateCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().date()));
+
+        TableColumn<WaitlistEntry, String> hoursCol = new TableColumn<>("Время");
+        hoursCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                cellData.getValue().fromHour() + ":00–" + cellData.getValue().toHour() + ":00"));
+
+        TableColumn<WaitlistEntry, String> nameCol = new TableColumn<>("Клиент");
+        nameCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().customerName()));
+
+        TableColumn<WaitlistEntry, String> phoneCol = new TableColumn<>("Телефон");
+        phoneCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().phone()));
+
+        TableColumn<WaitlistEntry, Integer> guestsCol = new TableColumn<>("Гостей");
+        guestsCol.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().guests()));
+
+        TableColumn<WaitlistEntry, String> createdCol = new TableColumn<>("В листе с");
+        createdCol.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(
+                cellData.getValue().createdAt().format(CREATED_FORMAT)));
+
+        table.getColumns().addAll(List.of(dateCol, hoursCol, nameCol, phoneCol, guestsCol, createdCol));
+    }
+
+    private void addEntry() {
+        StringBuilder errors = new StringBuilder();
+        if (customerNameField.getText().trim().isEmpty()) {
+            errors.append("• Пожалуйста, введите имя клиента\n");
+        }
+        if (phoneField.getText().trim().isEmpty()) {
+            errors.append("• Пожалуйста, введите номер телефона\n");
+        }
+        if (datePicker.getValue() == null || datePicker.getValue().isBefore(LocalDate.now())) {
+            errors.append("• Пожалуйста, выберите сегодняшнюю или будущую дату\n");
+        }
+        if (fromHourSpinner.getValue() > toHourSpinner.getValue()) {
+            errors.append("• Начало интервала позже конца\n");
+        }
+        if (errors.length() > 0) {
+            showAlert("Ошибка валидации", errors.toString());
+            return;
+        }
+
+        try {
+            controller.addToWaitlist(customerNameField.getText().trim(), phoneField.getText().trim(),
+                    guestsSpinner.getValue(), datePicker.getValue(),
+                    fromHourSpinner.getValue(), toHourSpinner.getValue());
+            customerNameField.clear();
+            phoneField.clear();
+        } catch (Exception e) {
+            showAlert("Ошибка", e.getMessage());
+        }
+    }
+
+    private void removeSelected() {
+        WaitlistEntry selected = table.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showAlert("Ошибка", "Выберите запись для удаления");
+            return;
+        }
+        try {
+            controller.removeFromWaitlist(selected);
+        } catch (Exception e) {
+            showAlert("Ошибка", e.getMessage());
+        }
+    }
+
+    private void showAlert(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}